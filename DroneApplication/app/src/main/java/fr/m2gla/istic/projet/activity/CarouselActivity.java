@@ -3,9 +3,14 @@ package fr.m2gla.istic.projet.activity;
 import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.util.Log;
 import android.widget.Toast;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import fr.m2gla.istic.projet.adapter.CarouselAdapter;
@@ -13,23 +18,55 @@ import fr.m2gla.istic.projet.command.Command;
 import fr.m2gla.istic.projet.context.GeneralConstants;
 import fr.m2gla.istic.projet.context.RestAPI;
 import fr.m2gla.istic.projet.model.GeoImage;
+import fr.m2gla.istic.projet.service.Page;
 import fr.m2gla.istic.projet.service.impl.RestServiceImpl;
 import it.moondroid.coverflow.components.ui.containers.EndlessLoopAdapterContainer;
 import it.moondroid.coverflow.components.ui.containers.FeatureCoverFlow;
 
 /**
  * Created by baptiste on 26/05/15.
+ * Carrousel des images du drone : les images de l'intervention sont chargées une fois,
+ * puis seules les nouvelles images sont demandées périodiquement
  */
 public class CarouselActivity extends Activity {
+    private static final String TAG = "CarouselActivity";
+    private static final int FIRST_PAGE_SIZE = 15;
+    private static final long REFRESH_INTERVAL = 5000;
+
+    private CarouselAdapter carouselAdapter;
+    private String idIntervention;
+    // Curseur (date, id) de l'image la plus récente reçue, null tant qu'aucune image n'est reçue
+    private String newestCursor;
+    // Vrai pendant un chargement d'images, pour ne pas en lancer un second en parallèle
+    private boolean loading;
+    // Vrai quand l'adaptateur est attaché au carrousel
+    private boolean attached;
+
+    private final Handler refreshHandler = new Handler();
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            loadNewImages();
+            refreshHandler.postDelayed(this, REFRESH_INTERVAL);
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_carousel);
 
         final Activity _this = this;
-        final CarouselAdapter carouselAdapter = new CarouselAdapter(this);
+        carouselAdapter = new CarouselAdapter(this);
 
         Intent intent = getIntent();
+        idIntervention = intent.getStringExtra(GeneralConstants.REF_ACT_IDINTER);
+        if (idIntervention != null) {
+            loadImages();
+            return;
+        }
+
+        // Sans intervention, les images proches de la position du drone sont affichées
         Double latitude = intent.getDoubleExtra(GeneralConstants.REF_ACT_LAT_IMG, 0.0);
         Double longitude = intent.getDoubleExtra(GeneralConstants.REF_ACT_LON_IMG, 0.0);
 
@@ -54,4 +91,118 @@ public class CarouselActivity extends Activity {
                 }
             });
     }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (idIntervention != null) {
+            refreshHandler.postDelayed(refresh, REFRESH_INTERVAL);
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        refreshHandler.removeCallbacks(refresh);
+    }
+
+    /**
+     * Charge les images les plus récentes de l'intervention
+     */
+    private void loadImages() {
+        final Activity _this = this;
+        Map<String, String> param = new HashMap<>();
+        param.put("id", idIntervention);
+        param.put("limit", String.valueOf(FIRST_PAGE_SIZE));
+
+        loading = true;
+        RestServiceImpl.getInstance().get(RestAPI.GET_INTERVENTION_IMAGES, param, GeoImage[].class, new Command() {
+            @Override
+            public void execute(Object response) {
+                loading = false;
+                showNewestImages((GeoImage[]) response);
+            }
+        }, new Command() {
+            @Override
+            public void execute(Object response) {
+                loading = false;
+                Toast.makeText(_this, R .string.no_image, Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    /**
+     * Charge uniquement les images plus récentes que la plus récente déjà affichée,
+     * page par page jusqu'à la dernière : une rafale d'images entre deux rafraîchissements n'est pas perdue
+     */
+    private void loadNewImages() {
+        if (loading) {
+            return;
+        }
+        if (newestCursor == null) {
+            loadImages();
+            return;
+        }
+        loading = true;
+        loadNewImagesPage(null, new ArrayList<GeoImage>());
+    }
+
+    /**
+     * Charge une page des nouvelles images, puis la suivante tant que le serveur donne un curseur
+     * @param cursor curseur de la page, null pour la première
+     * @param received images des pages précédentes, des plus récentes aux plus anciennes
+     */
+    private void loadNewImagesPage(String cursor, final List<GeoImage> received) {
+        Map<String, String> param = new HashMap<>();
+        param.put("id", idIntervention);
+        param.put("after", newestCursor);
+        String service = RestAPI.GET_INTERVENTION_IMAGES_AFTER;
+        if (cursor != null) {
+            param.put("cursor", cursor);
+            service = RestAPI.GET_INTERVENTION_IMAGES_AFTER_PAGE;
+        }
+
+        RestServiceImpl.getInstance().getPage(service, param, GeoImage[].class, new Command() {
+            @Override
+            public void execute(Object response) {
+                Page<GeoImage[]> page = (Page<GeoImage[]>) response;
+                if (page.getContent() != null) {
+                    received.addAll(Arrays.asList(page.getContent()));
+                }
+                if (page.getNextCursor() != null) {
+                    loadNewImagesPage(page.getNextCursor(), received);
+                    return;
+                }
+                loading = false;
+                showNewestImages(received.toArray(new GeoImage[received.size()]));
+            }
+        }, new Command() {
+            @Override
+            public void execute(Object response) {
+                // Les pages reçues sont abandonnées, le prochain rafraîchissement repart du même curseur
+                loading = false;
+                Log.e(TAG, "Nouvelles images non recuperees");
+            }
+        });
+    }
+
+    /**
+     * Ajoute en tête du carrousel des images plus récentes que celles affichées
+     * @param images images, des plus récentes aux plus anciennes
+     */
+    private void showNewestImages(GeoImage[] images) {
+        if (images.length == 0) {
+            return;
+        }
+        newestCursor = images[0].getDate().getTime() + "_" + images[0].getId();
+        if (attached) {
+            carouselAdapter.addNewestItems(images);
+            return;
+        }
+        carouselAdapter.addItems(images);
+        EndlessLoopAdapterContainer carousel =
+                (EndlessLoopAdapterContainer) findViewById(R.id.carousel);
+        carousel.setAdapter(carouselAdapter);
+        attached = true;
+    }
 }
@@ -9,7 +9,6 @@ import android.graphics.Color;
 import android.graphics.Matrix;
 import android.graphics.drawable.BitmapDrawable;
 import android.os.Bundle;
-import android.util.Base64;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -23,8 +22,10 @@ import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.Circle;
 import com.google.android.gms.maps.model.CircleOptions;
 import com.google.android.gms.maps.model.GroundOverlay;
+import com.google.android.gms.maps.model.CameraPosition;
 import com.google.android.gms.maps.model.GroundOverlayOptions;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 import com.google.android.gms.maps.model.Polyline;
@@ -33,8 +34,10 @@ import com.google.maps.android.clustering.ClusterManager;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import fr.m2gla.istic.projet.activity.mapUtils.MapListeners;
 import fr.m2gla.istic.projet.activity.mapUtils.RefreshAlarmManager;
@@ -53,6 +56,8 @@ import fr.m2gla.istic.projet.model.Position;
 import fr.m2gla.istic.projet.model.Symbol;
 import fr.m2gla.istic.projet.model.Target;
 import fr.m2gla.istic.projet.model.Topographie;
+import fr.m2gla.istic.projet.model.TopographieCluster;
+import fr.m2gla.istic.projet.model.TopographieTile;
 import fr.m2gla.istic.projet.observer.ObserverTarget;
 import fr.m2gla.istic.projet.service.impl.RestServiceImpl;
 import fr.m2gla.istic.projet.strategy.impl.StrategyImageDrone;
@@ -64,7 +69,9 @@ import static com.google.android.gms.maps.model.BitmapDescriptorFactory.fromBitm
 
 public class MapActivity extends Activity implements ObserverTarget {
     private static final String TAG = "MapActivity";
+    private static final int DRONE_IMAGE_SIZE = 64;
     private static final int ZOOM_INDEX = 18;
+    private static final int TOPOGRAPHIE_MAX_TILE_ZOOM = 18;
     private MapFragment mapFragment;
     private boolean isDragging;
 
@@ -76,6 +83,11 @@ public class MapActivity extends Activity implements ObserverTarget {
     // Cluster managers pour gérer les trois types de marqueurs
     private ClusterManager<SymbolMarkerClusterItem> meansClusterManager;
     private ClusterManager<SymbolMarkerClusterItem> topoClusterManager;
+    // Tuiles dont la topographie est chargée, au zoom topographieZoom
+    private Set<String> topographieTiles = new HashSet<>();
+    private int topographieZoom = -1;
+    // Regroupements d'éléments topographiques envoyés par le serveur aux zooms faibles
+    private List<Marker> topographieClusterMarkers = new ArrayList<>();
 
 
     // List of Arrows when drawing drone path
@@ -176,7 +188,14 @@ public class MapActivity extends Activity implements ObserverTarget {
         map.setOnMapLongClickListener(mapListeners);
 
         // Lie les écouteurs de la carte à ceux implémentés par le cluster manager des moyens.
-        map.setOnCameraChangeListener(meansClusterManager);
+        // La topographie des tuiles visibles est chargée à chaque déplacement de la carte
+        map.setOnCameraChangeListener(new GoogleMap.OnCameraChangeListener() {
+            @Override
+            public void onCameraChange(CameraPosition cameraPosition) {
+                meansClusterManager.onCameraChange(cameraPosition);
+                loadTopographicSymbols(cameraPosition);
+            }
+        });
         map.setOnMarkerClickListener(meansClusterManager);
 
         // Active l'info window dans chaque marqueur de la carte
@@ -189,8 +208,6 @@ public class MapActivity extends Activity implements ObserverTarget {
         findViewById(R.id.fragment_moyens_supp).setVisibility(View.VISIBLE);
         findViewById(R.id.drone_targer_action).setVisibility(View.INVISIBLE);
 
-        loadTopographicSymbols();
-
         // Utiliser un timer pour rafraîchir les moyens de manière périodique
         refreshAlarmManager = new RefreshAlarmManager(this, new Command() {
             @Override
@@ -317,22 +334,82 @@ public class MapActivity extends Activity implements ObserverTarget {
     }
 
     /**
-     * Charge les symboles topographique à l'aide du service REST
+     * Charge les symboles topographiques des tuiles visibles à l'aide du service REST
+     * Chaque tuile n'est demandée qu'une fois par niveau de zoom
+     * @param cameraPosition : position de la caméra
      */
-    private void loadTopographicSymbols() {
-        RestServiceImpl.getInstance().get(RestAPI.GET_ALL_TOPOGRAPHIE, null, Topographie[].class,
+    private void loadTopographicSymbols(CameraPosition cameraPosition) {
+        int zoom = Math.max(0, Math.min((int) cameraPosition.zoom, TOPOGRAPHIE_MAX_TILE_ZOOM));
+        if (zoom != topographieZoom) {
+            // Les regroupements dépendent du zoom : les tuiles sont rechargées
+            topographieZoom = zoom;
+            topographieTiles.clear();
+            topoClusterManager.clearItems();
+            for (Marker marker : topographieClusterMarkers) {
+                marker.remove();
+            }
+            topographieClusterMarkers.clear();
+            topoClusterManager.cluster();
+        }
+
+        LatLngBounds visibleBounds = map.getProjection().getVisibleRegion().latLngBounds;
+        int tiles = 1 << zoom;
+        int minX = tileX(visibleBounds.southwest.longitude, zoom);
+        int maxX = tileX(visibleBounds.northeast.longitude, zoom);
+        int minY = tileY(visibleBounds.northeast.latitude, zoom);
+        int maxY = tileY(visibleBounds.southwest.latitude, zoom);
+        if (maxX < minX) {
+            // La zone visible traverse l'antiméridien
+            maxX += tiles;
+        }
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                loadTopographicTile(zoom, x % tiles, y);
+            }
+        }
+    }
+
+    private static int tileX(double longitude, int zoom) {
+        int tiles = 1 << zoom;
+        return Math.max(0, Math.min(tiles - 1, (int) Math.floor((longitude + 180) / 360 * tiles)));
+    }
+
+    private static int tileY(double latitude, int zoom) {
+        int tiles = 1 << zoom;
+        double radians = Math.toRadians(latitude);
+        double y = (1 - Math.log(Math.tan(radians) + 1 / Math.cos(radians)) / Math.PI) / 2 * tiles;
+        return Math.max(0, Math.min(tiles - 1, (int) Math.floor(y)));
+    }
+
+    /**
+     * Charge les symboles topographiques d'une tuile
+     */
+    private void loadTopographicTile(final int zoom, int x, int y) {
+        final String key = zoom + "/" + x + "/" + y;
+        if (!topographieTiles.add(key)) {
+            return;
+        }
+
+        Map<String, String> param = new HashMap<>();
+        param.put("z", String.valueOf(zoom));
+        param.put("x", String.valueOf(x));
+        param.put("y", String.valueOf(y));
+        RestServiceImpl.getInstance().get(RestAPI.GET_TOPOGRAPHIE_TILE, param, TopographieTile.class,
                 new Command() {
                     /**
                      * Success connection
                      *
-                     * @param response Response object type Intervention[]
+                     * @param response Response object type TopographieTile
                      */
                     @Override
                     public void execute(Object response) {
-                        findViewById(R.id.loadingPanel).setVisibility(View.VISIBLE);
-                        Topographie[] topographies = (Topographie[]) response;
+                        if (zoom != topographieZoom) {
+                            // Réponse arrivée après un changement de zoom
+                            return;
+                        }
+                        TopographieTile tile = (TopographieTile) response;
 
-                        for (Topographie topographie : topographies) {
+                        for (Topographie topographie : tile.getIcons()) {
                             Position pos = topographie.getPosition();
                             //Draw a symbol with texts and color at a position
                             Symbol symbol = new Symbol(Symbol.SymbolType.valueOf(topographie.getFilename()),
@@ -344,8 +421,15 @@ public class MapActivity extends Activity implements ObserverTarget {
                             topoClusterManager.addItem(markerItem);
                         }
 
+                        for (TopographieCluster cluster : tile.getClusters()) {
+                            Position pos = cluster.getPosition();
+                            topographieClusterMarkers.add(map.addMarker(new MarkerOptions()
+                                    .position(new LatLng(pos.getLatitude(), pos.getLongitude()))
+                                    .title(cluster.getCount() + " éléments topographiques")
+                                    .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_AZURE))));
+                        }
+
                         topoClusterManager.cluster();
-                        findViewById(R.id.loadingPanel).setVisibility(View.INVISIBLE);
                     }
                 }, new Command() {
                     /**
@@ -356,6 +440,8 @@ public class MapActivity extends Activity implements ObserverTarget {
                     @Override
                     public void execute(Object response) {
                         Log.e(TAG, "connection error");
+                        // La tuile sera redemandée au prochain déplacement
+                        topographieTiles.remove(key);
                         Toast.makeText(getApplicationContext(), "Impossible de charger la topographie", Toast.LENGTH_LONG).show();
                     }
                 });
@@ -471,15 +557,28 @@ public class MapActivity extends Activity implements ObserverTarget {
             this.runOnUiThread(new Runnable() {
                 @Override
                 public void run() {
-                    for (Marker m : droneMarkers) {
-                        if (positionEqual(m.getPosition(), image.getPosition())) {
-                            byte[] byteImage = Base64.decode(image.getImage(), Base64.DEFAULT);
-                            Bitmap image = BitmapFactory.decodeByteArray(byteImage, 0, byteImage.length);
-                            Bitmap imageMin = Bitmap.createScaledBitmap(image, 50, 50, false);
-
-                            m.setIcon(BitmapDescriptorFactory.fromBitmap(imageMin));
+                    // La notification ne contient que les metadonnees, la miniature est recuperee a part
+                    Map<String, String> param = new HashMap<>();
+                    param.put("id", image.getId());
+                    param.put("size", String.valueOf(DRONE_IMAGE_SIZE));
+                    RestServiceImpl.getInstance().get(RestAPI.GET_IMAGE_THUMBNAIL, param, byte[].class, new Command() {
+                        @Override
+                        public void execute(Object response) {
+                            byte[] byteImage = (byte[]) response;
+                            Bitmap bitmap = BitmapFactory.decodeByteArray(byteImage, 0, byteImage.length);
+                            Bitmap imageMin = Bitmap.createScaledBitmap(bitmap, 50, 50, false);
+                            for (Marker m : droneMarkers) {
+                                if (positionEqual(m.getPosition(), image.getPosition())) {
+                                    m.setIcon(BitmapDescriptorFactory.fromBitmap(imageMin));
+                                }
+                            }
                         }
-                    }
+                    }, new Command() {
+                        @Override
+                        public void execute(Object response) {
+                            Log.e(TAG, "Image du drone non recuperee");
+                        }
+                    });
                 }
             });
         }
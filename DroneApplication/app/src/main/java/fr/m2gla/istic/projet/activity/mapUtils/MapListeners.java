@@ -323,6 +323,7 @@ public class MapListeners implements
             Intent intent = new Intent(mapActivity.getApplicationContext(), CarouselActivity.class);
             intent.putExtra(GeneralConstants.REF_ACT_LAT_IMG, marker.getPosition().latitude);
             intent.putExtra(GeneralConstants.REF_ACT_LON_IMG, marker.getPosition().longitude);
+            intent.putExtra(GeneralConstants.REF_ACT_IDINTER, mapActivity.getIntent().getStringExtra(GeneralConstants.REF_ACT_IDINTER));
 
             mapActivity.startActivity(intent);
         }
@@ -3,7 +3,7 @@ package fr.m2gla.istic.projet.adapter;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.util.Base64;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -12,16 +12,25 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import fr.m2gla.istic.projet.activity.R;
+import fr.m2gla.istic.projet.command.Command;
+import fr.m2gla.istic.projet.context.RestAPI;
 import fr.m2gla.istic.projet.model.GeoImage;
+import fr.m2gla.istic.projet.service.impl.RestServiceImpl;
 
 /**
  * Created by baptiste on 26/05/15.
  */
 public class CarouselAdapter extends BaseAdapter {
+    private static final String TAG = "CarouselAdapter";
+    private static final int THUMBNAIL_SIZE = 256;
     private ArrayList<GeoImage> data = new ArrayList<>(0);
+    private Map<String, Bitmap> bitmaps = new HashMap<>();
     private Context context;
 
     public CarouselAdapter(Context context) {
@@ -38,6 +47,15 @@ public class CarouselAdapter extends BaseAdapter {
         }
     }
 
+    /**
+     * Ajoute en tete les images plus recentes que celles deja affichees
+     * @param items images, des plus recentes aux plus anciennes
+     */
+    public void addNewestItems(GeoImage[] items) {
+        data.addAll(0, Arrays.asList(items));
+        notifyDataSetChanged();
+    }
+
     @Override
     public int getCount() {
         return data.size();
@@ -66,19 +84,43 @@ public class CarouselAdapter extends BaseAdapter {
             convertView.setTag(viewHolder);
         }
 
-        ViewHolder holder = (ViewHolder) convertView.getTag();
-
-        byte[] byteImage = Base64.decode(data.get(position).getImage(), Base64.DEFAULT);
-        Bitmap image = BitmapFactory.decodeByteArray(byteImage, 0, byteImage.length);
+        final ViewHolder holder = (ViewHolder) convertView.getTag();
+        final String imageId = data.get(position).getId();
 
-        holder.image.setImageBitmap(image);
+        holder.imageId = imageId;
+        holder.image.setImageBitmap(bitmaps.get(imageId));
         holder.text.setText(data.get(position).getDate().toString());
 
+        if (!bitmaps.containsKey(imageId)) {
+            // La miniature de l'image est recuperee a part des metadonnees
+            Map<String, String> param = new HashMap<>();
+            param.put("id", imageId);
+            param.put("size", String.valueOf(THUMBNAIL_SIZE));
+            RestServiceImpl.getInstance().get(RestAPI.GET_IMAGE_THUMBNAIL, param, byte[].class, new Command() {
+                @Override
+                public void execute(Object response) {
+                    byte[] byteImage = (byte[]) response;
+                    Bitmap image = BitmapFactory.decodeByteArray(byteImage, 0, byteImage.length);
+                    bitmaps.put(imageId, image);
+                    // la vue a pu etre recyclee pour une autre image entre temps
+                    if (imageId.equals(holder.imageId)) {
+                        holder.image.setImageBitmap(image);
+                    }
+                }
+            }, new Command() {
+                @Override
+                public void execute(Object response) {
+                    Log.e(TAG, "Image " + imageId + " non recuperee");
+                }
+            });
+        }
+
         return convertView;
     }
 
     static class ViewHolder {
         public TextView text;
         public ImageView image;
+        public String imageId;
     }
 }
@@ -12,15 +12,16 @@ public interface RestAPI {
     public static final String POST_PUSH_LOGIN = "/user/login";
 
     // Intervention block
-    public static final String GET_ALL_INTERVENTION = "/intervention";
+    // Resume des interventions les plus recentes (sans dates ni positions des moyens)
+    public static final String GET_ALL_INTERVENTION = "/intervention?summary=true";
     public static final String POST_INTERVENTION = "/intervention";
     public static final String POST_POSITION_CONFIRMATION = "/intervention/{id}/moyen/emplace";
     public static final String POST_POSITION_MOVE = "/intervention/{id}/moyen/positionner";
     public static final String POST_RELEASE = "/intervention/{id}/moyen/libere";
     public static final String POST_RETOURCRM = "/intervention/{id}/moyen/retourcrm";
 
-    // topographie block
-    public static final String GET_ALL_TOPOGRAPHIE = "/topographie/1/1/1";
+    // topographie block : symboles d'une tuile de la carte, regroupes aux zooms faibles
+    public static final String GET_TOPOGRAPHIE_TILE = "/topographie/tiles/{z}/{x}/{y}";
 
     // Demande d'un moyen supplémentaire /intervention/idIntervention/xtra
     public static final String POST_SEND_MEAN_REQUEST = "/intervention/{id}/moyenextra";
@@ -59,4 +60,19 @@ public interface RestAPI {
 
     // get images
     public static final String GET_IMAGES = "/images/near/{latitude}/{longitude}/15";
+
+    // images d'une intervention, des plus recentes aux plus anciennes
+    public static final String GET_INTERVENTION_IMAGES = "/intervention/{id}/images?limit={limit}";
+
+    // images d'une intervention plus recentes que celle du curseur, page par page
+    public static final String GET_INTERVENTION_IMAGES_AFTER = "/intervention/{id}/images?after={after}";
+
+    // page suivante des images plus recentes que celle du curseur
+    public static final String GET_INTERVENTION_IMAGES_AFTER_PAGE = "/intervention/{id}/images?after={after}&cursor={cursor}";
+
+    // contenu d'une image
+    public static final String GET_IMAGE_RAW = "/images/{id}/raw";
+
+    // miniature d'une image (taille du plus grand cote en pixels)
+    public static final String GET_IMAGE_THUMBNAIL = "/images/{id}/raw?size={size}";
 }
@@ -10,6 +10,8 @@ public class GeoImage extends Entity {
     private int width;
     private int height;
     private String image;
+    private String contentType;
+    private long length;
     private Date date;
     private String interventionId;
 
@@ -29,6 +31,38 @@ public class GeoImage extends Entity {
         this.image = image;
     }
 
+    /**
+     * Type du contenu de l'image (image/png...)
+     * @return type du contenu
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Type du contenu de l'image
+     * @param contentType type du contenu
+     */
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Taille de l'image en octets
+     * @return taille de l'image
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Taille de l'image en octets
+     * @param length taille de l'image
+     */
+    public void setLength(long length) {
+        this.length = length;
+    }
+
     /**
      * Récupération de la position de l'image
      * @return : position de l'image
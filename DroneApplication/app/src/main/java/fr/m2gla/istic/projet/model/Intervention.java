@@ -23,6 +23,7 @@ public class Intervention extends Entity {
     private DisasterCode disasterCode;
     private List<Mean> meansList;
     private Position coordinates;
+    private Long version;
     // private List<Mean> meansXtra;
 
 
@@ -161,6 +162,22 @@ public class Intervention extends Entity {
         this.coordinates = position;
     }
 
+    /**
+     * Récupération de la version de l'intervention, incrémentée par le serveur à chaque modification
+     * @return : version de l'intervention
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Renseignement de la version de l'intervention
+     * @param version : version de l'intervention
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     /**
      * Moyens demandés
      *
@@ -0,0 +1,41 @@
+package fr.m2gla.istic.projet.model;
+
+/**
+ * Regroupement d'éléments topographiques trop proches pour être affichés au zoom de la tuile
+ */
+public class TopographieCluster {
+    private Position position;
+    private int count;
+
+    /**
+     * Récupération du centre des éléments regroupés
+     * @return : position
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    /**
+     * Renseignement du centre des éléments regroupés
+     * @param position : position
+     */
+    public void setPosition(Position position) {
+        this.position = position;
+    }
+
+    /**
+     * Récupération du nombre d'éléments regroupés
+     * @return : nombre d'éléments
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Renseignement du nombre d'éléments regroupés
+     * @param count : nombre d'éléments
+     */
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
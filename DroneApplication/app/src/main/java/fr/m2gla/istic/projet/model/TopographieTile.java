@@ -0,0 +1,60 @@
+package fr.m2gla.istic.projet.model;
+
+/**
+ * Éléments topographiques d'une tuile de la carte (zoom z, colonne x, ligne y)
+ */
+public class TopographieTile {
+    private int z;
+    private int x;
+    private int y;
+    private Topographie[] icons = new Topographie[0];
+    private TopographieCluster[] clusters = new TopographieCluster[0];
+
+    public int getZ() {
+        return z;
+    }
+
+    public void setZ(int z) {
+        this.z = z;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public void setX(int x) {
+        this.x = x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public void setY(int y) {
+        this.y = y;
+    }
+
+    /**
+     * Récupération des éléments affichés un par un
+     * @return : éléments topographiques
+     */
+    public Topographie[] getIcons() {
+        return icons;
+    }
+
+    public void setIcons(Topographie[] icons) {
+        this.icons = icons;
+    }
+
+    /**
+     * Récupération des regroupements d'éléments, aux zooms faibles
+     * @return : regroupements
+     */
+    public TopographieCluster[] getClusters() {
+        return clusters;
+    }
+
+    public void setClusters(TopographieCluster[] clusters) {
+        this.clusters = clusters;
+    }
+}
@@ -0,0 +1,30 @@
+package fr.m2gla.istic.projet.service;
+
+/**
+ * Page d'un service REST pagine : son contenu et le curseur de la page suivante
+ */
+public class Page<T> {
+    /**
+     * En-tete donnant le curseur de la page suivante, absent sur la derniere page
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final T content;
+    private final String nextCursor;
+
+    public Page(T content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public T getContent() {
+        return content;
+    }
+
+    /**
+     * @return curseur de la page suivante, null sur la derniere page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
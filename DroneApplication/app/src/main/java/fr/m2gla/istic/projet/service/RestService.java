@@ -18,6 +18,15 @@ public interface RestService {
      * @param callbackError Callback after response error
      */
     public <T> void get(String service, Map<String, String> param, Class<T> type, Command callbackSuccess, Command callbackError);
+    /**
+     * Send get http method to a paged service, the success callback receives a Page
+     * @param service Service REST call (available in RestAPI)
+     * @param param (Optional) Param of query, or null
+     * @param type Type of result
+     * @param callbackSuccess Callback after response success
+     * @param callbackError Callback after response error
+     */
+    public <T> void getPage(String service, Map<String, String> param, Class<T> type, Command callbackSuccess, Command callbackError);
     /**
      * Send post http method
      * @param service Service REST call (available in RestAPI)
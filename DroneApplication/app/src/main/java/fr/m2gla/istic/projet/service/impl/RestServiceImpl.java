@@ -2,7 +2,13 @@ package fr.m2gla.istic.projet.service.impl;
 
 import android.os.AsyncTask;
 import android.util.Log;
+import android.util.LruCache;
 
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -12,6 +18,7 @@ import org.springframework.web.client.RestTemplate;
 import java.util.Map;
 
 import fr.m2gla.istic.projet.command.Command;
+import fr.m2gla.istic.projet.service.Page;
 import fr.m2gla.istic.projet.service.RestService;
 
 /**
@@ -24,6 +31,16 @@ public class RestServiceImpl implements RestService {
     private static final String URL = "http://projm2gla1backup.istic.univ-rennes1.fr:8080/sitserver/rest";
 //    private static final String URL = "http://projm2gla1int.istic.univ-rennes1.fr:58089/sitserver/rest";
 
+    /**
+     * Nombre maximum de reponses gardees, les moins recemment utilisees sont oubliees
+     */
+    private static final int CACHE_SIZE = 64;
+
+    /**
+     * Dernieres reponses des services GET ayant un ETag, par service et parametres
+     * Les reponses binaires (tuiles, images) n'y sont pas gardees : elles rempliraient la memoire
+     */
+    private final LruCache<String, CachedResponse> cache = new LruCache<>(CACHE_SIZE);
 
     /**
      * Constructeur
@@ -49,7 +66,28 @@ public class RestServiceImpl implements RestService {
      * @param <T>
      */
     @Override
-    public <T> void get(final String service, final Map<String, String> param, final Class<T> type, final Command callbackSuccess, final Command callbackError) {
+    public <T> void get(String service, Map<String, String> param, Class<T> type, Command callbackSuccess, Command callbackError) {
+        get(service, param, type, false, callbackSuccess, callbackError);
+    }
+
+    /**
+     * Service GET pagine
+     * @param service Service REST call (available in RestAPI)
+     * @param param (Optional) Param of query, or null
+     * @param type Type of result
+     * @param callbackSuccess Callback after response success, with a Page
+     * @param callbackError Callback after response error
+     * @param <T>
+     */
+    @Override
+    public <T> void getPage(String service, Map<String, String> param, Class<T> type, Command callbackSuccess, Command callbackError) {
+        get(service, param, type, true, callbackSuccess, callbackError);
+    }
+
+    /**
+     * @param paged true pour recevoir une Page avec le curseur de la page suivante
+     */
+    private <T> void get(final String service, final Map<String, String> param, final Class<T> type, final boolean paged, final Command callbackSuccess, final Command callbackError) {
         (new AsyncTask() {
             private boolean error = false;
 
@@ -61,12 +99,36 @@ public class RestServiceImpl implements RestService {
                 restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory());
                 restTemplate.getMessageConverters().add(new MappingJackson2HttpMessageConverter());
 
-                T result = null;
+                Object result = null;
+                String key = (param == null) ? service : service + param;
+                CachedResponse cached = cache.get(key);
+                HttpHeaders headers = new HttpHeaders();
+                if (cached != null) {
+                    headers.setIfNoneMatch(cached.etag);
+                }
+                HttpEntity<?> request = new HttpEntity<>(headers);
                 try {
+                    ResponseEntity<T> response;
                     if (param == null) {
-                        result = restTemplate.getForObject(URL + service, type);
+                        response = restTemplate.exchange(URL + service, HttpMethod.GET, request, type);
                     } else {
-                        result = restTemplate.getForObject(URL + service, type, param);
+                        response = restTemplate.exchange(URL + service, HttpMethod.GET, request, type, param);
+                    }
+
+                    if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+                        // Rien n'a change depuis la derniere requete
+                        result = cached.body;
+                    } else if (paged) {
+                        result = new Page<>(response.getBody(),
+                                response.getHeaders().getFirst(Page.NEXT_CURSOR_HEADER));
+                    } else {
+                        result = response.getBody();
+                        String etag = response.getHeaders().getETag();
+                        if (etag != null && result != null && !(result instanceof byte[])) {
+                            cache.put(key, new CachedResponse(etag, result));
+                        } else {
+                            cache.remove(key);
+                        }
                     }
                 } catch (HttpStatusCodeException e) {
                     Log.e(TAG, "Error http " + e.getMessage());
@@ -232,4 +294,17 @@ public class RestServiceImpl implements RestService {
             }
         }).execute();
     }
+
+    /**
+     * Reponse gardee pour etre reutilisee quand le serveur repond 304 Not Modified
+     */
+    private static class CachedResponse {
+        private final String etag;
+        private final Object body;
+
+        CachedResponse(String etag, Object body) {
+            this.etag = etag;
+            this.body = body;
+        }
+    }
 }
@@ -1,6 +1,12 @@
 from flask import Flask, jsonify, request
 import base64
+import json
+import logging
 import math
+import os
+import threading
+import time
+import urllib2
 import rospy
 import cv2
 from nav_msgs.msg import Odometry
@@ -11,6 +17,18 @@ from cv_bridge import CvBridge, CvBridgeError
 lat0 = 48.11745
 lng0 = -1.641408
 
+# Url of the telemetry of the drone on the REST server, e.g. http://localhost:8080/rest/drone/default/telemetry
+# The position is pushed as soon as the drone moves, and every TELEMETRY_HEARTBEAT seconds while it hovers.
+# Without it, the REST server polls GET /robot/position.
+TELEMETRY_URL = os.environ.get('TELEMETRY_URL')
+TELEMETRY_HEARTBEAT = float(os.environ.get('TELEMETRY_HEARTBEAT', '2'))
+TELEMETRY_PERIOD = 0.2
+# With the reloader of the debug mode, the requests are served by a child process
+DEBUG = True
+
+logging.basicConfig(level=logging.INFO, format='%(asctime)s %(levelname)s %(name)s : %(message)s')
+logger = logging.getLogger('drone-server')
+
 def gpsToPoint(lat,lng):
     if lng - lng0 > 0:
         coefx = 1
@@ -83,18 +101,57 @@ def setPosition():
     
     return jsonify({"longitude": x, "latitude": y, "altitude": z}), 201
 
-@app.route('/robot/position', methods=['GET'])
-def getPosition():
+def currentPosition():
     x = command.pose.position.x
     y = command.pose.position.y
     z = command.pose.position.z
     t = meterToGps(x,y)
 
-    return jsonify({
+    return {
     	"latitude": t[0],
     	"longitude": t[1],
     	"altitude": z
-    }), 200
+    }
+
+def samePosition(p1, p2):
+    # same precision as Tools.isSamePositions on the REST server
+    return int(p1["latitude"] * 100000) == int(p2["latitude"] * 100000) and int(p1["longitude"] * 100000) == int(p2["longitude"] * 100000)
+
+def pushTelemetry():
+    last = None
+    lastSent = 0
+    while not rospy.is_shutdown():
+        position = currentPosition()
+        now = time.time()
+        if last is None or not samePosition(last, position) or now - lastSent >= TELEMETRY_HEARTBEAT:
+            try:
+                push = urllib2.Request(TELEMETRY_URL, json.dumps(position), {"Content-Type": "application/json"})
+                urllib2.urlopen(push, timeout=2).close()
+                last = position
+                lastSent = now
+            except Exception as e:
+                # the REST server polls the position meanwhile
+                logger.warning("Telemetry push failed : %s", e)
+                time.sleep(TELEMETRY_HEARTBEAT)
+        time.sleep(TELEMETRY_PERIOD)
+
+telemetryLock = threading.Lock()
+telemetryThread = None
+
+def startTelemetry():
+    # at most one thread by process
+    global telemetryThread
+    with telemetryLock:
+        if telemetryThread is not None:
+            return
+        telemetryThread = threading.Thread(target=pushTelemetry, name="telemetry")
+        telemetryThread.daemon = True
+        telemetryThread.start()
+    logger.info("Telemetry pushed to %s", TELEMETRY_URL)
+
+@app.route('/robot/position', methods=['GET'])
+def getPosition():
+    return jsonify(currentPosition()), 200
 
 @app.route('/robot/picture', methods=['GET'])
 def getpicture() :
@@ -118,4 +175,7 @@ def getpicture() :
 
 if __name__ == '__main__' :
     rospy.init_node("flask")
-    app.run(debug=True, host='0.0.0.0', port=5000)
+    # the process of the reloader serves nothing, only its child pushes
+    if TELEMETRY_URL and (not DEBUG or os.environ.get('WERKZEUG_RUN_MAIN') == 'true'):
+        startTelemetry()
+    app.run(debug=DEBUG, host='0.0.0.0', port=5000)
@@ -0,0 +1,92 @@
+package dao;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import dao.codec.EntityCodecs;
+import entity.Fixtures;
+import entity.Intervention;
+
+/**
+ * @see
+ * InterventionMappingBenchmark measures the InterventionCodec of EntityCodecs, which reads and writes an intervention
+ * from the BSON sent by the database, against the generic Document of the driver on the same BSON.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterventionMappingBenchmark {
+
+    /**
+     * Means of the intervention, from a small fire to a large one
+     */
+    @Param({"5", "30", "100"})
+    public int means;
+
+    private Codec<Document> documentCodec;
+    private Codec<Intervention> interventionCodec;
+    private Intervention intervention;
+    private byte[] bson;
+    private Document document;
+
+    @Setup
+    public void setUp() {
+        documentCodec = EntityCodecs.getRegistry().get(Document.class);
+        interventionCodec = EntityCodecs.getRegistry().get(Intervention.class);
+        intervention = Fixtures.intervention(means);
+        bson = encodeWithCodec();
+        document = documentCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(bson)), DecoderContext.builder().build());
+    }
+
+    /**
+     * Generic Document of the driver, without the mapping to the entity
+     */
+    @Benchmark
+    public Document decodeDocument() {
+        return documentCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(bson)), DecoderContext.builder().build());
+    }
+
+    @Benchmark
+    public Intervention decodeWithCodec() {
+        return interventionCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(bson)), DecoderContext.builder().build());
+    }
+
+    /**
+     * Generic Document of the driver, without the mapping from the entity
+     */
+    @Benchmark
+    public byte[] encodeDocument() {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        documentCodec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeWithCodec() {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        interventionCodec.encode(new BsonBinaryWriter(buffer), intervention, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+}
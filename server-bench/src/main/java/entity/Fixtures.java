@@ -0,0 +1,64 @@
+package entity;
+
+import org.apache.commons.codec.binary.Base64;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import util.Datetime;
+
+/**
+ * @see
+ * Fixtures builds the entities measured by the benchmarks, close to the ones of a real intervention
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Intervention with means in all the states, most of them placed on the map
+     * @param means number of means
+     */
+    public static Intervention intervention(int means) {
+        Intervention intervention = new Intervention("Feu de grange", "263 Avenue Général Leclerc", "35000", "Rennes", DisasterCode.FHA);
+        intervention.setCoordinates(new Position(-1.6777926, 48.117266, 40.0));
+        Vehicle[] vehicles = Vehicle.values();
+        MeanState[] states = MeanState.values();
+        List<Mean> meansList = new ArrayList<Mean>(means);
+        for (int i = 0; i < means; i++) {
+            Mean mean = new Mean(vehicles[i % vehicles.length], vehicles[i % vehicles.length] + " " + i, i % 4 == 0);
+            mean.setMeanState(states[i % states.length]);
+            mean.setDateActivated(Datetime.getCurrentDate());
+            mean.setDateArrived(Datetime.getCurrentDate());
+            if (i % 5 != 0) {
+                mean.setCoordinates(new Position(-1.6777926 + i * 0.0001, 48.117266 + i * 0.0001, 40.0));
+                mean.setDateEngaged(Datetime.getCurrentDate());
+            }
+            meansList.add(mean);
+        }
+        intervention.setMeansList(meansList);
+        return intervention;
+    }
+
+    /**
+     * Image taken by the drone over the intervention
+     * @param imageBytes size of the image, 0 for the metadata only as it is stored and listed
+     */
+    public static GeoImage geoImage(int imageBytes) {
+        GeoImage image = new GeoImage();
+        image.setPosition(new Position(-1.6777926, 48.117266, 50.0));
+        image.setWidth(640);
+        image.setHeight(480);
+        image.setContentType("image/jpeg");
+        image.setDate(Datetime.getCurrentDate());
+        image.setLength(imageBytes);
+        if (imageBytes > 0) {
+            byte[] bytes = new byte[imageBytes];
+            new Random(imageBytes).nextBytes(bytes);
+            image.setImage(Base64.encodeBase64String(bytes));
+        }
+        return image;
+    }
+}
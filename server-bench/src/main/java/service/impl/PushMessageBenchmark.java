@@ -0,0 +1,84 @@
+package service.impl;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import entity.Fixtures;
+import entity.GeoImage;
+import entity.Intervention;
+
+/**
+ * @see
+ * PushMessageBenchmark measures the Jackson serialization of the objects pushed to the tablets.
+ * The "perMessage" benchmarks do as PushServiceImpl.sendMessage() : a new ObjectMapper and buffer by message ;
+ * the "shared" ones reuse one ObjectMapper, to know what a shared mapper would save.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PushMessageBenchmark {
+
+    @Param({"5", "30"})
+    public int means;
+
+    /**
+     * Size of the image pushed, 0 for the metadata only
+     */
+    @Param({"0", "65536"})
+    public int imageBytes;
+
+    private Intervention intervention;
+    private GeoImage image;
+    private ObjectMapper sharedMapper;
+
+    @Setup
+    public void setUp() {
+        intervention = Fixtures.intervention(means);
+        image = Fixtures.geoImage(imageBytes);
+        sharedMapper = new ObjectMapper();
+    }
+
+    private static String perMessage(Object object) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.writeValue(output, object);
+        return output.toString();
+    }
+
+    @Benchmark
+    public String interventionPerMessage() throws IOException {
+        return perMessage(intervention);
+    }
+
+    @Benchmark
+    public String interventionShared() throws IOException {
+        return sharedMapper.writeValueAsString(intervention);
+    }
+
+    @Benchmark
+    public String imagePerMessage() throws IOException {
+        return perMessage(image);
+    }
+
+    @Benchmark
+    public String imageShared() throws IOException {
+        return sharedMapper.writeValueAsString(image);
+    }
+}
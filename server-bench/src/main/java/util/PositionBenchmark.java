@@ -0,0 +1,71 @@
+package util;
+
+import com.mongodb.BasicDBList;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import entity.Position;
+
+/**
+ * @see
+ * PositionBenchmark measures the conversions of positions done for every mean of every intervention written or read,
+ * and the comparison of positions used when a mean moves
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionBenchmark {
+
+    private Position position;
+    private Position samePosition;
+    private Position otherPosition;
+    private BasicDBList array;
+
+    @Setup
+    public void setUp() {
+        position = new Position(-1.6777926, 48.117266, 40.0);
+        samePosition = new Position(-1.6777929, 48.117268, 40.0);
+        otherPosition = new Position(-1.6787926, 48.118266, 40.0);
+        array = Tools.positionToBasicDBList(position);
+    }
+
+    @Benchmark
+    public BasicDBList positionToBasicDBList() {
+        return Tools.positionToBasicDBList(position);
+    }
+
+    @Benchmark
+    public Position arrayListToPosition() {
+        return Tools.arrayListToPosition(array);
+    }
+
+    @Benchmark
+    public Document positionToGeoJsonPoint() {
+        return Tools.positionToGeoJsonPoint(position);
+    }
+
+    @Benchmark
+    public boolean isSamePositions() {
+        return Tools.isSamePositions(position, samePosition);
+    }
+
+    @Benchmark
+    public boolean isNotSamePositions() {
+        return Tools.isSamePositions(position, otherPosition);
+    }
+}
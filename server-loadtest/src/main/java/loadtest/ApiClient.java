@@ -0,0 +1,128 @@
+package loadtest;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * @see
+ * ApiClient sends the requests of a virtual user to the REST API and records their latency.
+ * The connections are kept alive between requests, like the HTTP client of the tablets.
+ */
+public class ApiClient {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String baseUrl;
+    private final LatencyRecorder recorder;
+
+    /**
+     * Answer of the API
+     */
+    public static class Result {
+        private final int status;
+        private final byte[] body;
+
+        Result(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public boolean isOk() {
+            return status >= 200 && status < 300;
+        }
+
+        /**
+         * @return body read as JSON, null if there is no body or if it is not JSON
+         */
+        public JsonNode json() {
+            if (body.length == 0) {
+                return null;
+            }
+            try {
+                return MAPPER.readTree(new String(body, "UTF-8"));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @param baseUrl url of the API, e.g. http://localhost:8080/rest
+     */
+    public ApiClient(String baseUrl, LatencyRecorder recorder) {
+        this.baseUrl = baseUrl;
+        this.recorder = recorder;
+    }
+
+    public Result get(String endpoint, String path) {
+        return send(endpoint, "GET", path, null);
+    }
+
+    public Result post(String endpoint, String path, Object body) {
+        return send(endpoint, "POST", path, body);
+    }
+
+    public Result delete(String endpoint, String path) {
+        return send(endpoint, "DELETE", path, null);
+    }
+
+    /**
+     * @param endpoint name of the endpoint in the report
+     * @return answer, null if the API did not answer
+     */
+    private Result send(String endpoint, String method, String path, Object body) {
+        long start = System.nanoTime();
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            connection.setRequestMethod(method);
+            connection.setRequestProperty("Accept", "application/json");
+            if (body != null) {
+                byte[] json = MAPPER.writeValueAsBytes(body);
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                connection.setFixedLengthStreamingMode(json.length);
+                OutputStream out = connection.getOutputStream();
+                out.write(json);
+                out.close();
+            }
+            int status = connection.getResponseCode();
+            byte[] response = read(status >= 400 ? connection.getErrorStream() : connection.getInputStream());
+            recorder.record(endpoint, System.nanoTime() - start, status);
+            return new Result(status, response);
+        } catch (IOException e) {
+            recorder.recordError(endpoint);
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Read the whole body, the connection goes back to the keep-alive cache only once its body is read
+     */
+    private static byte[] read(InputStream in) throws IOException {
+        if (in == null) {
+            return new byte[0];
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        in.close();
+        return output.toByteArray();
+    }
+}
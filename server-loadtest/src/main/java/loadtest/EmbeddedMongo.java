@@ -0,0 +1,51 @@
+package loadtest;
+
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodProcess;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.IMongodConfig;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+
+import java.io.IOException;
+
+/**
+ * @see
+ * EmbeddedMongo forks a mongod 3.0, without authentication, on a free port of the host.
+ * The binaries are downloaded once in ~/.embedmongo.
+ */
+public class EmbeddedMongo {
+    private final int port;
+    private MongodExecutable executable;
+    private MongodProcess process;
+
+    public EmbeddedMongo() throws IOException {
+        this.port = Network.getFreeServerPort();
+    }
+
+    public void start() throws IOException {
+        IMongodConfig config = new MongodConfigBuilder()
+                .version(Version.Main.V3_0)
+                .net(new Net(port, Network.localhostIsIPv6()))
+                .build();
+        executable = MongodStarter.getDefaultInstance().prepare(config);
+        process = executable.start();
+    }
+
+    public void stop() {
+        if (process != null) {
+            process.stop();
+            process = null;
+        }
+        if (executable != null) {
+            executable.stop();
+            executable = null;
+        }
+    }
+
+    public int getPort() {
+        return port;
+    }
+}
@@ -0,0 +1,41 @@
+package loadtest;
+
+import java.util.Random;
+
+/**
+ * @see
+ * InterventionPool holds the ids of the interventions in progress, shared by the virtual users.
+ * Once full, a new intervention replaces the oldest one, like interventions which end :
+ * the means of the older interventions are no longer moved.
+ */
+public class InterventionPool {
+    private final long[] ids;
+    private int size;
+    private int next;
+
+    public InterventionPool(int capacity) {
+        this.ids = new long[capacity];
+    }
+
+    public synchronized void add(long id) {
+        ids[next] = id;
+        next = (next + 1) % ids.length;
+        if (size < ids.length) {
+            size++;
+        }
+    }
+
+    /**
+     * @return id of an intervention in progress, -1 if there is none
+     */
+    public synchronized long pick(Random random) {
+        if (size == 0) {
+            return -1;
+        }
+        return ids[random.nextInt(size)];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
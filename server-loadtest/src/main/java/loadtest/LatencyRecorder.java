@@ -0,0 +1,133 @@
+package loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @see
+ * LatencyRecorder keeps every latency measured, by endpoint.
+ * Each virtual user has its own recorder, without any lock ; they are merged at the end of the run for the report.
+ */
+public class LatencyRecorder {
+
+    /**
+     * Latencies of one endpoint, in nanoseconds
+     */
+    static class Samples {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long rejected;
+        private long errors;
+
+        void add(long latency) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latency;
+        }
+
+        void addAll(Samples other) {
+            if (size + other.size > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(size + other.size, latencies.length * 2));
+            }
+            System.arraycopy(other.latencies, 0, latencies, size, other.size);
+            size += other.size;
+            rejected += other.rejected;
+            errors += other.errors;
+        }
+
+        /**
+         * @param sorted latencies sorted
+         * @param percentile between 0 and 100
+         */
+        static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+        }
+    }
+
+    private final Map<String, Samples> endpoints = new TreeMap<String, Samples>();
+    private volatile boolean recording;
+
+    /**
+     * Record a request answered
+     * @param endpoint method and path template, e.g. "GET /intervention/{id}/images"
+     * @param latency nanoseconds
+     * @param status HTTP status, 4xx are counted as rejected (a transition lost against another user), 5xx as errors
+     */
+    public void record(String endpoint, long latency, int status) {
+        if (!recording) {
+            return;
+        }
+        Samples samples = samples(endpoint);
+        samples.add(latency);
+        if (status >= 500) {
+            samples.errors++;
+        } else if (status >= 400) {
+            samples.rejected++;
+        }
+    }
+
+    /**
+     * Record a request without answer (connection refused, timeout)
+     */
+    public void recordError(String endpoint) {
+        if (recording) {
+            samples(endpoint).errors++;
+        }
+    }
+
+    /**
+     * Requests are recorded only once the warm up is over
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    public void merge(LatencyRecorder other) {
+        for (Map.Entry<String, Samples> entry : other.endpoints.entrySet()) {
+            samples(entry.getKey()).addAll(entry.getValue());
+        }
+    }
+
+    /**
+     * Report by endpoint the throughput and the percentiles of the latency, in milliseconds
+     * @param seconds duration of the measure
+     * @return one line by endpoint, after a header, and the total
+     */
+    public String report(double seconds) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-42s %8s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "rejected", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        long total = 0;
+        for (Map.Entry<String, Samples> entry : endpoints.entrySet()) {
+            Samples samples = entry.getValue();
+            long[] sorted = Arrays.copyOf(samples.latencies, samples.size);
+            Arrays.sort(sorted);
+            total += sorted.length;
+            out.append(String.format("%-42s %8d %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), sorted.length, samples.rejected, samples.errors, sorted.length / seconds,
+                    millis(Samples.percentile(sorted, 50)), millis(Samples.percentile(sorted, 99)),
+                    millis(Samples.percentile(sorted, 99.9)), millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1])));
+        }
+        out.append(String.format("%-42s %8d %26.1f", "total", total, total / seconds));
+        return out.toString();
+    }
+
+    private Samples samples(String endpoint) {
+        Samples samples = endpoints.get(endpoint);
+        if (samples == null) {
+            samples = new Samples();
+            endpoints.put(endpoint, samples);
+        }
+        return samples;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1000000.0;
+    }
+}
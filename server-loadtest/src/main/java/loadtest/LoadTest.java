@@ -0,0 +1,268 @@
+package loadtest;
+
+import com.sun.jersey.api.container.httpserver.HttpServerFactory;
+import com.sun.jersey.api.core.PackagesResourceConfig;
+import com.sun.jersey.api.core.ResourceConfig;
+import com.sun.jersey.api.json.JSONConfiguration;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import dao.GeoImageDAO;
+import dao.InterventionDAO;
+import dao.MongoClientProvider;
+import dao.StartupMigration;
+import entity.GeoImage;
+import entity.Intervention;
+import service.PushService.TypeClient;
+import service.impl.PushServiceImpl;
+import service.impl.ThumbnailServiceImpl;
+import service.position.DroneFleet;
+
+/**
+ * @see
+ * LoadTest starts the REST API in-process, as the war does, on a mongod without authentication,
+ * with a stub of GCM and a stub of the drone server, seeds interventions and images,
+ * then runs virtual users and logs the throughput and the latencies of each endpoint.
+ *
+ * Settings, as system properties :
+ * <ul>
+ * <li>loadtest.users : concurrent virtual users (32)</li>
+ * <li>loadtest.warmup, loadtest.duration : seconds of warm up, then of measure (10, 60)</li>
+ * <li>loadtest.mix : weights of the creations of interventions, of the transitions of means
+ * and of the polls of images (1,3,6)</li>
+ * <li>loadtest.thinkTime : milliseconds between two actions of a user (0)</li>
+ * <li>loadtest.interventions, loadtest.images : interventions seeded, images seeded by intervention (50, 20)</li>
+ * <li>loadtest.gcmLatency : milliseconds of a push to the stub of GCM (20)</li>
+ * <li>loadtest.serverThreads : threads of the HTTP server (200, as Tomcat)</li>
+ * <li>loadtest.mongo : host:port of a mongod already started, an embedded mongod is forked otherwise</li>
+ * </ul>
+ * The configurations of server-rest are overridden the same way (-DMONGODB_POOL_SIZE=50).
+ */
+public class LoadTest {
+    private static final Logger LOGGER = Logger.getLogger(LoadTest.class);
+    private static final int SEED_IMAGE_WIDTH = 320;
+    private static final int SEED_IMAGE_HEIGHT = 240;
+
+    private final int users = Integer.getInteger("loadtest.users", 32);
+    private final int warmup = Integer.getInteger("loadtest.warmup", 10);
+    private final int duration = Integer.getInteger("loadtest.duration", 60);
+    private final int[] mix = parseMix(System.getProperty("loadtest.mix", "1,3,6"));
+    private final long thinkTime = Long.getLong("loadtest.thinkTime", 0);
+    private final int seedInterventions = Integer.getInteger("loadtest.interventions", 50);
+    private final int seedImages = Integer.getInteger("loadtest.images", 20);
+    private final long gcmLatency = Long.getLong("loadtest.gcmLatency", 20);
+    private final int serverThreads = Integer.getInteger("loadtest.serverThreads", 200);
+    private final String mongo = System.getProperty("loadtest.mongo");
+
+    private EmbeddedMongo embeddedMongo;
+    private StubDroneServer drone;
+    private StubGcmSender gcm;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+
+    public static void main(String[] args) throws Exception {
+        BasicConfigurator.configure();
+        Logger.getRootLogger().setLevel(Level.WARN);
+
+        LoadTest loadTest = new LoadTest();
+        try {
+            loadTest.start();
+            loadTest.run();
+        } finally {
+            loadTest.stop();
+        }
+    }
+
+    /**
+     * Start mongod, the stubs and the API, the configurations must be set before the first use of Configuration
+     */
+    public void start() throws IOException {
+        // keep alive one connection by user : read once, when the JDK creates its first HttpURLConnection
+        System.setProperty("http.maxConnections", String.valueOf(users));
+        if (mongo == null) {
+            embeddedMongo = new EmbeddedMongo();
+            embeddedMongo.start();
+            System.setProperty("MONGODB_HOSTNAME", "localhost");
+            System.setProperty("MONGODB_PORT", String.valueOf(embeddedMongo.getPort()));
+            System.setProperty("MONGODB_USER", "");
+        } else {
+            String[] address = mongo.split(":");
+            System.setProperty("MONGODB_HOSTNAME", address[0]);
+            System.setProperty("MONGODB_PORT", address.length > 1 ? address[1] : "27017");
+            setDefault("MONGODB_USER", "");
+        }
+        setDefault("DATABASE_NAME", "loadtest");
+
+        byte[] jpeg = Payloads.jpeg(SEED_IMAGE_WIDTH, SEED_IMAGE_HEIGHT);
+        drone = new StubDroneServer(jpeg);
+        drone.start();
+        System.setProperty("SERVER_PYTHON", drone.getUrl());
+
+        gcm = new StubGcmSender(gcmLatency);
+        PushServiceImpl.getInstance().setSender(gcm);
+        // a tablet of the CODIS and one of a fireman, so that every push goes to GCM
+        PushServiceImpl.getInstance().registerClient(TypeClient.CODIS, "loadtest-codis");
+        PushServiceImpl.getInstance().registerClient(TypeClient.SIMPLEUSER, "loadtest-sapeur");
+
+        // as ProjetServletContextListener, but the indexes are built before the load
+        MongoClientProvider.getInstance().open();
+        new StartupMigration().run();
+
+        int port = freePort();
+        ResourceConfig config = new PackagesResourceConfig("rest");
+        config.getFeatures().put(JSONConfiguration.FEATURE_POJO_MAPPING, Boolean.TRUE);
+        server = HttpServerFactory.create("http://localhost:" + port + "/rest/", config);
+        // the default executor of the JDK server handles one request at a time
+        serverExecutor = Executors.newFixedThreadPool(serverThreads);
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://localhost:" + port + "/rest";
+        LOGGER.warn("API started on " + baseUrl + ", drone on " + drone.getUrl());
+    }
+
+    /**
+     * Seed, warm up, measure and log the report
+     */
+    public void run() throws InterruptedException, IOException {
+        long[] imageInterventions = seed();
+        InterventionPool interventions = new InterventionPool(Math.max(seedInterventions, 1) * 2);
+        for (long id : imageInterventions) {
+            interventions.add(id);
+        }
+
+        // the drone flies over the first intervention and adds an image every 3 s
+        ApiClient admin = new ApiClient(baseUrl, new LatencyRecorder());
+        if (imageInterventions.length > 0) {
+            admin.post("POST /drone/target", "/drone/target", Payloads.targetBody(imageInterventions[0], new Random(1)));
+        }
+
+        List<VirtualUser> virtualUsers = new ArrayList<VirtualUser>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < users; i++) {
+            VirtualUser user = new VirtualUser(baseUrl, interventions, imageInterventions, mix, thinkTime, i);
+            Thread thread = new Thread(user, "virtual-user-" + i);
+            virtualUsers.add(user);
+            threads.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(warmup * 1000L);
+        for (VirtualUser user : virtualUsers) {
+            user.getRecorder().setRecording(true);
+        }
+        long start = System.nanoTime();
+        Thread.sleep(duration * 1000L);
+        for (VirtualUser user : virtualUsers) {
+            user.getRecorder().setRecording(false);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (VirtualUser user : virtualUsers) {
+            user.stop();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        admin.delete("DELETE /drone/target", "/drone/target");
+
+        LatencyRecorder total = new LatencyRecorder();
+        for (VirtualUser user : virtualUsers) {
+            total.merge(user.getRecorder());
+        }
+        LOGGER.warn(String.format("%d users, mix %d/%d/%d, %.0f s measured after %d s of warm up, %d pushes to GCM, %d pictures of the drone%n%s",
+                users, mix[0], mix[1], mix[2], seconds, warmup, gcm.getSent(), drone.getPictures(), total.report(seconds)));
+    }
+
+    /**
+     * Stop everything started, even after a failed start
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+        DroneFleet.getInstance().shutdown();
+        ThumbnailServiceImpl.getInstance().shutdown();
+        MongoClientProvider.getInstance().close();
+        if (drone != null) {
+            drone.stop();
+        }
+        if (embeddedMongo != null) {
+            embeddedMongo.stop();
+        }
+    }
+
+    /**
+     * Seed with the bulk writes of the DAOs the interventions in progress and the images already taken
+     * @return ids of the interventions seeded
+     */
+    private long[] seed() throws IOException {
+        Random random = new Random(0);
+        byte[] jpeg = Payloads.jpeg(SEED_IMAGE_WIDTH, SEED_IMAGE_HEIGHT);
+        List<Intervention> interventions = new ArrayList<Intervention>();
+        List<GeoImage> images = new ArrayList<GeoImage>();
+        long[] ids = new long[seedInterventions];
+        for (int i = 0; i < seedInterventions; i++) {
+            Intervention intervention = Payloads.intervention(random);
+            intervention.generateMeanList();
+            interventions.add(intervention);
+            ids[i] = intervention.getId();
+            for (int j = 0; j < seedImages; j++) {
+                images.add(Payloads.geoImage(intervention.getId(), jpeg, random));
+            }
+        }
+
+        InterventionDAO interventionDAO = new InterventionDAO();
+        interventionDAO.connect();
+        interventionDAO.createAll(interventions);
+        interventionDAO.disconnect();
+
+        GeoImageDAO geoImageDAO = new GeoImageDAO();
+        geoImageDAO.connect();
+        geoImageDAO.createAll(images);
+        geoImageDAO.disconnect();
+        return ids;
+    }
+
+    private static int[] parseMix(String value) {
+        String[] weights = value.split(",");
+        if (weights.length != 3) {
+            throw new IllegalArgumentException("loadtest.mix must be 3 weights : creations,means,images");
+        }
+        int[] mix = new int[3];
+        for (int i = 0; i < 3; i++) {
+            mix[i] = Integer.parseInt(weights[i].trim());
+        }
+        if (mix[0] + mix[1] + mix[2] <= 0) {
+            throw new IllegalArgumentException("loadtest.mix must have a positive weight");
+        }
+        return mix;
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+}
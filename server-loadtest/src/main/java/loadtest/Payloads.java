@@ -0,0 +1,147 @@
+package loadtest;
+
+import org.apache.commons.codec.binary.Base64;
+
+import javax.imageio.ImageIO;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import entity.DisasterCode;
+import entity.GeoImage;
+import entity.Intervention;
+import entity.Position;
+import util.Datetime;
+
+/**
+ * @see
+ * Payloads builds the entities seeded in the database and the bodies of the requests,
+ * around Rennes like the interventions of the exercises
+ */
+public final class Payloads {
+    private static final double LATITUDE = 48.117266;
+    private static final double LONGITUDE = -1.6777926;
+    private static final String[] STREETS = {"Avenue Général Leclerc", "Rue de Saint-Malo", "Boulevard de la Liberté", "Rue de Fougères"};
+
+    private Payloads() {
+    }
+
+    public static Position positionNear(Random random, double spread) {
+        return new Position(LONGITUDE + (random.nextDouble() - 0.5) * spread, LATITUDE + (random.nextDouble() - 0.5) * spread, 40.0);
+    }
+
+    /**
+     * Intervention as created by the CODIS, already located so that the address is not geocoded
+     */
+    public static Intervention intervention(Random random) {
+        DisasterCode[] codes = DisasterCode.values();
+        Intervention intervention = new Intervention("Intervention " + random.nextInt(10000),
+                random.nextInt(300) + " " + STREETS[random.nextInt(STREETS.length)], "35000", "Rennes",
+                codes[random.nextInt(codes.length)]);
+        intervention.setCoordinates(positionNear(random, 0.1));
+        intervention.setDateCreate(Datetime.getCurrentDate());
+        return intervention;
+    }
+
+    /**
+     * Body of POST /intervention, the fields sent by the tablet of the CODIS
+     */
+    public static Map<String, Object> interventionBody(Random random) {
+        Intervention intervention = intervention(random);
+        Map<String, Object> body = new LinkedHashMap<String, Object>();
+        body.put("label", intervention.getLabel());
+        body.put("address", intervention.getAddress());
+        body.put("postcode", intervention.getPostcode());
+        body.put("city", intervention.getCity());
+        body.put("disasterCode", intervention.getDisasterCode().toString());
+        body.put("coordinates", positionBody(intervention.getCoordinates()));
+        return body;
+    }
+
+    /**
+     * Body of the transitions of a mean, only its id and its position are read by the server
+     */
+    public static Map<String, Object> meanBody(long id, Position coordinates) {
+        Map<String, Object> body = new LinkedHashMap<String, Object>();
+        body.put("id", id);
+        if (coordinates != null) {
+            body.put("coordinates", positionBody(coordinates));
+        }
+        return body;
+    }
+
+    /**
+     * Body of POST /intervention/{id}/moyenextra
+     */
+    public static Map<String, Object> extraMeanBody(Random random) {
+        Map<String, Object> body = new LinkedHashMap<String, Object>();
+        body.put("vehicle", "FPT");
+        body.put("name", "Renfort " + random.nextInt(1000));
+        body.put("meanState", "REQUESTED");
+        return body;
+    }
+
+    /**
+     * Body of POST /drone/target, a closed ride around the intervention
+     */
+    public static Map<String, Object> targetBody(long interventionId, Random random) {
+        List<Map<String, Object>> positions = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < 4; i++) {
+            positions.add(positionBody(positionNear(random, 0.01)));
+        }
+        Map<String, Object> body = new LinkedHashMap<String, Object>();
+        body.put("positions", positions);
+        body.put("close", true);
+        body.put("interventionId", interventionId);
+        return body;
+    }
+
+    public static Map<String, Object> positionBody(Position position) {
+        Map<String, Object> body = new LinkedHashMap<String, Object>();
+        body.put("longitude", position.getLongitude());
+        body.put("latitude", position.getLatitude());
+        body.put("altitude", position.getAltitude());
+        return body;
+    }
+
+    /**
+     * Image of the drone, with its bytes, as sent by the drone server
+     */
+    public static GeoImage geoImage(long interventionId, byte[] jpeg, Random random) {
+        GeoImage image = new GeoImage();
+        image.setPosition(positionNear(random, 0.01));
+        image.setWidth(320);
+        image.setHeight(240);
+        image.setContentType("image/jpeg");
+        image.setLength(jpeg.length);
+        image.setImage(Base64.encodeBase64String(jpeg));
+        image.setDate(Datetime.getCurrentDate());
+        image.setInterventionId(interventionId);
+        return image;
+    }
+
+    /**
+     * A JPEG of the size of the pictures of the drone camera, decodable by the thumbnail service
+     */
+    public static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        Random random = new Random(width * 31 + height);
+        for (int i = 0; i < 50; i++) {
+            graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+            graphics.fillRect(random.nextInt(width), random.nextInt(height), random.nextInt(width / 2 + 1), random.nextInt(height / 2 + 1));
+        }
+        graphics.dispose();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", output);
+        return output.toByteArray();
+    }
+}
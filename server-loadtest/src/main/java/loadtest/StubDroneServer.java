@@ -0,0 +1,114 @@
+package loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.commons.codec.binary.Base64;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import entity.Position;
+
+/**
+ * @see
+ * StubDroneServer answers like drone-server/server.py : the drone hovers over the intervention,
+ * GET /position returns always the same position so that the server asks for a picture,
+ * GET /picture returns a JPEG of the camera and POST /position accepts the next waypoint.
+ */
+public class StubDroneServer {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicLong pictures = new AtomicLong();
+    private final byte[] position;
+    private final byte[] picture;
+    private HttpServer server;
+
+    /**
+     * No entity is created here : their ids would load the Configuration before SERVER_PYTHON is set
+     */
+    public StubDroneServer(byte[] jpeg) throws IOException {
+        Random random = new Random(42);
+        Position hover = Payloads.positionNear(random, 0.01);
+        position = mapper.writeValueAsBytes(Payloads.positionBody(hover));
+
+        Map<String, Object> image = new LinkedHashMap<String, Object>();
+        image.put("position", Payloads.positionBody(hover));
+        image.put("width", 320);
+        image.put("height", 240);
+        image.put("contentType", "image/jpeg");
+        image.put("length", jpeg.length);
+        image.put("image", Base64.encodeBase64String(jpeg));
+        picture = mapper.writeValueAsBytes(image);
+    }
+
+    /**
+     * Start the server on a free port of localhost
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/position", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if ("POST".equals(exchange.getRequestMethod())) {
+                    drain(exchange.getRequestBody());
+                    respond(exchange, 200, new byte[0]);
+                } else {
+                    respond(exchange, 200, position);
+                }
+            }
+        });
+        server.createContext("/picture", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                pictures.incrementAndGet();
+                respond(exchange, 200, picture);
+            }
+        });
+        server.start();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    /**
+     * @return url to configure as SERVER_PYTHON
+     */
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return number of pictures taken
+     */
+    public long getPictures() {
+        return pictures.get();
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[4096];
+        while (in.read(buffer) != -1) {
+            // the waypoints are not simulated
+        }
+        in.close();
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+}
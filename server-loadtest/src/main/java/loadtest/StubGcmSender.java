@@ -0,0 +1,48 @@
+package loadtest;
+
+import com.google.android.gcm.server.Message;
+import com.google.android.gcm.server.MulticastResult;
+import com.google.android.gcm.server.Sender;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @see
+ * StubGcmSender replaces GCM : the messages are built and serialized by PushServiceImpl as in production,
+ * then the request to GCM is simulated by a pause of the usual latency of GCM.
+ */
+public class StubGcmSender extends Sender {
+    private final long latency;
+    private final AtomicLong sent = new AtomicLong();
+
+    /**
+     * @param latency milliseconds of a request to GCM
+     */
+    public StubGcmSender(long latency) {
+        super("loadtest");
+        this.latency = latency;
+    }
+
+    @Override
+    public MulticastResult send(Message message, List<String> regIds, int retries) throws IOException {
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while sending to GCM", e);
+            }
+        }
+        sent.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * @return number of messages sent
+     */
+    public long getSent() {
+        return sent.get();
+    }
+}
@@ -0,0 +1,152 @@
+package loadtest;
+
+import org.codehaus.jackson.JsonNode;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @see
+ * VirtualUser plays in loop the requests of the tablets during an intervention, drawn by their weight :
+ * the CODIS creates interventions, the firemen move their means through their states
+ * (GET the means, then arrive, positionner, emplace, retourcrm, libere, moyenextra and its validation)
+ * and poll the images of the drone taken since their last poll.
+ */
+public class VirtualUser implements Runnable {
+    static final String CREATE = "POST /intervention";
+    static final String MEANS = "GET /intervention/{id}/moyen";
+    static final String ARRIVE = "POST /intervention/{id}/moyen/arrive";
+    static final String ENGAGE = "POST /intervention/{id}/moyen/positionner";
+    static final String VALIDATE = "POST /intervention/{id}/moyen/emplace";
+    static final String BACK_TO_CRM = "POST /intervention/{id}/moyen/retourcrm";
+    static final String RELEASE = "POST /intervention/{id}/moyen/libere";
+    static final String EXTRA = "POST /intervention/{id}/moyenextra";
+    static final String ACTIVATE = "POST /moyen/{id}/ok";
+    static final String IMAGES = "GET /intervention/{id}/images";
+
+    private final ApiClient client;
+    private final LatencyRecorder recorder;
+    private final InterventionPool interventions;
+    private final long[] imageInterventions;
+    private final int createWeight;
+    private final int meanWeight;
+    private final int imageWeight;
+    private final long thinkTime;
+    private final Random random;
+
+    /**
+     * Date of the last poll of the images, by intervention
+     */
+    private final Map<Long, Long> lastPolls = new HashMap<Long, Long>();
+    private volatile boolean running = true;
+
+    /**
+     * @param weights weights of the creations, of the transitions of means and of the polls of images
+     * @param thinkTime milliseconds between two actions of the user
+     */
+    public VirtualUser(String baseUrl, InterventionPool interventions, long[] imageInterventions, int[] weights, long thinkTime, long seed) {
+        this.recorder = new LatencyRecorder();
+        this.client = new ApiClient(baseUrl, recorder);
+        this.interventions = interventions;
+        this.imageInterventions = imageInterventions;
+        this.createWeight = weights[0];
+        this.meanWeight = weights[1];
+        this.imageWeight = weights[2];
+        this.thinkTime = thinkTime;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            int draw = random.nextInt(createWeight + meanWeight + imageWeight);
+            if (draw < createWeight) {
+                createIntervention();
+            } else if (draw < createWeight + meanWeight) {
+                moveMean();
+            } else {
+                pollImages();
+            }
+            if (thinkTime > 0) {
+                try {
+                    Thread.sleep(thinkTime);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public LatencyRecorder getRecorder() {
+        return recorder;
+    }
+
+    private void createIntervention() {
+        ApiClient.Result result = client.post(CREATE, "/intervention", Payloads.interventionBody(random));
+        JsonNode created = result == null || !result.isOk() ? null : result.json();
+        if (created != null && created.has("id")) {
+            interventions.add(created.get("id").asLong());
+        }
+    }
+
+    /**
+     * Move a mean of an intervention in progress to its next state
+     */
+    private void moveMean() {
+        long id = interventions.pick(random);
+        if (id < 0) {
+            createIntervention();
+            return;
+        }
+        ApiClient.Result result = client.get(MEANS, "/intervention/" + id + "/moyen");
+        JsonNode means = result == null || !result.isOk() ? null : result.json();
+        if (means == null || means.size() == 0) {
+            return;
+        }
+        JsonNode mean = means.get(random.nextInt(means.size()));
+        long meanId = mean.get("id").asLong();
+        String state = mean.has("meanState") ? mean.get("meanState").asText() : "";
+        String path = "/intervention/" + id + "/moyen/";
+
+        if ("REQUESTED".equals(state)) {
+            client.post(ACTIVATE, "/moyen/" + id + "/ok", Payloads.meanBody(meanId, null));
+        } else if ("ACTIVATED".equals(state)) {
+            client.post(ARRIVE, path + "arrive", Payloads.meanBody(meanId, null));
+        } else if ("ARRIVED".equals(state)) {
+            client.post(ENGAGE, path + "positionner", Payloads.meanBody(meanId, Payloads.positionNear(random, 0.01)));
+        } else if ("ENGAGED".equals(state)) {
+            int action = random.nextInt(10);
+            if (action < 5) {
+                client.post(ENGAGE, path + "positionner", Payloads.meanBody(meanId, Payloads.positionNear(random, 0.01)));
+            } else if (action < 7) {
+                client.post(VALIDATE, path + "emplace", Payloads.meanBody(meanId, null));
+            } else if (action < 9) {
+                client.post(BACK_TO_CRM, path + "retourcrm", Payloads.meanBody(meanId, null));
+            } else {
+                client.post(RELEASE, path + "libere", Payloads.meanBody(meanId, Payloads.positionNear(random, 0.01)));
+            }
+        } else {
+            // released or refused : the intervention needs a new mean
+            client.post(EXTRA, "/intervention/" + id + "/moyenextra", Payloads.extraMeanBody(random));
+        }
+    }
+
+    /**
+     * Poll the images of an intervention taken since the last poll, the first poll reads the last page
+     */
+    private void pollImages() {
+        if (imageInterventions.length == 0) {
+            return;
+        }
+        long id = imageInterventions[random.nextInt(imageInterventions.length)];
+        Long since = lastPolls.get(id);
+        long now = System.currentTimeMillis();
+        client.get(IMAGES, "/intervention/" + id + "/images" + (since == null ? "" : "?since=" + since));
+        lastPolls.put(id, now);
+    }
+}
@@ -1,89 +1,198 @@
 package dao;
 
 import com.mongodb.BasicDBObject;
-import com.mongodb.Block;
-import com.mongodb.MongoClient;
-import com.mongodb.MongoCredential;
-import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
+
+import org.apache.log4j.Logger;
 
 import org.bson.Document;
+import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
+import dao.codec.EntityCodecs;
 import entity.AbstractEntity;
 import util.Configuration;
 
 /**
  * @see
  * AbstractDAO provides methods for DAO
- * Also use for connect and disconnect
+ * Also use for borrowing and giving back the collection of the shared Mongo client
  * This class is used by other DAO classes for the generic methods
  */
 public abstract class AbstractDAO<T extends AbstractEntity> {
 
-    private MongoClient mongoClient;
-    private MongoDatabase db;
+    private static final Logger LOGGER = Logger.getLogger(AbstractDAO.class);
+
+    private static final int DEFAULT_CURSOR_BATCH_SIZE = 20;
+    private static final int DEFAULT_BULK_BATCH_SIZE = 1000;
+
     protected MongoCollection collection;
 
+    /**
+     * Same collection, its documents read and written as entities by the codecs of EntityCodecs
+     */
+    protected MongoCollection<T> entityCollection;
+
+    /**
+     * class of T
+     */
+    protected Class<T> entityClass;
+
     /**
      * datatype of T
      */
     protected String datatype;
 
     /**
-     * Connect to BDD and bucket to communicate with couchbase
+     * Borrow the collection from the pooled client shared by all DAOs,
+     * with the write concern of the DAO
      */
     public final void connect() {
-        if(mongoClient == null) {
-            MongoCredential credential = MongoCredential.createCredential(Configuration.getMONGODB_USER(), Configuration.getDATABASE_NAME(), Configuration.getMONGODB_PWD().toCharArray());
-            mongoClient = new MongoClient( new ServerAddress(Configuration.getMONGODB_HOSTNAME(), Integer.parseInt(Configuration.getMONGODB_PORT())), Arrays.asList(credential));
-            db = mongoClient.getDatabase(Configuration.getDATABASE_NAME());
-            collection = db.getCollection(datatype);
+        if(collection == null) {
+            collection = MongoClientProvider.getInstance().borrowCollection(datatype);
+            WriteConcern writeConcern = writeConcern();
+            if (writeConcern != null) {
+                collection = collection.withWriteConcern(writeConcern);
+            }
+            entityCollection = collection.withCodecRegistry(EntityCodecs.getRegistry()).withDocumentClass(entityClass);
+        }
+    }
+
+    /**
+     * Write concern of the DAO, MONGODB_WRITE_CONCERN by default, at least acknowledged :
+     * the DAOs count the documents matched by their writes (compare and set, migrations)
+     * Only the DAOs which never read the result of a write may override it with an unacknowledged one
+     * @return write concern, null to keep the one of the client
+     */
+    protected WriteConcern writeConcern() {
+        return acknowledged(parseWriteConcern(Configuration.getMONGODB_WRITE_CONCERN()));
+    }
+
+    /**
+     * @param writeConcern write concern, null for the one of the client
+     * @return the write concern, ACKNOWLEDGED if it is unacknowledged
+     */
+    protected static WriteConcern acknowledged(WriteConcern writeConcern) {
+        if (writeConcern != null && !writeConcern.isAcknowledged()) {
+            LOGGER.warn("Write concern " + writeConcern + " ignored, the results of the writes are read : ACKNOWLEDGED is used");
+            return WriteConcern.ACKNOWLEDGED;
+        }
+        return writeConcern;
+    }
+
+    /**
+     * @param name name of a WriteConcern constant (ACKNOWLEDGED, UNACKNOWLEDGED, JOURNALED, MAJORITY...)
+     * @return write concern, null if the name is empty or unknown
+     */
+    protected static WriteConcern parseWriteConcern(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        WriteConcern writeConcern = WriteConcern.valueOf(name.trim());
+        if (writeConcern == null) {
+            LOGGER.warn("Unknown write concern " + name + ", the one of the client is used");
         }
+        return writeConcern;
     }
 
     /**
-     * Disconnect BDD
+     * Give back the collection, the pooled client stays opened
      */
     public final void disconnect() {
-        if(mongoClient != null)
+        if(collection != null)
         {
-            mongoClient.close();
-            db =null;
             collection = null;
-            mongoClient = null;
+            entityCollection = null;
+            MongoClientProvider.getInstance().release();
         }
     }
 
     /**
      * Create an entity
+     * The entity is written by its codec and not read back
      * @param e entity to create
+     * @return created entity
      */
-    public final T create(T e) {
-        collection.insertOne(entityToDocument(e));
-        return this.getById(e.getId());
+    public T create(T e) {
+        entityCollection.insertOne(e);
+        return e;
+    }
+
+    /**
+     * Create entities with unordered bulk inserts, one round-trip by batch of MONGODB_BULK_BATCH_SIZE entities
+     * The entities are not read back. An insert failing (duplicate id) does not stop the others,
+     * the error is thrown once all the batch is written
+     * @param entities entities to create
+     * @return number of created entities
+     */
+    public int createAll(List<T> entities) {
+        int batchSize = bulkBatchSize();
+        int created = 0;
+        for (int from = 0; from < entities.size(); from += batchSize) {
+            List<T> batch = entities.subList(from, Math.min(from + batchSize, entities.size()));
+            entityCollection.insertMany(batch, new InsertManyOptions().ordered(false));
+            created += batch.size();
+        }
+        return created;
+    }
+
+    /**
+     * Create or replace entities, by id, with unordered bulk writes,
+     * one round-trip by batch of MONGODB_BULK_BATCH_SIZE entities
+     * @param entities entities to write
+     * @return number of entities created or replaced
+     */
+    public int upsertAll(List<T> entities) {
+        int batchSize = bulkBatchSize();
+        int written = 0;
+        for (int from = 0; from < entities.size(); from += batchSize) {
+            List<T> batch = entities.subList(from, Math.min(from + batchSize, entities.size()));
+            List<WriteModel<T>> writes = new ArrayList<WriteModel<T>>(batch.size());
+            for (T e : batch) {
+                writes.add(new ReplaceOneModel<T>(new BasicDBObject("_id", e.getId()), e, new UpdateOptions().upsert(true)));
+            }
+            BulkWriteResult result = entityCollection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            written += result.wasAcknowledged() ? result.getMatchedCount() + result.getUpserts().size() : writes.size();
+        }
+        return written;
+    }
+
+    protected static int bulkBatchSize() {
+        int batchSize = Configuration.parseInt(Configuration.getMONGODB_BULK_BATCH_SIZE(), DEFAULT_BULK_BATCH_SIZE);
+        return batchSize > 0 ? batchSize : DEFAULT_BULK_BATCH_SIZE;
     }
 
     /**
      * Delete an entity
      * @param e entity to delete
      */
-    public final void delete(T e) {
+    public void delete(T e) {
         collection.deleteOne(new BasicDBObject("_id", e.getId()));
     }
 
     /**
      * Update entity
+     * The entity is written by its codec and not read back
      * @param e entity to update
+     * @return updated entity, null if it does not exist (only known with an acknowledged write concern)
      */
-    public final T update(T e) {
-        collection.replaceOne(new BasicDBObject("_id", e.getId()), entityToDocument(e));
-        return this.getById(e.getId());
+    public T update(T e) {
+        UpdateResult result = entityCollection.replaceOne(new BasicDBObject("_id", e.getId()), e);
+        if (result.wasAcknowledged() && result.getMatchedCount() == 0) {
+            return null;
+        }
+        return e;
     }
 
     /**
@@ -92,42 +201,47 @@ public abstract class AbstractDAO<T extends AbstractEntity> {
      */
     public final List<T> getAll()
     {
-        final List<T> res = new ArrayList<T>();
-        FindIterable findIterable = collection.find();
-        findIterable.forEach(new Block<Document>() {
-            @Override
-            public void apply(final Document document) {
-                res.add(documentToEntity(document));
-            }
-        });
-        return res;
+        return entityCollection.find().into(new ArrayList<T>());
     }
 
     /**
-     * GetById
-     * @return T
+     * Iterate lazily over all the entities, batch by batch
+     * @return cursor, disconnects the DAO when closed
      */
-    public final T getById(long id)
+    public EntityCursor<T> streamAll()
     {
-        FindIterable findIterable = collection.find(new BasicDBObject("_id", id));
-        return documentToEntity((Document) findIterable.first());
+        return stream(entityCollection.find());
     }
 
     /**
-     * Transform a jsonDocument to entity
-     * Abstract method implemented on multiple inheritance
-     * @param document document to transform
-     * @return entity of Document
+     * Iterate lazily over the result of a query, batch by batch
+     * @param findIterable query
+     * @return cursor, disconnects the DAO when closed
      */
-    protected abstract T documentToEntity(Document document);
+    protected final EntityCursor<T> stream(FindIterable<T> findIterable)
+    {
+        int batchSize = Configuration.parseInt(Configuration.getMONGODB_CURSOR_BATCH_SIZE(), DEFAULT_CURSOR_BATCH_SIZE);
+        return new EntityCursor<T>(this, findIterable.batchSize(batchSize).iterator());
+    }
 
     /**
-     * Transform an entity to Document
-     * Abstract method implemented on multiple inheritance
-     * @param entity to transform
-     * @return document of entity
+     * GetById
+     * @return T
      */
-    protected abstract Document entityToDocument(T entity);
+    public final T getById(long id)
+    {
+        return entityCollection.find(new BasicDBObject("_id", id)).first();
+    }
+
+    /**
+     * Query plan chosen by the database, to check that a query uses an index
+     * @param filter query
+     * @return explain document, its queryPlanner.winningPlan describes the stages of the plan
+     */
+    Document explain(Bson filter)
+    {
+        return (Document) collection.find(filter).modifiers(new Document("$explain", true)).first();
+    }
 
     /**
      * Create different indexes
@@ -0,0 +1,15 @@
+package dao;
+
+/**
+ * @see
+ * ConcurrentUpdateException is thrown when a document could not be written
+ * because it was modified by another request since it was read
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConcurrentUpdateException(String message) {
+        super(message);
+    }
+}
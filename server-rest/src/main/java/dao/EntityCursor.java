@@ -0,0 +1,58 @@
+package dao;
+
+import com.mongodb.client.MongoCursor;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import entity.AbstractEntity;
+
+/**
+ * @see
+ * EntityCursor iterates lazily over the result of a query, the entities are decoded by batches
+ * Closing the cursor gives the collection of its DAO back, it must be closed once read
+ */
+public class EntityCursor<T extends AbstractEntity> implements Iterator<T>, Closeable {
+    private final AbstractDAO<T> dao;
+    private final MongoCursor<T> cursor;
+    private boolean closed;
+
+    EntityCursor(AbstractDAO<T> dao, MongoCursor<T> cursor) {
+        this.dao = dao;
+        this.cursor = cursor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !closed && cursor.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (closed) {
+            throw new NoSuchElementException("Cursor closed");
+        }
+        return cursor.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Read only cursor");
+    }
+
+    /**
+     * Close the database cursor and disconnect the DAO
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                cursor.close();
+            } finally {
+                dao.disconnect();
+            }
+        }
+    }
+}
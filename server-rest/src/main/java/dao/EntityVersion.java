@@ -0,0 +1,35 @@
+package dao;
+
+import java.util.Date;
+
+/**
+ * @see
+ * EntityVersion is the version and the date of the last write of a document,
+ * read without the document to check if a client copy is still up to date
+ */
+public class EntityVersion {
+    private final long id;
+    private final long version;
+    private final Date lastModified;
+
+    public EntityVersion(long id, long version, Date lastModified) {
+        this.id = id;
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return date of the last write, null for documents not written since it is tracked
+     */
+    public Date getLastModified() {
+        return lastModified;
+    }
+}
@@ -1,10 +1,17 @@
 package dao;
 
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.client.model.IndexOptions;
+
 import org.bson.Document;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import entity.GeoIcon;
+import entity.Position;
 import util.Constant;
 import util.Tools;
 
@@ -14,48 +21,195 @@ import util.Tools;
  */
 public class GeoIconDAO extends AbstractDAO<GeoIcon>  {
 
+    /**
+     * Widest strip of longitudes, in degrees, queried with a single polygon
+     */
+    private static final double MAX_STRIP_WIDTH = 90;
+
+    /**
+     * Incremented by every write of an icon on this server, tells the caches built from the icons they are stale
+     * The writes made on other servers are not counted, their caches rely on their expiration
+     */
+    private static final AtomicLong GENERATION = new AtomicLong();
+
     /**
      * Contructor UnityDAO
      */
     public GeoIconDAO()
     {
         this.datatype = Constant.DATATYPE_GEOICON;
+        this.entityClass = GeoIcon.class;
     }
 
 
 
+    /**
+     * @return number of writes of icons made by this server
+     */
+    public static long getGeneration() {
+        return GENERATION.get();
+    }
+
     @Override
-    protected GeoIcon documentToEntity(Document document) {
-        if(document==null)
-        {
-            return null;
-        }
-        GeoIcon u = new GeoIcon();
-        u.setId(document.getLong("_id"));
-        u.setEntitled(document.getString("entitled"));
-        u.setFilename(document.getString("filename"));
-        u.setPosition(Tools.arrayListToPosition((ArrayList) document.get("coordinates")));
-        u.setColor(document.getString("color"));
-        u.setTiret(document.getBoolean("tiret"));
-        u.setFirstContent(document.getString("firstContent"));
-        u.setSecondContent(document.getString("secondContent"));
-        return u;
+    public GeoIcon create(GeoIcon e) {
+        try {
+            return super.create(e);
+        } finally {
+            GENERATION.incrementAndGet();
+        }
     }
 
     @Override
-    protected Document entityToDocument(GeoIcon u) {
-
-        Document document = new Document();
-        document.put("_id", u.getId());
-        document.put("filename", u.getFilename());
-        document.put("entitled", u.getEntitled());
-        document.put("firstContent", u.getFirstContent());
-        document.put("secondContent", u.getSecondContent());
-        document.put("tiret", u.getTiret());
-        document.put("color", u.getColor());
-        document.put("coordinates", Tools.positionToBasicDBList(u.getPosition()));
-        document.put("type", "Point");
-        return document;
+    public GeoIcon update(GeoIcon e) {
+        try {
+            return super.update(e);
+        } finally {
+            GENERATION.incrementAndGet();
+        }
+    }
 
+    @Override
+    public int createAll(List<GeoIcon> entities) {
+        try {
+            return super.createAll(entities);
+        } finally {
+            GENERATION.incrementAndGet();
+        }
+    }
+
+    @Override
+    public int upsertAll(List<GeoIcon> entities) {
+        try {
+            return super.upsertAll(entities);
+        } finally {
+            GENERATION.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void delete(GeoIcon e) {
+        try {
+            super.delete(e);
+        } finally {
+            GENERATION.incrementAndGet();
+        }
+    }
+
+    /**
+     * Icons within a circle on the surface of the earth
+     * @param longitude longitude of the center
+     * @param latitude latitude of the center
+     * @param radius radius in meters
+     * @return icons in the circle
+     */
+    public List<GeoIcon> findWithin(double longitude, double latitude, double radius) {
+        return find(Tools.withinCriteria("location", new Position(longitude, latitude), radius));
+    }
+
+    /**
+     * Icons within a box of latitudes and longitudes, as sent by the visible region of a map
+     * @param south southern latitude
+     * @param west western longitude
+     * @param north northern latitude
+     * @param east eastern longitude
+     * @return icons in the box
+     */
+    public List<GeoIcon> findInBox(double south, double west, double north, double east) {
+        double span = east - west;
+        if (span < 0) {
+            span += 360;
+        }
+        span = Math.min(span, 360);
+        if (span == 0 || south == north) {
+            return new ArrayList<GeoIcon>();
+        }
+        // A polygon is the smaller of the two regions bounded by its ring :
+        // wide boxes are split in strips narrower than half of the earth
+        int strips = (int) Math.ceil(span / MAX_STRIP_WIDTH);
+        double width = span / strips;
+        // The edges of a polygon are great circles, bent towards the pole : the polygon is widened
+        // so that it holds the whole box, and the icons outside of the box are filtered out
+        double polygonSouth = south > 0 ? towardsEquator(south, width) : south;
+        double polygonNorth = north < 0 ? towardsEquator(north, width) : north;
+        BasicDBList polygons = new BasicDBList();
+        for (int i = 0; i < strips; i++) {
+            double stripWest = west + i * width;
+            double stripEast = stripWest + width;
+            polygons.add(new BasicDBObject("location", new BasicDBObject("$geoWithin",
+                    new BasicDBObject("$geometry", box(polygonSouth, stripWest, polygonNorth, stripEast)))));
+        }
+        List<GeoIcon> icons = find(polygons.size() == 1 ? (BasicDBObject) polygons.get(0) : new BasicDBObject("$or", polygons));
+        List<GeoIcon> inBox = new ArrayList<GeoIcon>(icons.size());
+        for (GeoIcon icon : icons) {
+            Position position = icon.getPosition();
+            double offset = ((position.getLongitude() - west) % 360 + 360) % 360;
+            if (position.getLatitude() >= south && position.getLatitude() <= north && offset <= span) {
+                inBox.add(icon);
+            }
+        }
+        return inBox;
+    }
+
+    /**
+     * Latitude of the ends of a great circle arc whose middle is at the given latitude
+     * @param latitude latitude of the parallel, in degrees
+     * @param width difference of longitude of the ends of the arc, less than 180 degrees
+     * @return latitude nearer to the equator
+     */
+    private static double towardsEquator(double latitude, double width) {
+        return Math.toDegrees(Math.atan(Math.tan(Math.toRadians(latitude)) * Math.cos(Math.toRadians(width / 2))));
+    }
+
+    private static BasicDBObject box(double south, double west, double north, double east) {
+        BasicDBList ring = new BasicDBList();
+        ring.add(lngLat(west, south));
+        ring.add(lngLat(east, south));
+        ring.add(lngLat(east, north));
+        ring.add(lngLat(west, north));
+        ring.add(lngLat(west, south));
+        BasicDBList rings = new BasicDBList();
+        rings.add(ring);
+        BasicDBObject polygon = new BasicDBObject("type", "Polygon");
+        polygon.put("coordinates", rings);
+        return polygon;
+    }
+
+    private static BasicDBList lngLat(double longitude, double latitude) {
+        if (longitude > 180) {
+            longitude -= 360;
+        }
+        BasicDBList point = new BasicDBList();
+        point.add(longitude);
+        point.add(latitude);
+        return point;
+    }
+
+    private List<GeoIcon> find(BasicDBObject query) {
+        return entityCollection.find(query)
+                .sort(new BasicDBObject("_id", 1))
+                .into(new ArrayList<GeoIcon>());
+    }
+
+    /**
+     * Add the GeoJSON location to the icons written by older versions of the server
+     * @return number of icons migrated
+     */
+    public long migrateLocations() {
+        List<GeoIcon> icons = entityCollection.find(new BasicDBObject("location", new BasicDBObject("$exists", false)))
+                .into(new ArrayList<GeoIcon>());
+
+        long migrated = 0;
+        for (GeoIcon icon : icons) {
+            Document location = Tools.positionToGeoJsonPoint(icon.getPosition());
+            migrated += collection.updateOne(new BasicDBObject("_id", icon.getId()),
+                    new Document("$set", new Document("location", location))).getMatchedCount();
+        }
+        return migrated;
+    }
+
+    @Override
+    public void ensureIndex()
+    {
+        collection.createIndex(new BasicDBObject("location", "2dsphere"), new IndexOptions().background(true));
     }
 }
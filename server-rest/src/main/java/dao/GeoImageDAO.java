@@ -1,17 +1,28 @@
 package dao;
 
+import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.Block;
+import com.mongodb.WriteConcern;
 import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.gridfs.GridFS;
+import com.mongodb.gridfs.GridFSDBFile;
+import com.mongodb.gridfs.GridFSInputFile;
 
+import org.apache.commons.codec.binary.Base64;
 import org.bson.Document;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import entity.GeoImage;
+import entity.Position;
+import util.Configuration;
 import util.Constant;
-import util.Datetime;
 import util.Tools;
 
 /**
@@ -19,6 +30,12 @@ import util.Tools;
  * @see GeoImageDAO implements these abstract methods for GeoImage transformation
  */
 public class GeoImageDAO extends AbstractDAO<GeoImage> {
+    private static final String THUMBNAIL_SEPARATOR = "_";
+
+    /**
+     * Index of older versions of the server, on the positions stored latitude first
+     */
+    private static final String LEGACY_POSITION_INDEX = "position_2dsphere";
 
     /**
      * Contructor UnityDAO
@@ -26,69 +43,323 @@ public class GeoImageDAO extends AbstractDAO<GeoImage> {
     public GeoImageDAO()
     {
         this.datatype = Constant.DATATYPE_GEOIMAGE;
+        this.entityClass = GeoImage.class;
     }
 
+    /**
+     * Images are written with MONGODB_IMAGE_WRITE_CONCERN, the one of the other DAOs (MONGODB_WRITE_CONCERN) when it is empty.
+     * UNACKNOWLEDGED is opt-in : the drone no longer waits for the database, but a failed insert is lost silently
+     * while its bytes stay in GridFS and its thumbnails are still generated
+     */
     @Override
-    protected GeoImage documentToEntity(Document document) {
-        if(document==null)
-        {
-            return null;
-        }
-        GeoImage geoImage = new GeoImage();
-        geoImage.setId(document.getLong("_id"));
-        geoImage.setPosition(Tools.arrayListToPosition((ArrayList) document.get("position")));
-        geoImage.setImage(document.getString("image"));
-        geoImage.setWidth(document.getInteger("width"));
-        geoImage.setHeight(document.getInteger("height"));
-        if(document.getDate("date") != null)
-        {
-            geoImage.setDate(document.getDate("date"));
+    protected WriteConcern writeConcern() {
+        WriteConcern writeConcern = parseWriteConcern(Configuration.getMONGODB_IMAGE_WRITE_CONCERN());
+        return writeConcern != null ? writeConcern : super.writeConcern();
+    }
+
+    /**
+     * The migrations count the images updated, which needs an acknowledged write concern
+     */
+    private MongoCollection acknowledged() {
+        return collection.withWriteConcern(WriteConcern.ACKNOWLEDGED);
+    }
+
+    /**
+     * Store the bytes of the image in GridFS, then its metadata
+     * @param e image with its base64 content
+     * @return image, without its content
+     */
+    @Override
+    public GeoImage create(GeoImage e) {
+        stampDate(e);
+        storeImage(e);
+        return super.create(e);
+    }
+
+    /**
+     * Store the bytes of the images in GridFS, then their metadata in bulk
+     * @param entities images with their base64 content
+     * @return number of created images
+     */
+    @Override
+    public int createAll(List<GeoImage> entities) {
+        for (GeoImage e : entities) {
+            stampDate(e);
+            storeImage(e);
         }
-        if(document.getLong("interventionId") != null)
-        {
-            geoImage.setInterventionId(document.getLong("interventionId"));
+        return super.createAll(entities);
+    }
+
+    /**
+     * Store the bytes of the images in GridFS, then create or replace their metadata in bulk
+     * @param entities images, with their base64 content when it changes
+     * @return number of images created or replaced
+     */
+    @Override
+    public int upsertAll(List<GeoImage> entities) {
+        for (GeoImage e : entities) {
+            stampDate(e);
+            storeImage(e);
         }
+        return super.upsertAll(entities);
+    }
 
-        return geoImage;
+    /**
+     * Date an image stored for the first time, to the millisecond : the date is written as is afterwards,
+     * the images keep their order and their cursors (date, id) when they are written again
+     */
+    private static void stampDate(GeoImage e) {
+        if (e.getDate() == null) {
+            e.setDate(new Date());
+        }
     }
 
+    /**
+     * Delete the metadata and the bytes of the image
+     * @param e image to delete
+     */
     @Override
-    protected Document entityToDocument(GeoImage entity) {
-        Document document = new Document();
-        document.put("image", entity.getImage());
-        document.put("height", entity.getHeight());
-        document.put("width",entity.getWidth());
-        document.put("position", Tools.positionToBasicDBList(entity.getPosition()));
-        document.put("interventionId", entity.getInterventionId());
-        document.put("date", Datetime.getCurrentDate());
-        document.put("_id",entity.getId());
-        return document;
-    }
-
-    public List<GeoImage> getAllImagesNear(float latitude, float longitude, int limit)
-    {
-        final List<GeoImage> res = new ArrayList<GeoImage>();
-        BasicDBObject geometry = new BasicDBObject("type", "Point");
-        float[] coordinates =  {latitude,longitude };
-        geometry.put("coordinates", coordinates);
-        BasicDBObject near = new BasicDBObject("$geometry", geometry);
-        near.put("$maxDistance",Constant.NEAR_REQUEST_MAXDISTANCE);
-        BasicDBObject position = new BasicDBObject("$near", near);
-        BasicDBObject criteria = new BasicDBObject("position", position);
-        FindIterable findIterable = collection.find(criteria).limit(limit);
+    public void delete(GeoImage e) {
+        super.delete(e);
+        getImageBucket().remove(fileName(e.getId()));
+        getImageBucket().remove(new BasicDBObject("filename", Pattern.compile("^" + e.getId() + THUMBNAIL_SEPARATOR)));
+    }
+
+    /**
+     * @param id id of the image
+     * @return bytes of the image, null if they are not in GridFS
+     */
+    public GridFSDBFile findImageFile(long id) {
+        return getImageBucket().findOne(fileName(id));
+    }
+
+    /**
+     * Store a thumbnail of the image, next to the image
+     * @param id id of the image
+     * @param size largest side of the thumbnail
+     * @param bytes PNG content of the thumbnail
+     */
+    public void storeThumbnail(long id, int size, byte[] bytes) {
+        GridFS bucket = getImageBucket();
+        bucket.remove(thumbnailName(id, size));
+        GridFSInputFile file = bucket.createFile(bytes);
+        file.setFilename(thumbnailName(id, size));
+        file.setContentType("image/png");
+        file.save();
+    }
+
+    /**
+     * @param id id of the image
+     * @param size largest side of the thumbnail
+     * @return bytes of the thumbnail, null if it is not generated
+     */
+    public GridFSDBFile findThumbnailFile(long id, int size) {
+        return getImageBucket().findOne(thumbnailName(id, size));
+    }
+
+    /**
+     * Move the images stored inline in the documents to GridFS
+     * @return number of migrated images
+     */
+    public long migrateInlineImages() {
+        FindIterable findIterable = collection.find(new BasicDBObject("image", new BasicDBObject("$exists", true)))
+                .projection(new BasicDBObject("_id", 1));
+        final List<Long> ids = new ArrayList<Long>();
         findIterable.forEach(new Block<Document>() {
             @Override
             public void apply(final Document document) {
-                res.add(documentToEntity(document));
+                ids.add(document.getLong("_id"));
             }
         });
-        return res;
+
+        long migrated = 0;
+        for (Long id : ids) {
+            GeoImage geoImage = getById(id);
+            if (geoImage == null || geoImage.getImage() == null) {
+                continue;
+            }
+            storeImage(geoImage);
+            Document set = new Document("contentType", geoImage.getContentType());
+            set.put("length", geoImage.getLength());
+            Document update = new Document("$set", set);
+            update.put("$unset", new Document("image", ""));
+            migrated += acknowledged().updateOne(new BasicDBObject("_id", id), update).getMatchedCount();
+        }
+        return migrated;
+    }
+
+    /**
+     * Add the GeoJSON location to the images written by older versions of the server,
+     * and drop the index of their positions
+     * @return number of images migrated
+     */
+    public long migrateLocations() {
+        for (Document index : (Iterable<Document>) collection.listIndexes()) {
+            if (LEGACY_POSITION_INDEX.equals(index.getString("name"))) {
+                collection.dropIndex(LEGACY_POSITION_INDEX);
+            }
+        }
+
+        FindIterable findIterable = collection.find(new BasicDBObject("location", new BasicDBObject("$exists", false)))
+                .projection(new BasicDBObject("position", 1));
+        final List<Document> documents = new ArrayList<Document>();
+        findIterable.forEach(new Block<Document>() {
+            @Override
+            public void apply(final Document document) {
+                documents.add(document);
+            }
+        });
+
+        long migrated = 0;
+        for (Document document : documents) {
+            Document location = Tools.positionToGeoJsonPoint(Tools.arrayListToPosition((ArrayList) document.get("position")));
+            migrated += acknowledged().updateOne(new BasicDBObject("_id", document.get("_id")),
+                    new Document("$set", new Document("location", location))).getMatchedCount();
+        }
+        return migrated;
+    }
+
+    /**
+     * Write the base64 content of the image in GridFS, keyed by the id of the image
+     * @param e image, its content type and length are set
+     */
+    private void storeImage(GeoImage e) {
+        if (e.getImage() == null) {
+            return;
+        }
+        byte[] bytes = Base64.decodeBase64(e.getImage());
+        GridFS bucket = getImageBucket();
+        bucket.remove(fileName(e.getId()));
+        GridFSInputFile file = bucket.createFile(bytes);
+        file.setFilename(fileName(e.getId()));
+        file.setContentType(contentTypeOf(bytes));
+        file.save();
+        e.setContentType(file.getContentType());
+        e.setLength(bytes.length);
+        // the entity written and returned has no content, the bytes are read with findImageFile()
+        e.setImage(null);
+    }
+
+    private static GridFS getImageBucket() {
+        return MongoClientProvider.getInstance().getGridFS(Constant.GRIDFS_BUCKET_IMAGE);
+    }
+
+    private static String fileName(long id) {
+        return String.valueOf(id);
+    }
+
+    private static String thumbnailName(long id, int size) {
+        return id + THUMBNAIL_SEPARATOR + size;
+    }
+
+    /**
+     * Content type guessed from the signature of the bytes, the drone sends PNG images
+     */
+    public static String contentTypeOf(byte[] bytes) {
+        if (bytes.length > 3 && (bytes[0] & 0xFF) == 0x89 && bytes[1] == 'P' && bytes[2] == 'N' && bytes[3] == 'G') {
+            return "image/png";
+        }
+        if (bytes.length > 2 && (bytes[0] & 0xFF) == 0xFF && (bytes[1] & 0xFF) == 0xD8 && (bytes[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        return "application/octet-stream";
+    }
+
+    /**
+     * Find a page of the images of an intervention, newest first, without their content
+     * Filtering, sorting and paging are done by the database on the (interventionId, date) index
+     * @param query criteria of the page
+     * @return images of the page
+     */
+    public List<GeoImage> find(GeoImageQuery query)
+    {
+        BasicDBObject filter = new BasicDBObject("interventionId", query.getInterventionId());
+        BasicDBObject dateRange = new BasicDBObject();
+        if (query.getSince() != null) {
+            dateRange.put("$gt", query.getSince());
+        }
+        if (query.getUntil() != null) {
+            dateRange.put("$lte", query.getUntil());
+        }
+        if (!dateRange.isEmpty()) {
+            filter.put("date", dateRange);
+        }
+        BasicDBList before = query.getBeforeDate() == null ? null : beyond(query.getBeforeDate(), query.getBeforeId(), "$lt");
+        BasicDBList after = query.getAfterDate() == null ? null : beyond(query.getAfterDate(), query.getAfterId(), "$gt");
+        if (before != null && after != null) {
+            BasicDBList both = new BasicDBList();
+            both.add(new BasicDBObject("$or", before));
+            both.add(new BasicDBObject("$or", after));
+            filter.put("$and", both);
+        } else if (before != null) {
+            filter.put("$or", before);
+        } else if (after != null) {
+            filter.put("$or", after);
+        }
+
+        BasicDBObject sort = new BasicDBObject("date", -1);
+        sort.put("_id", -1);
+        FindIterable<GeoImage> findIterable = entityCollection.find(filter).sort(sort).projection(new BasicDBObject("image", 0));
+        if (query.getLimit() > 0) {
+            findIterable = findIterable.limit(query.getLimit());
+        }
+        return findIterable.into(new ArrayList<GeoImage>());
+    }
+
+    /**
+     * Alternatives ($or) of the images before or after the image of a cursor, in the order (date, id)
+     * @param operator $lt for the images before, $gt for the images after
+     */
+    private static BasicDBList beyond(Date date, long id, String operator) {
+        // same date as the cursor : the id breaks the tie
+        BasicDBObject sameDate = new BasicDBObject("date", date);
+        sameDate.put("_id", new BasicDBObject(operator, id));
+        BasicDBList or = new BasicDBList();
+        or.add(new BasicDBObject("date", new BasicDBObject(operator, date)));
+        or.add(sameDate);
+        return or;
+    }
+
+    /**
+     * Images near of coordinates, nearest first, within NEAR_MAX_DISTANCE meters
+     */
+    public List<GeoImage> getAllImagesNear(double latitude, double longitude, int limit)
+    {
+        return getAllImagesNear(latitude, longitude, Tools.defaultNearMaxDistance(), limit);
+    }
+
+    /**
+     * Images near of coordinates, nearest first
+     * @param maxDistance distance in meters
+     */
+    public List<GeoImage> getAllImagesNear(double latitude, double longitude, int maxDistance, int limit)
+    {
+        return entityCollection.find(nearCriteria(latitude, longitude, maxDistance)).limit(limit)
+                .into(new ArrayList<GeoImage>());
+    }
+
+    /**
+     * Iterate lazily over the images near of coordinates, nearest first
+     * @param maxDistance distance in meters
+     * @return cursor, disconnects the DAO when closed
+     */
+    public EntityCursor<GeoImage> streamImagesNear(double latitude, double longitude, int maxDistance, int limit)
+    {
+        return stream(entityCollection.find(nearCriteria(latitude, longitude, maxDistance)).limit(limit));
+    }
+
+    private static BasicDBObject nearCriteria(double latitude, double longitude, int maxDistance)
+    {
+        return Tools.nearCriteria("location", new Position(longitude, latitude), maxDistance);
     }
 
     @Override
     public void ensureIndex()
     {
-        BasicDBObject position = new BasicDBObject("position", "2dsphere");
-        collection.createIndex(position);
+        collection.createIndex(new BasicDBObject("location", "2dsphere"), new IndexOptions().background(true));
+        BasicDBObject byIntervention = new BasicDBObject("interventionId", 1);
+        byIntervention.put("date", -1);
+        byIntervention.put("_id", -1);
+        collection.createIndex(byIntervention, new IndexOptions().background(true));
     }
 }
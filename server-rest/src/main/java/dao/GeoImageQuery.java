@@ -0,0 +1,123 @@
+package dao;
+
+import java.util.Date;
+
+import entity.GeoImage;
+
+/**
+ * @see
+ * GeoImageQuery holds the criteria of a page of images of an intervention, newest first
+ * The page starts after the cursor, made of the date and the id of the last image read
+ */
+public class GeoImageQuery {
+    private static final char CURSOR_SEPARATOR = '_';
+
+    private long interventionId;
+    private Date since;
+    private Date until;
+    private Date beforeDate;
+    private long beforeId;
+    private Date afterDate;
+    private long afterId;
+    private int limit;
+
+    /**
+     * @param image last image of a page
+     * @return cursor of the next page
+     */
+    public static String cursorOf(GeoImage image) {
+        return image.getDate().getTime() + "" + CURSOR_SEPARATOR + image.getId();
+    }
+
+    /**
+     * Start the page after the image identified by the cursor
+     * @param cursor cursor returned by cursorOf()
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public void setCursor(String cursor) {
+        long[] dateId = parseCursor(cursor);
+        beforeDate = new Date(dateId[0]);
+        beforeId = dateId[1];
+    }
+
+    /**
+     * Only the images newer than the one identified by the cursor, the newest image already seen by a client :
+     * unlike since, the images taken in the same millisecond are not skipped
+     * @param cursor cursor returned by cursorOf()
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public void setAfter(String cursor) {
+        long[] dateId = parseCursor(cursor);
+        afterDate = new Date(dateId[0]);
+        afterId = dateId[1];
+    }
+
+    private static long[] parseCursor(String cursor) {
+        int separator = cursor.indexOf(CURSOR_SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor " + cursor);
+        }
+        try {
+            return new long[] {Long.parseLong(cursor.substring(0, separator)), Long.parseLong(cursor.substring(separator + 1))};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor " + cursor, e);
+        }
+    }
+
+    public long getInterventionId() {
+        return interventionId;
+    }
+
+    public void setInterventionId(long interventionId) {
+        this.interventionId = interventionId;
+    }
+
+    /**
+     * @return only images taken after this date (excluded), the newest image already seen by a client
+     */
+    public Date getSince() {
+        return since;
+    }
+
+    public void setSince(Date since) {
+        this.since = since;
+    }
+
+    /**
+     * @return only images taken until this date (included)
+     */
+    public Date getUntil() {
+        return until;
+    }
+
+    public void setUntil(Date until) {
+        this.until = until;
+    }
+
+    public Date getBeforeDate() {
+        return beforeDate;
+    }
+
+    public long getBeforeId() {
+        return beforeId;
+    }
+
+    public Date getAfterDate() {
+        return afterDate;
+    }
+
+    public long getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * @return maximum number of images, 0 for no limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
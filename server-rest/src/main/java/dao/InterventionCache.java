@@ -0,0 +1,170 @@
+package dao;
+
+import org.apache.log4j.Logger;
+import org.bson.BsonDocument;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import dao.codec.EntityCodecs;
+import entity.Intervention;
+import util.Configuration;
+
+/**
+ * @see
+ * InterventionCache keeps the last read or written interventions, by id, in front of the database
+ * It is bounded in size (least recently used first out) and in time, the entries expire after a TTL
+ * so that writes made by another server are seen. The write methods of InterventionDAO update it in place.
+ * The interventions are kept encoded by their codec : the intervention cached is a copy of the one given,
+ * and every reader gets its own copy, free to modify it.
+ */
+public class InterventionCache {
+    private static final Logger LOGGER = Logger.getLogger(InterventionCache.class);
+    private static final InterventionCache INSTANCE = new InterventionCache();
+
+    private static final int DEFAULT_SIZE = 1000;
+    private static final int DEFAULT_TTL = 30000;
+
+    /**
+     * Intervention of the cache, with the date it was written if it is known
+     */
+    public static class CachedIntervention {
+        private final long id;
+        private final long version;
+        private final BsonDocument document;
+        private final Date lastModified;
+        private final long expiresAt;
+
+        CachedIntervention(Intervention intervention, Date lastModified, long expiresAt) {
+            this.id = intervention.getId();
+            this.version = intervention.getVersion();
+            this.document = EntityCodecs.encode(intervention);
+            this.lastModified = lastModified == null ? null : new Date(lastModified.getTime());
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return new copy of the cached intervention
+         */
+        public Intervention getIntervention() {
+            return EntityCodecs.decode(Intervention.class, document);
+        }
+
+        public Date getLastModified() {
+            return lastModified == null ? null : new Date(lastModified.getTime());
+        }
+
+        public EntityVersion getVersion() {
+            return new EntityVersion(id, version, getLastModified());
+        }
+    }
+
+    private final int maxSize;
+    private final long ttl;
+    private final LinkedHashMap<Long, CachedIntervention> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    protected InterventionCache() {
+        this(Configuration.parseInt(Configuration.getINTERVENTION_CACHE_SIZE(), DEFAULT_SIZE),
+                Configuration.parseInt(Configuration.getINTERVENTION_CACHE_TTL(), DEFAULT_TTL));
+    }
+
+    /**
+     * @param maxSize maximum number of interventions
+     * @param ttl time to live of an intervention, in milliseconds
+     */
+    InterventionCache(final int maxSize, long ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        entries = new LinkedHashMap<Long, CachedIntervention>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedIntervention> eldest) {
+                if (size() > maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        LOGGER.info("Intervention cache of " + maxSize + " entries, expiring after " + ttl + " ms");
+    }
+
+    public static InterventionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param id id of the intervention
+     * @return entry, null if the intervention is not cached or expired
+     */
+    public synchronized CachedIntervention get(long id) {
+        CachedIntervention entry = entries.get(id);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(id);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry;
+    }
+
+    /**
+     * Cache an intervention just read or written
+     * A newer version already cached is kept, when writes end in another order than they were made
+     * @param intervention intervention, copied
+     * @param lastModified date it was written, or null
+     * @return entry cached for the intervention
+     */
+    synchronized CachedIntervention put(Intervention intervention, Date lastModified) {
+        CachedIntervention existing = entries.get(intervention.getId());
+        long now = System.currentTimeMillis();
+        if (existing != null && existing.expiresAt > now
+                && existing.version > intervention.getVersion()) {
+            return existing;
+        }
+        CachedIntervention entry = new CachedIntervention(intervention, lastModified, now + ttl);
+        entries.put(intervention.getId(), entry);
+        return entry;
+    }
+
+    /**
+     * Forget an intervention
+     * @param id id of the intervention
+     */
+    synchronized void remove(long id) {
+        entries.remove(id);
+    }
+
+    /**
+     * Forget all the interventions
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return statistics on the use of the cache
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+        statistics.put("size", entries.size());
+        statistics.put("maxSize", maxSize);
+        statistics.put("ttl", ttl);
+        statistics.put("hits", hits);
+        statistics.put("misses", misses);
+        statistics.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        statistics.put("evictions", evictions);
+        statistics.put("expirations", expirations);
+        return statistics;
+    }
+}
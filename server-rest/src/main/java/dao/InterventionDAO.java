@@ -1,22 +1,74 @@
 package dao;
 
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.Block;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+
+import org.apache.log4j.Logger;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
 import org.bson.Document;
 
-import java.text.SimpleDateFormat;
+import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
-import entity.DisasterCode;
+import dao.codec.EntityCodecs;
 import entity.Intervention;
+import entity.Mean;
+import entity.MeanState;
+import entity.Position;
 import util.Constant;
+import util.Datetime;
 import util.Tools;
 
 /**
  * @author  alban
- * @see InterventionDAO implements these abstract methods for Intervention transformation
+ * @see InterventionDAO stores the interventions, read and written by InterventionCodec
  */
 public class InterventionDAO extends AbstractDAO<Intervention> {
+    private static final Logger LOGGER = Logger.getLogger(InterventionDAO.class);
+
+    /**
+     * Number of attempts of modify() before giving up on a conflict
+     */
+    private static final int MAX_MODIFY_ATTEMPTS = 5;
+
+    /**
+     * BSON type of strings, for $type
+     */
+    private static final int BSON_STRING_TYPE = 2;
+
+    /**
+     * Fields of the means left out of the summary of an intervention :
+     * only the id and the state of each mean are kept, to count the means requested
+     */
+    private static final String[] SUMMARY_EXCLUDED_MEAN_FIELDS = {"name", "inPosition", "vehicle", "type", "coordinates",
+            "location", "dateRequested", "dateActivated", "dateArrived", "dateEngaged", "dateReleased", "dateRefused"};
+
+    /**
+     * Modification applied to an intervention by modify()
+     * It may be applied several times, on a fresh copy, when concurrent writes happen
+     */
+    public interface Modification {
+        void apply(Intervention intervention);
+    }
+
+    private final InterventionCache cache = InterventionCache.getInstance();
 
     /**
      * Contructor InterventionDAO
@@ -24,52 +76,546 @@ public class InterventionDAO extends AbstractDAO<Intervention> {
     public InterventionDAO()
     {
         this.datatype = Constant.DATATYPE_INTERVENTION;
+        this.entityClass = Intervention.class;
     }
 
+    /**
+     * The compare and set reads the number of documents matched : the writes are always acknowledged
+     */
     @Override
-    protected Intervention documentToEntity(Document document) {
-        if(document==null)
-        {
+    protected WriteConcern writeConcern() {
+        return acknowledged(super.writeConcern());
+    }
+
+    /**
+     * Read only the version of an intervention
+     * @param id id of the intervention
+     * @return version, null if the intervention does not exist
+     */
+    public EntityVersion getVersion(long id) {
+        BasicDBObject projection = new BasicDBObject("version", 1);
+        projection.put("lastModified", 1);
+        Document document = (Document) collection.find(new BasicDBObject("_id", id)).projection(projection).first();
+        if (document == null) {
             return null;
         }
-        Intervention intervention = new Intervention();
+        long version = document.get("version") == null ? 0 : ((Number) document.get("version")).longValue();
+        return new EntityVersion(id, version, document.getDate("lastModified"));
+    }
+
+    /**
+     * Read a date stored natively, or as a string by older versions of the server until it is migrated
+     * @param value stored value
+     * @return date
+     * @throws ParseException if the string is not a date
+     */
+    private static Date readDate(Object value) throws ParseException {
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        if (value instanceof String) {
+            return Datetime.parseLegacyDate((String) value);
+        }
+        throw new ParseException("No date in " + value, 0);
+    }
+
+    /**
+     * Rewrite the creation dates stored as strings as native dates
+     * A document is only rewritten if its date was not changed meanwhile, so it can run while the server is used
+     * @return number of migrated interventions
+     */
+    public long migrateLegacyDates() {
+        BasicDBObject legacy = new BasicDBObject("dateCreate", new BasicDBObject("$type", BSON_STRING_TYPE));
+        FindIterable findIterable = collection.find(legacy).projection(new BasicDBObject("dateCreate", 1));
+        final List<Document> documents = new ArrayList<Document>();
+        findIterable.forEach(new Block<Document>() {
+            @Override
+            public void apply(final Document document) {
+                documents.add(document);
+            }
+        });
+
+        long migrated = 0;
+        for (Document document : documents) {
+            String legacyDate = document.getString("dateCreate");
+            Date date;
+            try {
+                date = readDate(legacyDate);
+            } catch (ParseException e) {
+                LOGGER.warn("Intervention " + document.get("_id") + " has an invalid date " + legacyDate, e);
+                continue;
+            }
+            BasicDBObject filter = new BasicDBObject("_id", document.get("_id"));
+            filter.put("dateCreate", legacyDate);
+            migrated += collection.updateOne(filter, new Document("$set", new Document("dateCreate", date))).getMatchedCount();
+        }
+        return migrated;
+    }
+
+    /**
+     * Add the GeoJSON locations of the intervention and of its means to the interventions
+     * written by older versions of the server
+     * @return number of migrated interventions
+     */
+    public long migrateLocations() {
+        BasicDBObject legacy = new BasicDBObject("location", new BasicDBObject("$exists", false));
+        BasicDBObject projection = new BasicDBObject("coordinates", 1);
+        projection.put("meansList.coordinates", 1);
+        FindIterable findIterable = collection.find(legacy).projection(projection);
+        final List<Document> documents = new ArrayList<Document>();
+        findIterable.forEach(new Block<Document>() {
+            @Override
+            public void apply(final Document document) {
+                documents.add(document);
+            }
+        });
+
+        long migrated = 0;
+        for (Document document : documents) {
+            Document set = new Document("location",
+                    Tools.positionToGeoJsonPoint(Tools.arrayListToPosition((ArrayList) document.get("coordinates"))));
+            List<Document> means = (List<Document>) document.get("meansList");
+            if (means != null) {
+                for (int i = 0; i < means.size(); i++) {
+                    set.put("meansList." + i + ".location",
+                            Tools.positionToGeoJsonPoint(Tools.arrayListToPosition((ArrayList) means.get(i).get("coordinates"))));
+                }
+            }
+            // a document written meanwhile already has its locations
+            BasicDBObject filter = new BasicDBObject("_id", document.get("_id"));
+            filter.put("location", new BasicDBObject("$exists", false));
+            migrated += collection.updateOne(filter, new Document("$set", set)).getMatchedCount();
+        }
+        return migrated;
+    }
+
+    /**
+     * Interventions near of a position, nearest first
+     * @param latitude latitude of the position
+     * @param longitude longitude of the position
+     * @param maxDistance distance in meters
+     * @param limit maximum number of interventions
+     * @return interventions
+     */
+    public List<Intervention> findNear(double latitude, double longitude, int maxDistance, int limit) {
+        return entityCollection.find(Tools.nearCriteria("location", new Position(longitude, latitude), maxDistance)).limit(limit)
+                .into(new ArrayList<Intervention>());
+    }
+
+    /**
+     * Interventions with at least one mean placed within a circle
+     * @param latitude latitude of the center
+     * @param longitude longitude of the center
+     * @param radius radius in meters
+     * @return interventions
+     */
+    public List<Intervention> findWithMeansWithin(double latitude, double longitude, double radius) {
+        return entityCollection.find(Tools.withinCriteria("meansList.location", new Position(longitude, latitude), radius))
+                .into(new ArrayList<Intervention>());
+    }
+
+    /**
+     * Find a page of interventions, newest first
+     * Filtering, sorting and paging are done by the database on the dateCreate index
+     * @param query criteria of the page
+     * @return interventions of the page
+     */
+    public List<Intervention> find(InterventionQuery query) {
+        BasicDBObject filter = new BasicDBObject();
+        if (query.getDisasterCode() != null) {
+            filter.put("disasterCode", query.getDisasterCode().toString());
+        }
+        if (query.getMeanState() != null) {
+            filter.put("meansList.meanState", query.getMeanState().toString());
+        }
+        BasicDBObject dateRange = new BasicDBObject();
+        if (query.getFrom() != null) {
+            dateRange.put("$gte", query.getFrom());
+        }
+        if (query.getTo() != null) {
+            dateRange.put("$lt", query.getTo());
+        }
+        if (!dateRange.isEmpty()) {
+            filter.put("dateCreate", dateRange);
+        }
+        if (query.getBeforeDate() != null) {
+            // same date as the cursor : the id breaks the tie
+            BasicDBObject sameDate = new BasicDBObject("dateCreate", query.getBeforeDate());
+            sameDate.put("_id", new BasicDBObject("$lt", query.getBeforeId()));
+            BasicDBList after = new BasicDBList();
+            after.add(new BasicDBObject("dateCreate", new BasicDBObject("$lt", query.getBeforeDate())));
+            after.add(sameDate);
+            filter.put("$or", after);
+        }
+
+        BasicDBObject sort = new BasicDBObject("dateCreate", -1);
+        sort.put("_id", -1);
+        FindIterable<Intervention> findIterable = entityCollection.find(filter).sort(sort);
+        if (query.getLimit() > 0) {
+            findIterable = findIterable.limit(query.getLimit());
+        }
+        if (query.isSummary()) {
+            BasicDBObject projection = new BasicDBObject();
+            for (String field : SUMMARY_EXCLUDED_MEAN_FIELDS) {
+                projection.put("meansList." + field, 0);
+            }
+            findIterable = findIterable.projection(projection);
+        }
+
+        return findIterable.into(new ArrayList<Intervention>());
+    }
+
+    @Override
+    public void ensureIndex()
+    {
+        BasicDBObject newestFirst = new BasicDBObject("dateCreate", -1);
+        newestFirst.put("_id", -1);
+        collection.createIndex(newestFirst, new IndexOptions().background(true));
+        BasicDBObject byDisasterCode = new BasicDBObject("disasterCode", 1);
+        byDisasterCode.put("dateCreate", -1);
+        collection.createIndex(byDisasterCode, new IndexOptions().background(true));
+        collection.createIndex(new BasicDBObject("location", "2dsphere"), new IndexOptions().background(true));
+        collection.createIndex(new BasicDBObject("meansList.location", "2dsphere"), new IndexOptions().background(true));
+    }
+
+    /**
+     * Update the intervention only if it was not modified since it was read (same version)
+     * @param e intervention to update
+     * @return updated intervention
+     * @throws ConcurrentUpdateException if the intervention was modified or deleted meanwhile
+     */
+    @Override
+    public Intervention update(Intervention e) {
+        Date lastModified = compareAndSet(e);
+        if (lastModified == null) {
+            throw new ConcurrentUpdateException("Intervention " + e.getId() + " was modified by another request");
+        }
+        cache.put(e, lastModified);
+        return e;
+    }
+
+    /**
+     * Create the intervention and cache it
+     * @param e intervention to create
+     * @return created intervention
+     */
+    @Override
+    public Intervention create(Intervention e) {
+        Intervention created = super.create(e);
+        if (created != null) {
+            cache.put(created, null);
+        }
+        return created;
+    }
+
+    /**
+     * Create the interventions in bulk, they are cached when read
+     * @param entities interventions to create
+     * @return number of created interventions
+     */
+    @Override
+    public int createAll(List<Intervention> entities) {
         try {
-        	SimpleDateFormat formatter = new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US);
-            intervention.setDateCreate(formatter.parse(document.getString("dateCreate")));
-            intervention.setLabel(document.getString("label"));
-            intervention.setId(document.getLong("_id"));
-            intervention.setAddress(document.getString("address"));
-            intervention.setPostcode(document.getString("postcode"));
-            intervention.setCity(document.getString("city"));
-            intervention.setDisasterCode(DisasterCode.valueOf(document.getString("disasterCode")));
-            intervention.setMeansList(Tools.documentListToMeanList(((List<Document>) document.get("meansList"))));
-            intervention.setCoordinates(Tools.arrayListToPosition((ArrayList) document.get("coordinates")));
+            return super.createAll(entities);
+        } finally {
+            for (Intervention e : entities) {
+                cache.remove(e.getId());
+            }
         }
-        catch(Throwable t)
-        {
-            t.printStackTrace();
-            intervention = null;
+    }
+
+    /**
+     * Create or replace the interventions in bulk, without checking their version
+     * The version is incremented as by compareAndSet, so that the readers holding the previous one see the change
+     * @param entities interventions to write
+     * @return number of interventions created or replaced
+     */
+    @Override
+    public int upsertAll(List<Intervention> entities) {
+        try {
+            int batchSize = bulkBatchSize();
+            int written = 0;
+            for (int from = 0; from < entities.size(); from += batchSize) {
+                List<Intervention> batch = entities.subList(from, Math.min(from + batchSize, entities.size()));
+                List<WriteModel<BsonDocument>> writes = new ArrayList<WriteModel<BsonDocument>>(batch.size());
+                for (Intervention e : batch) {
+                    BsonDocument set = EntityCodecs.encode(e);
+                    set.remove("_id");
+                    set.remove("version");
+                    BsonDocument update = new BsonDocument("$set", set);
+                    update.put("$inc", new BsonDocument("version", new BsonInt64(1)));
+                    writes.add(new UpdateOneModel<BsonDocument>(new BasicDBObject("_id", e.getId()), update, new UpdateOptions().upsert(true)));
+                }
+                BulkWriteResult result = documents().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+                written += result.getMatchedCount() + result.getUpserts().size();
+            }
+            return written;
+        } finally {
+            for (Intervention e : entities) {
+                cache.remove(e.getId());
+            }
         }
-        return intervention;
     }
 
+    /**
+     * Same collection, its documents read and written as they are encoded by the codecs,
+     * for the writes which also need the date of last modification written by InterventionCodec
+     */
+    private MongoCollection<BsonDocument> documents() {
+        return entityCollection.withDocumentClass(BsonDocument.class);
+    }
+
+    /**
+     * Delete the intervention and forget it in the cache
+     * @param e intervention to delete
+     */
     @Override
-    protected Document entityToDocument(Intervention entity) {
-        if(entity==null)
-        {
+    public void delete(Intervention e) {
+        super.delete(e);
+        cache.remove(e.getId());
+    }
+
+    /**
+     * Read an intervention from the cache, or from the database on a miss
+     * The intervention is a copy of the cached one, use modify() to write it
+     * @param id id of the intervention
+     * @return intervention, null if it does not exist
+     */
+    public Intervention getCached(long id) {
+        InterventionCache.CachedIntervention entry = cache.get(id);
+        if (entry == null) {
+            entry = load(id);
+        }
+        return entry == null ? null : entry.getIntervention();
+    }
+
+    /**
+     * @param id id of the intervention
+     * @return intervention in the cache, null if it is not cached
+     */
+    public InterventionCache.CachedIntervention findCached(long id) {
+        return cache.get(id);
+    }
+
+    /**
+     * Read an intervention from the database and cache it
+     * @param id id of the intervention
+     * @return cached intervention, null if it does not exist
+     */
+    public InterventionCache.CachedIntervention load(long id) {
+        BsonDocument document = documents().find(new BasicDBObject("_id", id)).first();
+        if (document == null) {
+            return null;
+        }
+        Intervention intervention = EntityCodecs.decode(Intervention.class, document);
+        BsonDateTime lastModified = document.getDateTime("lastModified");
+        return cache.put(intervention, lastModified == null ? null : new Date(lastModified.getValue()));
+    }
+
+    /**
+     * Read, modify and write back an intervention, retrying on concurrent writes
+     * Writes on different interventions never wait for each other
+     * @param id id of the intervention
+     * @param modification modification to apply
+     * @return the modified intervention, null if it does not exist
+     * @throws ConcurrentUpdateException if every attempt conflicted with another write
+     */
+    public Intervention modify(long id, Modification modification) {
+        for (int attempt = 0; attempt < MAX_MODIFY_ATTEMPTS; attempt++) {
+            Intervention intervention = getById(id);
+            if (intervention == null) {
+                return null;
+            }
+            modification.apply(intervention);
+            Date lastModified = compareAndSet(intervention);
+            if (lastModified != null) {
+                cache.put(intervention, lastModified);
+                return intervention;
+            }
+        }
+        throw new ConcurrentUpdateException("Intervention " + id + " is modified too often, retry later");
+    }
+
+    /**
+     * Replace the document if its version is still the one of the entity, and increment the version
+     * @param e intervention to write
+     * @return date of the write, null if the stored version changed
+     */
+    private Date compareAndSet(Intervention e) {
+        long expectedVersion = e.getVersion();
+        BasicDBObject filter = new BasicDBObject("_id", e.getId());
+        if (expectedVersion == 0) {
+            // documents written before versioning have no version field
+            filter.put("version", new BasicDBObject("$in", Arrays.asList(0L, null)));
+        } else {
+            filter.put("version", expectedVersion);
+        }
+
+        e.setVersion(expectedVersion + 1);
+        BsonDocument document = EntityCodecs.encode(e);
+        if (documents().replaceOne(filter, document).getMatchedCount() == 1) {
+            return new Date(document.getDateTime("lastModified").getValue());
+        }
+        e.setVersion(expectedVersion);
+        return null;
+    }
+
+    /**
+     * Activate a mean requested for the intervention (REQUESTED -> ACTIVATED)
+     * @param interventionId id of the intervention
+     * @param meanId id of the mean
+     * @param name name given to the mean by the Codis
+     * @return the updated mean, null if the mean is not requested
+     */
+    public Mean activateMean(long interventionId, long meanId, String name) {
+        Document set = new Document("meanState", MeanState.ACTIVATED.toString());
+        set.put("dateActivated", Datetime.getCurrentDate());
+        set.put("name", name);
+        return updateMean(interventionId, meanId, meanInStates(meanId, MeanState.REQUESTED), set);
+    }
+
+    /**
+     * Refuse a mean requested for the intervention (REQUESTED -> REFUSED)
+     * @param interventionId id of the intervention
+     * @param meanId id of the mean
+     * @return the updated mean, null if the mean is not requested
+     */
+    public Mean refuseMean(long interventionId, long meanId) {
+        Document set = new Document("meanState", MeanState.REFUSED.toString());
+        set.put("dateRefused", Datetime.getCurrentDate());
+        return updateMean(interventionId, meanId, meanInStates(meanId, MeanState.REQUESTED), set);
+    }
+
+    /**
+     * Confirm the arrival of a mean at the CRM (ACTIVATED -> ARRIVED)
+     * @param interventionId id of the intervention
+     * @param meanId id of the mean
+     * @return the updated mean, null if the mean is not activated
+     */
+    public Mean confirmMeanArrival(long interventionId, long meanId) {
+        Document set = new Document("meanState", MeanState.ARRIVED.toString());
+        set.put("dateArrived", Datetime.getCurrentDate());
+        return updateMean(interventionId, meanId, meanInStates(meanId, MeanState.ACTIVATED), set);
+    }
+
+    /**
+     * Engage a mean at a position (ARRIVED or ENGAGED -> ENGAGED)
+     * The engagement date is only set the first time the mean is engaged
+     * @param interventionId id of the intervention
+     * @param meanId id of the mean
+     * @param coordinates position of the mean
+     * @return the updated mean, null if the mean is neither arrived nor engaged
+     */
+    public Mean engageMean(long interventionId, long meanId, Position coordinates) {
+        Document set = new Document("meanState", MeanState.ENGAGED.toString());
+        set.put("coordinates", Tools.positionToBasicDBList(coordinates));
+        set.put("location", Tools.positionToGeoJsonPoint(coordinates));
+        set.put("inPosition", false);
+
+        BasicDBObject neverEngaged = meanInStates(meanId, MeanState.ARRIVED, MeanState.ENGAGED);
+        neverEngaged.put("dateEngaged", null);
+        Document firstSet = new Document(set);
+        firstSet.put("dateEngaged", Datetime.getCurrentDate());
+        Mean res = updateMean(interventionId, meanId, neverEngaged, firstSet);
+        if (res == null) {
+            res = updateMean(interventionId, meanId, meanInStates(meanId, MeanState.ARRIVED, MeanState.ENGAGED), set);
+        }
+        return res;
+    }
+
+    /**
+     * Validate that an engaged mean is in position
+     * @param interventionId id of the intervention
+     * @param meanId id of the mean
+     * @return the updated mean, null if the mean is not engaged
+     */
+    public Mean validateMeanPosition(long interventionId, long meanId) {
+        Document set = new Document("inPosition", true);
+        return updateMean(interventionId, meanId, meanInStates(meanId, MeanState.ENGAGED), set);
+    }
+
+    /**
+     * Send an engaged mean back to the CRM (ENGAGED -> ARRIVED)
+     * @param interventionId id of the intervention
+     * @param meanId id of the mean
+     * @return the updated mean, null if the mean is not engaged
+     */
+    public Mean sendMeanBackToCRM(long interventionId, long meanId) {
+        Document set = new Document("meanState", MeanState.ARRIVED.toString());
+        set.put("coordinates", Tools.positionToBasicDBList(new Position(Double.NaN, Double.NaN, Double.NaN)));
+        set.put("location", null);
+        set.put("inPosition", false);
+        return updateMean(interventionId, meanId, meanInStates(meanId, MeanState.ENGAGED), set);
+    }
+
+    /**
+     * Release a mean of the intervention (ACTIVATED, ARRIVED or ENGAGED -> RELEASED)
+     * @param interventionId id of the intervention
+     * @param meanId id of the mean
+     * @param coordinates last position of the mean
+     * @return the updated mean, null if the mean cannot be released
+     */
+    public Mean releaseMean(long interventionId, long meanId, Position coordinates) {
+        Document set = new Document("meanState", MeanState.RELEASED.toString());
+        set.put("coordinates", Tools.positionToBasicDBList(coordinates));
+        set.put("location", Tools.positionToGeoJsonPoint(coordinates));
+        set.put("dateReleased", Datetime.getCurrentDate());
+        set.put("inPosition", false);
+        return updateMean(interventionId, meanId,
+                meanInStates(meanId, MeanState.ACTIVATED, MeanState.ENGAGED, MeanState.ARRIVED), set);
+    }
+
+    /**
+     * Criteria matching one mean of meansList when it is in one of the states
+     * @param meanId id of the mean
+     * @param states expected states of the mean
+     * @return criteria for $elemMatch
+     */
+    private BasicDBObject meanInStates(long meanId, MeanState... states) {
+        BasicDBList stateList = new BasicDBList();
+        for (MeanState state : states) {
+            stateList.add(state.toString());
+        }
+        BasicDBObject criteria = new BasicDBObject("_id", meanId);
+        criteria.put("meanState", new BasicDBObject("$in", stateList));
+        return criteria;
+    }
+
+    /**
+     * Update fields of one mean of meansList with a positional $set, in a single round-trip
+     * The update is applied only if the mean matches the criteria, so the state check and the write are atomic
+     * Only the updated mean is returned, the cached intervention is forgotten
+     * @param interventionId id of the intervention
+     * @param meanId id of the mean
+     * @param meanCriteria criteria the mean must match
+     * @param set fields of the mean to set
+     * @return the updated mean, null if no mean matched
+     */
+    private Mean updateMean(long interventionId, long meanId, BasicDBObject meanCriteria, Document set) {
+        BasicDBObject filter = new BasicDBObject("_id", interventionId);
+        filter.put("meansList", new BasicDBObject("$elemMatch", meanCriteria));
+
+        Document positionalSet = new Document();
+        for (String field : set.keySet()) {
+            positionalSet.put("meansList.$." + field, set.get(field));
+        }
+        positionalSet.put("lastModified", Datetime.getCurrentDate());
+        Document update = new Document("$set", positionalSet);
+        update.put("$inc", new Document("version", 1L));
+
+        FindOneAndUpdateOptions options = new FindOneAndUpdateOptions()
+                .projection(new BasicDBObject("meansList", new BasicDBObject("$elemMatch", new BasicDBObject("_id", meanId))))
+                .returnDocument(ReturnDocument.AFTER);
+        Intervention projected = entityCollection.findOneAndUpdate(filter, update, options);
+        if (projected == null) {
+            return null;
+        }
+        // the next read of the intervention gets the new version from the database
+        cache.remove(interventionId);
+        List<Mean> means = projected.getMeansList();
+        if (means == null || means.isEmpty()) {
             return null;
         }
-        Document document = new Document();
-        document.put("dateCreate", entity.getDateCreate().toString());
-        document.put("label", entity.getLabel());
-        document.put("address", entity.getAddress());
-        document.put("city", entity.getCity());
-        document.put("postcode", entity.getPostcode());
-        document.put("disasterCode", entity.getDisasterCode().toString());
-        document.put("meansList",Tools.meanListToBasicDBList(entity.getMeansList()));
-        document.put("type", "Point");
-        document.put("coordinates", Tools.positionToBasicDBList(entity.getCoordinates()));
-        document.put("_id", entity.getId());
-        return document;
+        return means.get(0);
     }
 }
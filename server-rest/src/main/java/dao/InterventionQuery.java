@@ -0,0 +1,116 @@
+package dao;
+
+import java.util.Date;
+
+import entity.DisasterCode;
+import entity.Intervention;
+import entity.MeanState;
+
+/**
+ * @see
+ * InterventionQuery holds the criteria of a page of interventions, newest first
+ * The page starts after the cursor, made of the creation date and the id of the last intervention read
+ */
+public class InterventionQuery {
+    private static final char CURSOR_SEPARATOR = '_';
+
+    private DisasterCode disasterCode;
+    private MeanState meanState;
+    private Date from;
+    private Date to;
+    private Date beforeDate;
+    private long beforeId;
+    private int limit;
+    private boolean summary;
+
+    /**
+     * @param intervention last intervention of a page
+     * @return cursor of the next page
+     */
+    public static String cursorOf(Intervention intervention) {
+        return intervention.getDateCreate().getTime() + "" + CURSOR_SEPARATOR + intervention.getId();
+    }
+
+    /**
+     * Start the page after the intervention identified by the cursor
+     * @param cursor cursor returned by cursorOf()
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public void setCursor(String cursor) {
+        int separator = cursor.indexOf(CURSOR_SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor " + cursor);
+        }
+        try {
+            beforeDate = new Date(Long.parseLong(cursor.substring(0, separator)));
+            beforeId = Long.parseLong(cursor.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor " + cursor, e);
+        }
+    }
+
+    public DisasterCode getDisasterCode() {
+        return disasterCode;
+    }
+
+    public void setDisasterCode(DisasterCode disasterCode) {
+        this.disasterCode = disasterCode;
+    }
+
+    /**
+     * @return state of at least one mean of the interventions
+     */
+    public MeanState getMeanState() {
+        return meanState;
+    }
+
+    public void setMeanState(MeanState meanState) {
+        this.meanState = meanState;
+    }
+
+    public Date getFrom() {
+        return from;
+    }
+
+    public void setFrom(Date from) {
+        this.from = from;
+    }
+
+    public Date getTo() {
+        return to;
+    }
+
+    public void setTo(Date to) {
+        this.to = to;
+    }
+
+    public Date getBeforeDate() {
+        return beforeDate;
+    }
+
+    public long getBeforeId() {
+        return beforeId;
+    }
+
+    /**
+     * @return maximum number of interventions, 0 for no limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * @return true to leave the dates and positions of the means out
+     */
+    public boolean isSummary() {
+        return summary;
+    }
+
+    public void setSummary(boolean summary) {
+        this.summary = summary;
+    }
+}
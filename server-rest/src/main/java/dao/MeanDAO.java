@@ -1,13 +1,11 @@
 package dao;
 
-import org.bson.Document;
 import util.Constant;
-import util.Tools;
 import entity.Mean;
 
 /**
  * @author arno
- * @see MeanDAO implements these abstract methods for Mean transformation
+ * @see MeanDAO stores the means, read and written by MeanCodec
  */
 public class MeanDAO extends AbstractDAO<Mean>{
 
@@ -17,15 +15,6 @@ public class MeanDAO extends AbstractDAO<Mean>{
     public MeanDAO()
     {
         this.datatype = Constant.DATATYPE_MEAN;
-    }
-
-    @Override
-    protected Mean documentToEntity(Document document) {
-        return Tools.documentToMean(document);
-    }
-
-    @Override
-    protected Document entityToDocument(Mean entity) {
-        return Tools.meanToDocument(entity);
+        this.entityClass = Mean.class;
     }
 }
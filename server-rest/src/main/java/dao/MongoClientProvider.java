@@ -0,0 +1,213 @@
+package dao;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoCredential;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.gridfs.GridFS;
+
+import org.apache.log4j.Logger;
+import org.bson.Document;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import util.Configuration;
+
+/**
+ * @see
+ * MongoClientProvider holds the single pooled MongoClient shared by every DAO.
+ * It is opened and closed with the web application by ProjetServletContextListener,
+ * and opened on first use when DAOs are used outside of the container (unit tests).
+ * DAOs borrow their collection on connect() and give it back on disconnect().
+ */
+public class MongoClientProvider {
+    private static final Logger LOGGER = Logger.getLogger(MongoClientProvider.class);
+    private static final MongoClientProvider INSTANCE = new MongoClientProvider();
+
+    private static final int DEFAULT_POOL_SIZE = 100;
+    private static final int DEFAULT_WAIT_QUEUE_MULTIPLE = 5;
+    private static final int DEFAULT_MAX_WAIT_TIME = 10000;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    private static final int DEFAULT_SOCKET_TIMEOUT = 30000;
+
+    /**
+     * Pools of connections of the driver, one by server, registered by its JMX ConnectionPoolListener :
+     * driver 3.0 has no option to add a ConnectionPoolListener of our own
+     */
+    private static final String POOL_MBEANS = "org.mongodb.driver:type=ConnectionPool,*";
+
+    private MongoClient mongoClient;
+    private MongoDatabase db;
+    private final Map<String, GridFS> gridFSBuckets = new HashMap<String, GridFS>();
+    private int poolSize;
+    private int waitQueueSize;
+
+    /**
+     * Number of DAOs currently between connect() and disconnect()
+     * A borrowed DAO holds no connection : the driver takes one from its pool for each operation only
+     */
+    private final AtomicInteger borrowed = new AtomicInteger();
+    private final AtomicInteger peakBorrowed = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowedOverPoolSizeCount = new AtomicLong();
+
+    protected MongoClientProvider() {
+    }
+
+    public static MongoClientProvider getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Open the pooled client, does nothing if it is already opened
+     */
+    public synchronized void open() {
+        if (mongoClient != null) {
+            return;
+        }
+        poolSize = Configuration.parseInt(Configuration.getMONGODB_POOL_SIZE(), DEFAULT_POOL_SIZE);
+        int waitQueueMultiple = Configuration.parseInt(Configuration.getMONGODB_WAIT_QUEUE_MULTIPLE(), DEFAULT_WAIT_QUEUE_MULTIPLE);
+        waitQueueSize = poolSize * waitQueueMultiple;
+
+        MongoClientOptions options = MongoClientOptions.builder()
+                .connectionsPerHost(poolSize)
+                .threadsAllowedToBlockForConnectionMultiplier(waitQueueMultiple)
+                .maxWaitTime(Configuration.parseInt(Configuration.getMONGODB_MAX_WAIT_TIME(), DEFAULT_MAX_WAIT_TIME))
+                .connectTimeout(Configuration.parseInt(Configuration.getMONGODB_CONNECT_TIMEOUT(), DEFAULT_CONNECT_TIMEOUT))
+                .socketTimeout(Configuration.parseInt(Configuration.getMONGODB_SOCKET_TIMEOUT(), DEFAULT_SOCKET_TIMEOUT))
+                .build();
+        ServerAddress address = new ServerAddress(Configuration.getMONGODB_HOSTNAME(), Integer.parseInt(Configuration.getMONGODB_PORT()));
+        String user = Configuration.getMONGODB_USER();
+        if (user == null || user.trim().isEmpty()) {
+            // local mongod without authentication (load tests, development)
+            mongoClient = new MongoClient(address, options);
+        } else {
+            String password = Configuration.getMONGODB_PWD();
+            MongoCredential credential = MongoCredential.createCredential(user, Configuration.getDATABASE_NAME(), password == null ? new char[0] : password.toCharArray());
+            mongoClient = new MongoClient(address, Arrays.asList(credential), options);
+        }
+        db = mongoClient.getDatabase(Configuration.getDATABASE_NAME());
+        LOGGER.info("Mongo client opened with a pool of " + poolSize + " connections");
+    }
+
+    /**
+     * Close the pooled client and all its connections
+     */
+    public synchronized void close() {
+        if (mongoClient != null) {
+            mongoClient.close();
+            mongoClient = null;
+            db = null;
+            gridFSBuckets.clear();
+            LOGGER.info("Mongo client closed");
+        }
+    }
+
+    /**
+     * Borrow a collection of the shared database, must be given back with release()
+     * @param name name of the collection
+     * @return collection
+     */
+    MongoCollection<Document> borrowCollection(String name) {
+        MongoDatabase database;
+        synchronized (this) {
+            if (mongoClient == null) {
+                open();
+            }
+            database = db;
+        }
+
+        int current = borrowed.incrementAndGet();
+        borrowCount.incrementAndGet();
+        if (current >= poolSize) {
+            borrowedOverPoolSizeCount.incrementAndGet();
+            LOGGER.warn(current + " DAOs borrowed for a pool of " + poolSize + " Mongo connections");
+        }
+        int peak = peakBorrowed.get();
+        while (current > peak && !peakBorrowed.compareAndSet(peak, current)) {
+            peak = peakBorrowed.get();
+        }
+        return database.getCollection(name);
+    }
+
+    /**
+     * GridFS bucket of the shared database, created once by bucket
+     * @param bucket name of the bucket
+     * @return bucket
+     */
+    // the legacy GridFS API of driver 3.0 needs a DB, only given by the deprecated getDB()
+    @SuppressWarnings("deprecation")
+    synchronized GridFS getGridFS(String bucket) {
+        if (mongoClient == null) {
+            open();
+        }
+        GridFS gridFS = gridFSBuckets.get(bucket);
+        if (gridFS == null) {
+            gridFS = new GridFS(mongoClient.getDB(Configuration.getDATABASE_NAME()), bucket);
+            gridFSBuckets.put(bucket, gridFS);
+        }
+        return gridFS;
+    }
+
+    /**
+     * Give back a collection borrowed with borrowCollection()
+     */
+    void release() {
+        borrowed.decrementAndGet();
+    }
+
+    /**
+     * @return statistics on the connections checked out of the pool of the driver and the threads waiting for one,
+     * and on the DAOs borrowed
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+        int current = borrowed.get();
+        statistics.put("opened", mongoClient != null);
+        statistics.put("poolSize", poolSize);
+        statistics.put("waitQueueSize", waitQueueSize);
+        putPoolStatistics(statistics);
+        statistics.put("borrowed", current);
+        statistics.put("peakBorrowed", peakBorrowed.get());
+        statistics.put("borrowCount", borrowCount.get());
+        statistics.put("borrowedOverPoolSizeCount", borrowedOverPoolSizeCount.get());
+        statistics.put("borrowedPerConnection", poolSize == 0 ? 0.0 : (double) current / poolSize);
+        return statistics;
+    }
+
+    /**
+     * Connections of the pools of the driver, summed over the servers : opened, checked out, and threads waiting for one
+     * All the clients of the JVM are counted, the server only has this one
+     */
+    private void putPoolStatistics(Map<String, Object> statistics) {
+        int connections = 0;
+        int checkedOut = 0;
+        int waiting = 0;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (ObjectName pool : server.queryNames(new ObjectName(POOL_MBEANS), null)) {
+                connections += ((Number) server.getAttribute(pool, "Size")).intValue();
+                checkedOut += ((Number) server.getAttribute(pool, "CheckedOutCount")).intValue();
+                waiting += ((Number) server.getAttribute(pool, "WaitQueueSize")).intValue();
+            }
+        } catch (JMException e) {
+            LOGGER.warn("Connection pool statistics of the driver not available", e);
+        }
+        statistics.put("connections", connections);
+        statistics.put("checkedOut", checkedOut);
+        statistics.put("waiting", waiting);
+        statistics.put("saturation", poolSize == 0 ? 0.0 : (double) checkedOut / poolSize);
+    }
+}
@@ -0,0 +1,99 @@
+package dao;
+
+import org.apache.log4j.Logger;
+
+/**
+ * @see
+ * StartupMigration builds the indexes and migrates once, in the background, the documents
+ * written by older versions of the server :
+ * creation dates of the interventions stored as strings, images stored inline instead of GridFS,
+ * interventions, means, images and topographic icons without a GeoJSON location
+ */
+public class StartupMigration implements Runnable {
+    private static final Logger LOGGER = Logger.getLogger(StartupMigration.class);
+
+    /**
+     * Start the migration in a background thread
+     */
+    public static void start() {
+        Thread thread = new Thread(new StartupMigration(), "startup-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        migrateInterventions();
+        migrateImages();
+        migrateIcons();
+        indexTracks();
+    }
+
+    private void migrateInterventions() {
+        InterventionDAO dao = new InterventionDAO();
+        try {
+            dao.connect();
+            dao.ensureIndex();
+            long migrated = dao.migrateLegacyDates();
+            if (migrated > 0) {
+                LOGGER.info(migrated + " intervention dates migrated to native dates");
+            }
+            migrated = dao.migrateLocations();
+            if (migrated > 0) {
+                LOGGER.info(migrated + " interventions located for geospatial queries");
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Migration of the intervention dates failed", e);
+        } finally {
+            dao.disconnect();
+        }
+    }
+
+    private void migrateImages() {
+        GeoImageDAO dao = new GeoImageDAO();
+        try {
+            dao.connect();
+            dao.ensureIndex();
+            long migrated = dao.migrateInlineImages();
+            if (migrated > 0) {
+                LOGGER.info(migrated + " images moved to GridFS");
+            }
+            migrated = dao.migrateLocations();
+            if (migrated > 0) {
+                LOGGER.info(migrated + " images located for geospatial queries");
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Migration of the images to GridFS failed", e);
+        } finally {
+            dao.disconnect();
+        }
+    }
+
+    private void migrateIcons() {
+        GeoIconDAO dao = new GeoIconDAO();
+        try {
+            dao.connect();
+            dao.ensureIndex();
+            long migrated = dao.migrateLocations();
+            if (migrated > 0) {
+                LOGGER.info(migrated + " topographic icons located for geospatial queries");
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Migration of the topographic icon locations failed", e);
+        } finally {
+            dao.disconnect();
+        }
+    }
+
+    private void indexTracks() {
+        TrackPointDAO dao = new TrackPointDAO();
+        try {
+            dao.connect();
+            dao.ensureIndex();
+        } catch (RuntimeException e) {
+            LOGGER.error("Indexes of the flight tracks failed", e);
+        } finally {
+            dao.disconnect();
+        }
+    }
+}
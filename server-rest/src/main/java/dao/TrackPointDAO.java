@@ -0,0 +1,85 @@
+package dao;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.model.IndexOptions;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import entity.TrackPoint;
+import util.Configuration;
+import util.Constant;
+
+/**
+ * @see
+ * TrackPointDAO stores the flight tracks of the drones, one document by position.
+ * The positions expire after TRACK_TTL seconds ; they are written in bulk by TrackRecorder,
+ * with the write concern TRACK_WRITE_CONCERN, a lost position only makes the track a bit coarser.
+ */
+public class TrackPointDAO extends AbstractDAO<TrackPoint> {
+
+    /**
+     * Most positions read for one track, before downsampling
+     */
+    public static final int MAX_TRACK_POINTS = 100000;
+
+    private static final long DEFAULT_TTL = 7 * 24 * 3600;
+
+    public TrackPointDAO() {
+        this.datatype = Constant.DATATYPE_TRACK;
+        this.entityClass = TrackPoint.class;
+    }
+
+    @Override
+    protected WriteConcern writeConcern() {
+        return parseWriteConcern(Configuration.getTRACK_WRITE_CONCERN());
+    }
+
+    /**
+     * Positions of a drone, in the order of the flight
+     * @param interventionId intervention flown over, null for all of them
+     * @param from first date, null for the oldest position kept
+     * @param to last date, null for the latest position
+     * @param limit most positions read, MAX_TRACK_POINTS at most
+     * @return the last positions of the period, the current flight is never cut off
+     */
+    public List<TrackPoint> findTrack(String droneId, Long interventionId, Date from, Date to, int limit) {
+        BasicDBObject filter = new BasicDBObject("droneId", droneId);
+        if (interventionId != null) {
+            filter.put("interventionId", interventionId);
+        }
+        BasicDBObject dateRange = new BasicDBObject();
+        if (from != null) {
+            dateRange.put("$gte", from);
+        }
+        if (to != null) {
+            dateRange.put("$lte", to);
+        }
+        if (!dateRange.isEmpty()) {
+            filter.put("date", dateRange);
+        }
+        // the latest positions first, so that the limit drops the oldest ones
+        BasicDBObject sort = new BasicDBObject("date", -1);
+        sort.put("_id", -1);
+        List<TrackPoint> track = entityCollection.find(filter).sort(sort)
+                .limit(Math.min(limit, MAX_TRACK_POINTS)).into(new ArrayList<TrackPoint>());
+        Collections.reverse(track);
+        return track;
+    }
+
+    @Override
+    public void ensureIndex()
+    {
+        BasicDBObject byDrone = new BasicDBObject("droneId", 1);
+        byDrone.put("date", 1);
+        byDrone.put("_id", 1);
+        collection.createIndex(byDrone, new IndexOptions().background(true));
+        long ttl = Configuration.parseInt(Configuration.getTRACK_TTL(), (int) DEFAULT_TTL);
+        collection.createIndex(new BasicDBObject("date", 1), new IndexOptions().background(true).expireAfter(ttl, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,184 @@
+package dao.codec;
+
+import org.apache.log4j.Logger;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+
+import java.text.ParseException;
+import java.util.Date;
+
+import entity.Position;
+import util.Datetime;
+
+/**
+ * @see
+ * BsonFields reads and writes the fields shared by the entity codecs, with the layout of the DAO documents :
+ * positions as [latitude, longitude, altitude] arrays, GeoJSON points for the 2dsphere indexes,
+ * nullable strings and dates, numbers stored as int or long by older versions of the server
+ */
+public final class BsonFields {
+    private static final Logger LOGGER = Logger.getLogger(BsonFields.class);
+
+    private BsonFields() {
+    }
+
+    public static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.STRING) {
+            return reader.readString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    /**
+     * @return the number, whatever its BSON type, null if it is not a number
+     */
+    public static Long readLong(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT64:
+                return reader.readInt64();
+            case INT32:
+                return (long) reader.readInt32();
+            case DOUBLE:
+                return (long) reader.readDouble();
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    /**
+     * @return the number, whatever its BSON type, NaN if it is not a number
+     */
+    public static double readDouble(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case DOUBLE:
+                return reader.readDouble();
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return reader.readInt64();
+            default:
+                reader.skipValue();
+                return Double.NaN;
+        }
+    }
+
+    public static Boolean readBoolean(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.BOOLEAN) {
+            return reader.readBoolean();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    /**
+     * Read a date stored natively, or as a string by older versions of the server
+     * @return date, null if there is no date or if the string is not a date (logged)
+     */
+    public static Date readDate(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case DATE_TIME:
+                return new Date(reader.readDateTime());
+            case STRING:
+                String name = reader.getCurrentName();
+                String value = reader.readString();
+                try {
+                    return Datetime.parseLegacyDate(value);
+                } catch (ParseException e) {
+                    LOGGER.warn("Invalid date in " + name + " : " + value + ", read as null");
+                    return null;
+                }
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    /**
+     * Read a [latitude, longitude, altitude] array
+     * @return position, the default position if the array is not complete
+     */
+    public static Position readPosition(BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return new Position();
+        }
+        double[] coordinates = new double[3];
+        int size = 0;
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            double coordinate = readDouble(reader);
+            if (size < coordinates.length) {
+                coordinates[size] = coordinate;
+            }
+            size++;
+        }
+        reader.readEndArray();
+        if (size != coordinates.length) {
+            return new Position();
+        }
+        return new Position(coordinates[1], coordinates[0], coordinates[2]);
+    }
+
+    public static void writeString(BsonWriter writer, String name, String value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeString(name, value);
+        }
+    }
+
+    public static void writeDate(BsonWriter writer, String name, Date value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeDateTime(name, value.getTime());
+        }
+    }
+
+    public static void writeEnum(BsonWriter writer, String name, Enum<?> value) {
+        writeString(writer, name, value == null ? null : value.toString());
+    }
+
+    /**
+     * Write a position as a [latitude, longitude, altitude] array, like Tools.positionToBasicDBList()
+     */
+    public static void writePosition(BsonWriter writer, String name, Position position) {
+        writer.writeName(name);
+        writePosition(writer, position);
+    }
+
+    /**
+     * Write a position as a [latitude, longitude, altitude] array, the name of the value is already written
+     */
+    public static void writePosition(BsonWriter writer, Position position) {
+        if (position == null) {
+            writer.writeNull();
+            return;
+        }
+        writer.writeStartArray();
+        writer.writeDouble(position.getLatitude());
+        writer.writeDouble(position.getLongitude());
+        writer.writeDouble(position.getAltitude());
+        writer.writeEndArray();
+    }
+
+    /**
+     * Write the GeoJSON point of a position, like Tools.positionToGeoJsonPoint()
+     */
+    public static void writeLocation(BsonWriter writer, String name, Position position) {
+        if (position == null || Double.isNaN(position.getLatitude()) || Double.isNaN(position.getLongitude())) {
+            writer.writeNull(name);
+            return;
+        }
+        writer.writeStartDocument(name);
+        writer.writeString("type", "Point");
+        writer.writeStartArray("coordinates");
+        writer.writeDouble(position.getLongitude());
+        writer.writeDouble(position.getLatitude());
+        writer.writeEndArray();
+        writer.writeEndDocument();
+    }
+}
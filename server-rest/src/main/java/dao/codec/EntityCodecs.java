@@ -0,0 +1,66 @@
+package dao.codec;
+
+import com.mongodb.MongoClient;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * @see
+ * EntityCodecs registers the codecs of the entities after the default codecs of the driver,
+ * entities are read from and written to the BSON stream without intermediate Document
+ */
+public final class EntityCodecs {
+    private static final MeanCodec MEAN_CODEC = new MeanCodec();
+
+    private static final CodecRegistry REGISTRY = CodecRegistries.fromRegistries(
+            MongoClient.getDefaultCodecRegistry(),
+            CodecRegistries.fromCodecs(
+                    new PositionCodec(),
+                    MEAN_CODEC,
+                    new InterventionCodec(MEAN_CODEC),
+                    new GeoImageCodec(),
+                    new GeoIconCodec(),
+                    new TargetCodec(),
+                    new TrackPointCodec(),
+                    new UserCodec()));
+
+    private EntityCodecs() {
+    }
+
+    /**
+     * @return default codecs of the driver and codecs of the entities
+     */
+    public static CodecRegistry getRegistry() {
+        return REGISTRY;
+    }
+
+    /**
+     * Encode an entity with its codec, for the writes of some of its fields only ($set)
+     * @param entity entity to encode
+     * @return document written by the codec
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BsonDocument encode(T entity) {
+        BsonDocument document = new BsonDocument();
+        Codec<T> codec = (Codec<T>) REGISTRY.get(entity.getClass());
+        codec.encode(new BsonDocumentWriter(document), entity, EncoderContext.builder().build());
+        return document;
+    }
+
+    /**
+     * Decode an entity with its codec, from a document read with fields the entity does not have
+     * @param type class of the entity
+     * @param document document read
+     * @return entity
+     */
+    public static <T> T decode(Class<T> type, BsonDocument document) {
+        return REGISTRY.get(type).decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+}
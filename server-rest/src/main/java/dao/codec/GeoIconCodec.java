@@ -0,0 +1,75 @@
+package dao.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import entity.GeoIcon;
+
+/**
+ * @see
+ * GeoIconCodec reads and writes a topographic icon with the layout of GeoIconDAO
+ */
+public class GeoIconCodec implements Codec<GeoIcon> {
+
+    @Override
+    public GeoIcon decode(BsonReader reader, DecoderContext decoderContext) {
+        GeoIcon icon = new GeoIcon();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if ("_id".equals(name)) {
+                Long id = BsonFields.readLong(reader);
+                if (id != null) {
+                    icon.setId(id);
+                }
+            } else if ("entitled".equals(name)) {
+                icon.setEntitled(BsonFields.readString(reader));
+            } else if ("filename".equals(name)) {
+                icon.setFilename(BsonFields.readString(reader));
+            } else if ("coordinates".equals(name)) {
+                icon.setPosition(BsonFields.readPosition(reader));
+            } else if ("color".equals(name)) {
+                icon.setColor(BsonFields.readString(reader));
+            } else if ("tiret".equals(name)) {
+                icon.setTiret(BsonFields.readBoolean(reader));
+            } else if ("firstContent".equals(name)) {
+                icon.setFirstContent(BsonFields.readString(reader));
+            } else if ("secondContent".equals(name)) {
+                icon.setSecondContent(BsonFields.readString(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return icon;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, GeoIcon value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeInt64("_id", value.getId());
+        BsonFields.writeString(writer, "filename", value.getFilename());
+        BsonFields.writeString(writer, "entitled", value.getEntitled());
+        BsonFields.writeString(writer, "firstContent", value.getFirstContent());
+        BsonFields.writeString(writer, "secondContent", value.getSecondContent());
+        if (value.getTiret() == null) {
+            writer.writeNull("tiret");
+        } else {
+            writer.writeBoolean("tiret", value.getTiret());
+        }
+        BsonFields.writeString(writer, "color", value.getColor());
+        BsonFields.writePosition(writer, "coordinates", value.getPosition());
+        writer.writeString("type", "Point");
+        BsonFields.writeLocation(writer, "location", value.getPosition());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<GeoIcon> getEncoderClass() {
+        return GeoIcon.class;
+    }
+}
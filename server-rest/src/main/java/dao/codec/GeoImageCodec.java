@@ -0,0 +1,82 @@
+package dao.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import entity.GeoImage;
+
+/**
+ * @see
+ * GeoImageCodec reads and writes the metadata of an image with the layout of GeoImageDAO
+ * The bytes are stored in GridFS, only the images of older versions of the server still have them inline.
+ * The date is set by GeoImageDAO when the image is created, and written as is
+ */
+public class GeoImageCodec implements Codec<GeoImage> {
+
+    @Override
+    public GeoImage decode(BsonReader reader, DecoderContext decoderContext) {
+        GeoImage image = new GeoImage();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if ("_id".equals(name)) {
+                Long id = BsonFields.readLong(reader);
+                if (id != null) {
+                    image.setId(id);
+                }
+            } else if ("position".equals(name)) {
+                image.setPosition(BsonFields.readPosition(reader));
+            } else if ("image".equals(name)) {
+                image.setImage(BsonFields.readString(reader));
+            } else if ("contentType".equals(name)) {
+                image.setContentType(BsonFields.readString(reader));
+            } else if ("length".equals(name)) {
+                Long length = BsonFields.readLong(reader);
+                if (length != null) {
+                    image.setLength(length);
+                }
+            } else if ("width".equals(name)) {
+                Long width = BsonFields.readLong(reader);
+                image.setWidth(width == null ? 0 : width.intValue());
+            } else if ("height".equals(name)) {
+                Long height = BsonFields.readLong(reader);
+                image.setHeight(height == null ? 0 : height.intValue());
+            } else if ("date".equals(name)) {
+                image.setDate(BsonFields.readDate(reader));
+            } else if ("interventionId".equals(name)) {
+                Long interventionId = BsonFields.readLong(reader);
+                if (interventionId != null) {
+                    image.setInterventionId(interventionId);
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return image;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, GeoImage value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeInt64("_id", value.getId());
+        BsonFields.writeString(writer, "contentType", value.getContentType());
+        writer.writeInt64("length", value.getLength());
+        writer.writeInt32("height", value.getHeight());
+        writer.writeInt32("width", value.getWidth());
+        BsonFields.writePosition(writer, "position", value.getPosition());
+        BsonFields.writeLocation(writer, "location", value.getPosition());
+        writer.writeInt64("interventionId", value.getInterventionId());
+        BsonFields.writeDate(writer, "date", value.getDate());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<GeoImage> getEncoderClass() {
+        return GeoImage.class;
+    }
+}
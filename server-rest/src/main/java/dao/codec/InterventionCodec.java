@@ -0,0 +1,124 @@
+package dao.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entity.DisasterCode;
+import entity.Intervention;
+import entity.Mean;
+import util.Datetime;
+
+/**
+ * @see
+ * InterventionCodec reads and writes an intervention with the layout of InterventionDAO, its means embedded
+ * The date of last modification is written on every encoding, InterventionDAO reads it back from the encoded document
+ */
+public class InterventionCodec implements Codec<Intervention> {
+    private final Codec<Mean> meanCodec;
+
+    public InterventionCodec(Codec<Mean> meanCodec) {
+        this.meanCodec = meanCodec;
+    }
+
+    @Override
+    public Intervention decode(BsonReader reader, DecoderContext decoderContext) {
+        Intervention intervention = new Intervention();
+        intervention.setDateCreate(null);
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if ("_id".equals(name)) {
+                Long id = BsonFields.readLong(reader);
+                if (id != null) {
+                    intervention.setId(id);
+                }
+            } else if ("dateCreate".equals(name)) {
+                intervention.setDateCreate(BsonFields.readDate(reader));
+            } else if ("label".equals(name)) {
+                intervention.setLabel(BsonFields.readString(reader));
+            } else if ("address".equals(name)) {
+                intervention.setAddress(BsonFields.readString(reader));
+            } else if ("postcode".equals(name)) {
+                intervention.setPostcode(BsonFields.readString(reader));
+            } else if ("city".equals(name)) {
+                intervention.setCity(BsonFields.readString(reader));
+            } else if ("disasterCode".equals(name)) {
+                intervention.setDisasterCode(readDisasterCode(BsonFields.readString(reader)));
+            } else if ("meansList".equals(name)) {
+                intervention.setMeansList(readMeans(reader, decoderContext));
+            } else if ("coordinates".equals(name)) {
+                intervention.setCoordinates(BsonFields.readPosition(reader));
+            } else if ("version".equals(name)) {
+                Long version = BsonFields.readLong(reader);
+                intervention.setVersion(version == null ? 0 : version);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return intervention;
+    }
+
+    private List<Mean> readMeans(BsonReader reader, DecoderContext decoderContext) {
+        List<Mean> means = new ArrayList<Mean>();
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return means;
+        }
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() == BsonType.DOCUMENT) {
+                means.add(meanCodec.decode(reader, decoderContext));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndArray();
+        return means;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Intervention value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeInt64("_id", value.getId());
+        BsonFields.writeDate(writer, "dateCreate", value.getDateCreate());
+        BsonFields.writeString(writer, "label", value.getLabel());
+        BsonFields.writeString(writer, "address", value.getAddress());
+        BsonFields.writeString(writer, "city", value.getCity());
+        BsonFields.writeString(writer, "postcode", value.getPostcode());
+        BsonFields.writeEnum(writer, "disasterCode", value.getDisasterCode());
+        writer.writeStartArray("meansList");
+        if (value.getMeansList() != null) {
+            for (Mean mean : value.getMeansList()) {
+                encoderContext.encodeWithChildContext(meanCodec, writer, mean);
+            }
+        }
+        writer.writeEndArray();
+        writer.writeString("type", "Point");
+        BsonFields.writePosition(writer, "coordinates", value.getCoordinates());
+        BsonFields.writeLocation(writer, "location", value.getCoordinates());
+        writer.writeInt64("version", value.getVersion());
+        writer.writeDateTime("lastModified", Datetime.getCurrentDate().getTime());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<Intervention> getEncoderClass() {
+        return Intervention.class;
+    }
+
+    private static DisasterCode readDisasterCode(String value) {
+        try {
+            return value == null ? null : DisasterCode.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package dao.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import entity.Mean;
+import entity.MeanState;
+import entity.Position;
+import entity.Vehicle;
+
+/**
+ * @see
+ * MeanCodec reads and writes a mean as a document of the means
+ * collection or as an element of the meansList of an intervention
+ */
+public class MeanCodec implements Codec<Mean> {
+
+    @Override
+    public Mean decode(BsonReader reader, DecoderContext decoderContext) {
+        Mean mean = new Mean();
+        // the fields missing from the document stay unset, not with the defaults of a new mean
+        mean.setName(null);
+        mean.setDateRequested(null);
+        mean.setCoordinates(new Position());
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if ("_id".equals(name)) {
+                Long id = BsonFields.readLong(reader);
+                if (id != null) {
+                    mean.setId(id);
+                }
+            } else if ("name".equals(name)) {
+                mean.setName(BsonFields.readString(reader));
+            } else if ("vehicle".equals(name)) {
+                mean.setVehicle(readVehicle(BsonFields.readString(reader)));
+            } else if ("inPosition".equals(name)) {
+                mean.setInPosition(Boolean.TRUE.equals(BsonFields.readBoolean(reader)));
+            } else if ("meanState".equals(name)) {
+                mean.setMeanState(readMeanState(BsonFields.readString(reader)));
+            } else if ("dateRequested".equals(name)) {
+                mean.setDateRequested(BsonFields.readDate(reader));
+            } else if ("dateActivated".equals(name)) {
+                mean.setDateActivated(BsonFields.readDate(reader));
+            } else if ("dateArrived".equals(name)) {
+                mean.setDateArrived(BsonFields.readDate(reader));
+            } else if ("dateEngaged".equals(name)) {
+                mean.setDateEngaged(BsonFields.readDate(reader));
+            } else if ("dateReleased".equals(name)) {
+                mean.setDateReleased(BsonFields.readDate(reader));
+            } else if ("dateRefused".equals(name)) {
+                mean.setDateRefused(BsonFields.readDate(reader));
+            } else if ("coordinates".equals(name)) {
+                mean.setCoordinates(BsonFields.readPosition(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return mean;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Mean value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeInt64("_id", value.getId());
+        BsonFields.writeString(writer, "name", value.getName());
+        writer.writeBoolean("inPosition", value.getInPosition());
+        BsonFields.writeEnum(writer, "meanState", value.getMeanState());
+        BsonFields.writeEnum(writer, "vehicle", value.getVehicle());
+        BsonFields.writeDate(writer, "dateRequested", value.getDateRequested());
+        BsonFields.writeDate(writer, "dateActivated", value.getDateActivated());
+        BsonFields.writeDate(writer, "dateArrived", value.getDateArrived());
+        BsonFields.writeDate(writer, "dateEngaged", value.getDateEngaged());
+        BsonFields.writeDate(writer, "dateReleased", value.getDateReleased());
+        BsonFields.writeDate(writer, "dateRefused", value.getDateRefused());
+        writer.writeString("type", "Point");
+        BsonFields.writePosition(writer, "coordinates", value.getCoordinates());
+        BsonFields.writeLocation(writer, "location", value.getCoordinates());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<Mean> getEncoderClass() {
+        return Mean.class;
+    }
+
+    private static Vehicle readVehicle(String value) {
+        try {
+            return value == null ? null : Vehicle.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static MeanState readMeanState(String value) {
+        try {
+            return value == null ? null : MeanState.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package dao.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import entity.Position;
+
+/**
+ * @see
+ * PositionCodec writes a position as a [latitude, longitude, altitude] array, the layout of the stored coordinates
+ * It lets positions be put as such in documents and updates
+ */
+public class PositionCodec implements Codec<Position> {
+
+    @Override
+    public Position decode(BsonReader reader, DecoderContext decoderContext) {
+        return BsonFields.readPosition(reader);
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Position value, EncoderContext encoderContext) {
+        BsonFields.writePosition(writer, value);
+    }
+
+    @Override
+    public Class<Position> getEncoderClass() {
+        return Position.class;
+    }
+}
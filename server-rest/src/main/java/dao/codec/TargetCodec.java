@@ -0,0 +1,84 @@
+package dao.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entity.Position;
+import entity.Target;
+
+/**
+ * @see
+ * TargetCodec reads and writes the route of the drone with the layout of TargetDAO
+ */
+public class TargetCodec implements Codec<Target> {
+
+    @Override
+    public Target decode(BsonReader reader, DecoderContext decoderContext) {
+        Target target = new Target();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if ("_id".equals(name)) {
+                Long id = BsonFields.readLong(reader);
+                if (id != null) {
+                    target.setId(id);
+                }
+            } else if ("interventionId".equals(name)) {
+                Long interventionId = BsonFields.readLong(reader);
+                if (interventionId != null) {
+                    target.setInterventionId(interventionId);
+                }
+            } else if ("isClose".equals(name)) {
+                target.setClose(Boolean.TRUE.equals(BsonFields.readBoolean(reader)));
+            } else if ("positions".equals(name)) {
+                target.setPositions(readPositions(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return target;
+    }
+
+    private static List<Position> readPositions(BsonReader reader) {
+        List<Position> positions = new ArrayList<Position>();
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return positions;
+        }
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            positions.add(BsonFields.readPosition(reader));
+        }
+        reader.readEndArray();
+        return positions;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Target value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeInt64("_id", value.getId());
+        writer.writeInt64("interventionId", value.getInterventionId());
+        writer.writeBoolean("isClose", value.isClose());
+        writer.writeStartArray("positions");
+        if (value.getPositions() != null) {
+            for (Position position : value.getPositions()) {
+                BsonFields.writePosition(writer, position);
+            }
+        }
+        writer.writeEndArray();
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<Target> getEncoderClass() {
+        return Target.class;
+    }
+}
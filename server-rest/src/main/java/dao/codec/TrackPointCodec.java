@@ -0,0 +1,63 @@
+package dao.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import entity.TrackPoint;
+
+/**
+ * @see
+ * TrackPointCodec reads and writes a position of a flight track with the layout of TrackPointDAO
+ */
+public class TrackPointCodec implements Codec<TrackPoint> {
+
+    @Override
+    public TrackPoint decode(BsonReader reader, DecoderContext decoderContext) {
+        TrackPoint point = new TrackPoint();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if ("_id".equals(name)) {
+                Long id = BsonFields.readLong(reader);
+                if (id != null) {
+                    point.setId(id);
+                }
+            } else if ("droneId".equals(name)) {
+                point.setDroneId(BsonFields.readString(reader));
+            } else if ("interventionId".equals(name)) {
+                Long interventionId = BsonFields.readLong(reader);
+                if (interventionId != null) {
+                    point.setInterventionId(interventionId);
+                }
+            } else if ("position".equals(name)) {
+                point.setPosition(BsonFields.readPosition(reader));
+            } else if ("date".equals(name)) {
+                point.setDate(BsonFields.readDate(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return point;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, TrackPoint value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeInt64("_id", value.getId());
+        BsonFields.writeString(writer, "droneId", value.getDroneId());
+        writer.writeInt64("interventionId", value.getInterventionId());
+        BsonFields.writePosition(writer, "position", value.getPosition());
+        BsonFields.writeDate(writer, "date", value.getDate());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<TrackPoint> getEncoderClass() {
+        return TrackPoint.class;
+    }
+}
@@ -0,0 +1,54 @@
+package dao.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import entity.User;
+
+/**
+ * @see
+ * UserCodec reads and writes a user with the layout of UserDAO
+ */
+public class UserCodec implements Codec<User> {
+
+    @Override
+    public User decode(BsonReader reader, DecoderContext decoderContext) {
+        User user = new User();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if ("_id".equals(name)) {
+                Long id = BsonFields.readLong(reader);
+                if (id != null) {
+                    user.setId(id);
+                }
+            } else if ("username".equals(name)) {
+                user.setUsername(BsonFields.readString(reader));
+            } else if ("password".equals(name)) {
+                user.setPassword(BsonFields.readString(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return user;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, User value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeInt64("_id", value.getId());
+        BsonFields.writeString(writer, "username", value.getUsername());
+        BsonFields.writeString(writer, "password", value.getPassword());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<User> getEncoderClass() {
+        return User.class;
+    }
+}
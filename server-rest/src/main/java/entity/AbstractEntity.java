@@ -1,12 +1,12 @@
 package entity;
 
-import java.util.Random;
+import util.IdGenerator;
 
 /**
  * @author alban
  * @see
  * AbstractEntity provides methods for Entity
- * Also use for create random identify
+ * Also use for create unique identify
  * This class is used by other Entity classes for the generic methods
  */
 public abstract class AbstractEntity {
@@ -16,12 +16,11 @@ public abstract class AbstractEntity {
     protected long id;
 
     /**
-     * Basic contruct, assign a random id
+     * Basic contruct, assign a unique id, increasing with the date of creation
      */
     public AbstractEntity()
     {
-        Random random = new Random();
-        id = random.nextInt();
+        id = IdGenerator.getInstance().nextId();
     }
 
     public long getId() {
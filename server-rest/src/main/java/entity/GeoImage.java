@@ -10,7 +10,12 @@ public class GeoImage extends AbstractEntity {
     private Position position;
     private int width;
     private int height;
+    /**
+     * Base64 content, only set when the image is received, the bytes are stored apart (GET /images/{id}/raw)
+     */
     private String image;
+    private String contentType;
+    private long length;
     private Date date;
     private long interventionId;
 
@@ -22,6 +27,25 @@ public class GeoImage extends AbstractEntity {
         this.image = image;
     }
 
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * @return size of the image in bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
+    public void setLength(long length) {
+        this.length = length;
+    }
+
     public Date getDate() {
         return date;
     }
@@ -71,7 +95,8 @@ public class GeoImage extends AbstractEntity {
 
         if (height != geoImage.height) return false;
         if (width != geoImage.width) return false;
-        if (image != null ? !image.equals(geoImage.image) : geoImage.image != null) return false;
+        if (length != geoImage.length) return false;
+        if (contentType != null ? !contentType.equals(geoImage.contentType) : geoImage.contentType != null) return false;
         if (position != null ? !position.equals(geoImage.position) : geoImage.position != null) return false;
         if (interventionId != geoImage.interventionId) return false;
         if (geoImage.date != null && date != null && geoImage.date.getTime() != date.getTime()) return false;
@@ -84,7 +109,8 @@ public class GeoImage extends AbstractEntity {
                 "position=" + position +
                 ", width=" + width +
                 ", height=" + height +
-                ", image='" + image + '\'' +
+                ", contentType='" + contentType + '\'' +
+                ", length=" + length +
                 ", interventionId=" + interventionId + '\'' +
                 ", date=" + date + '\'' +
                 '}';
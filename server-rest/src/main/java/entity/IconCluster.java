@@ -0,0 +1,62 @@
+package entity;
+
+import java.io.Serializable;
+
+/**
+ * @see IconCluster stands for several topographic icons too close to be drawn at the zoom of a tile
+ */
+public class IconCluster implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Position position;
+    private int count;
+
+    public IconCluster() {
+    }
+
+    public IconCluster(Position position, int count) {
+        this.position = position;
+        this.count = count;
+    }
+
+    /**
+     * @return center of the icons
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    public void setPosition(Position position) {
+        this.position = position;
+    }
+
+    /**
+     * @return number of icons
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        IconCluster that = (IconCluster) o;
+
+        if (count != that.count) return false;
+        return position != null ? position.equals(that.position) : that.position == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = position != null ? position.hashCode() : 0;
+        result = 31 * result + count;
+        return result;
+    }
+}
@@ -23,6 +23,11 @@ public class Intervention extends AbstractEntity {
     private List<Mean> meansList;
     private Position coordinates;
 
+    /**
+     * Incremented on every write, used for optimistic concurrency
+     */
+    private long version;
+
     public Intervention(String label, String address, String postcode, String city, DisasterCode disasterCode) {
         this();
         this.label = label;
@@ -100,6 +105,14 @@ public class Intervention extends AbstractEntity {
 		this.dateCreate = dateCreate;
     }
 
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
 	public String getLabel() {
 		return label;
 	}
@@ -121,6 +134,7 @@ public class Intervention extends AbstractEntity {
                 ", meansList=" + meansList +
               //  ", meansXtra=" + meansXtra +
                 ", coordinates=" + coordinates +
+                ", version=" + version +
                 '}';
     }
 
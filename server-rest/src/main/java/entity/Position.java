@@ -64,6 +64,14 @@ public class Position {
                 && Double.compare(lngLatAlt.altitude, altitude) == 0;
     }
 
+    @Override
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(latitude);
+        bits = 31 * bits + Double.doubleToLongBits(longitude);
+        bits = 31 * bits + Double.doubleToLongBits(altitude);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
     @Override
     public String toString() {
         return "LngLatAlt{" + "longitude=" + longitude + ", latitude=" + latitude + ", altitude=" + altitude + '}';
@@ -9,7 +9,7 @@ import java.util.List;
 public class Target extends AbstractEntity {
     private List<Position> positions;
     private boolean isClose;
-    private int interventionId;
+    private long interventionId;
 
     public Target() {
         super();
@@ -31,11 +31,11 @@ public class Target extends AbstractEntity {
         this.isClose = isClose;
     }
 
-    public void setInterventionId(int interventionId) {
+    public void setInterventionId(long interventionId) {
         this.interventionId=interventionId;
     }
 
-    public int getInterventionId() {
+    public long getInterventionId() {
         return this.interventionId;
     }
 
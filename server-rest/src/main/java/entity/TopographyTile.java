@@ -0,0 +1,91 @@
+package entity;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @see TopographyTile contains the topographic icons of a Web-Mercator tile
+ * At low zoom the icons close to each other are replaced by clusters
+ */
+public class TopographyTile implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int z;
+    private int x;
+    private int y;
+    private List<GeoIcon> icons = new ArrayList<GeoIcon>();
+    private List<IconCluster> clusters = new ArrayList<IconCluster>();
+
+    public TopographyTile() {
+    }
+
+    public TopographyTile(int z, int x, int y) {
+        this.z = z;
+        this.x = x;
+        this.y = y;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    public void setZ(int z) {
+        this.z = z;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public void setX(int x) {
+        this.x = x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public void setY(int y) {
+        this.y = y;
+    }
+
+    public List<GeoIcon> getIcons() {
+        return icons;
+    }
+
+    public void setIcons(List<GeoIcon> icons) {
+        this.icons = icons;
+    }
+
+    public List<IconCluster> getClusters() {
+        return clusters;
+    }
+
+    public void setClusters(List<IconCluster> clusters) {
+        this.clusters = clusters;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        TopographyTile that = (TopographyTile) o;
+
+        if (z != that.z || x != that.x || y != that.y) return false;
+        if (!icons.equals(that.icons)) return false;
+        return clusters.equals(that.clusters);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = z;
+        result = 31 * result + x;
+        result = 31 * result + y;
+        result = 31 * result + icons.hashCode();
+        result = 31 * result + clusters.hashCode();
+        return result;
+    }
+}
@@ -0,0 +1,73 @@
+package entity;
+
+import java.util.Date;
+
+/**
+ * @see TrackPoint is a position of a drone in its flight track, with its date
+ */
+public class TrackPoint extends AbstractEntity {
+    private String droneId;
+
+    /**
+     * Intervention flown over, 0 if the drone did not follow a target
+     */
+    private long interventionId;
+
+    private Position position;
+
+    private Date date;
+
+    public TrackPoint() {
+        super();
+    }
+
+    public TrackPoint(String droneId, long interventionId, Position position, Date date) {
+        super();
+        this.droneId = droneId;
+        this.interventionId = interventionId;
+        this.position = position;
+        this.date = date;
+    }
+
+    public String getDroneId() {
+        return droneId;
+    }
+
+    public void setDroneId(String droneId) {
+        this.droneId = droneId;
+    }
+
+    public long getInterventionId() {
+        return interventionId;
+    }
+
+    public void setInterventionId(long interventionId) {
+        this.interventionId = interventionId;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public void setPosition(Position position) {
+        this.position = position;
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    @Override
+    public String toString() {
+        return "TrackPoint{" +
+                "droneId='" + droneId + '\'' +
+                ", interventionId=" + interventionId +
+                ", position=" + position +
+                ", date=" + date +
+                '}';
+    }
+}
@@ -2,21 +2,31 @@ package fr.istic.m2gla.projet.initializer;
 
 import org.apache.log4j.PropertyConfigurator;
 
+import dao.MongoClientProvider;
+import dao.StartupMigration;
+import service.impl.ThumbnailServiceImpl;
+import service.position.DroneFleet;
 import util.Configuration;
 
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 
 /**
- * ProjetServletContextListener launch application and log4j
+ * ProjetServletContextListener launch application, log4j and the shared Mongo client
  * @author baptiste
  */
 public class ProjetServletContextListener implements ServletContextListener {	
 	@Override
 	public void contextInitialized(ServletContextEvent sce) {
 		PropertyConfigurator.configure(Configuration.getPATH_LOG());
+		MongoClientProvider.getInstance().open();
+		StartupMigration.start();
 	}
 
 	@Override
-	public void contextDestroyed(ServletContextEvent sce) {}
+	public void contextDestroyed(ServletContextEvent sce) {
+		DroneFleet.getInstance().shutdown();
+		ThumbnailServiceImpl.getInstance().shutdown();
+		MongoClientProvider.getInstance().close();
+	}
 }
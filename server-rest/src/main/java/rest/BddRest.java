@@ -6,7 +6,9 @@ import org.json.simple.parser.JSONParser;
 
 import java.io.File;
 import java.io.FileReader;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -52,15 +54,17 @@ public class BddRest {
                 JSONArray users = (JSONArray) obj;
                 Iterator<JSONObject> iterator = users.iterator();
 
-                UserDAO userDAO = new UserDAO();
-                userDAO.connect();
+                List<User> tmpUsers = new ArrayList<User>();
                while (iterator.hasNext()) {
                     JSONObject userJSON = iterator.next();
                     User tmpUser = new User();
                     tmpUser.setPassword((String) userJSON.get("password"));
                     tmpUser.setUsername((String) userJSON.get("username"));
-                    userDAO.create(tmpUser);
+                    tmpUsers.add(tmpUser);
                 }
+                UserDAO userDAO = new UserDAO();
+                userDAO.connect();
+                userDAO.createAll(tmpUsers);
                 // code qui n'a rien à voir avec le reste.
                 // On crée le design document.
                 userDAO.disconnect();
@@ -76,8 +80,7 @@ public class BddRest {
                 JSONArray users = (JSONArray) obj;
                 Iterator iterator = users.iterator();
 
-                GeoIconDAO iconDAO = new GeoIconDAO();
-                iconDAO.connect();
+                List<GeoIcon> icons = new ArrayList<GeoIcon>();
                 while (iterator.hasNext()) {
                     JSONObject userJSON = (JSONObject) iterator.next();
                     GeoIcon tmpUser = new GeoIcon();
@@ -92,9 +95,11 @@ public class BddRest {
                     tmpUser.setFirstContent((String) userJSON.get("firstContent"));
                     tmpUser.setSecondContent((String) userJSON.get("secondContent"));
 
-                    iconDAO.create(tmpUser);
-                 //   idCreated.add(tmpUser.getId());
+                    icons.add(tmpUser);
                 }
+                GeoIconDAO iconDAO = new GeoIconDAO();
+                iconDAO.connect();
+                iconDAO.createAll(icons);
                 iconDAO.disconnect();
             } catch (Exception e) {
                 e.printStackTrace();
@@ -0,0 +1,24 @@
+package rest;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import org.apache.log4j.Logger;
+
+import dao.ConcurrentUpdateException;
+
+/**
+ * @see ConcurrentUpdateExceptionMapper answers 409 Conflict when a write lost the race against another one
+ */
+@Provider
+public class ConcurrentUpdateExceptionMapper implements ExceptionMapper<ConcurrentUpdateException> {
+	private static final Logger LOGGER = Logger.getLogger(ConcurrentUpdateExceptionMapper.class);
+
+	@Override
+	public Response toResponse(ConcurrentUpdateException e) {
+		LOGGER.warn(e.getMessage());
+		return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).type(MediaType.TEXT_PLAIN).build();
+	}
+}
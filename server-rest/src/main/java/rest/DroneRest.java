@@ -1,6 +1,9 @@
 package rest;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -9,20 +12,31 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import dao.TargetDAO;
+import dao.TrackPointDAO;
 import entity.GeoImage;
-import service.position.DroneThread;
-import service.position.TransitDroneSender;
+import service.position.Drone;
+import service.position.DroneFleet;
 import entity.Position;
 import entity.Target;
+import entity.TrackPoint;
+import util.DouglasPeucker;
 
 /**
+ * Drones of the fleet, by id ; the paths without id are the ones of DroneFleet.DEFAULT_DRONE
  * @author arno on 12/02/15
  */
 @Path("/drone")
 public class DroneRest {
+	private static final String UNKNOWN_DRONE = "Drone does not exist";
+	private static final int DEFAULT_TRACK_POINTS = 500;
+	private static final int MAX_RETURNED_POINTS = 5000;
+
     /**
      * @return the position of the drone
      */
@@ -30,7 +44,7 @@ public class DroneRest {
 	@Path("position")
 	@Produces(MediaType.APPLICATION_JSON)
 	public Position getPosition() {
-		return DroneThread.getInstance().getPosition();
+		return defaultDrone().getPosition();
 	}
 
 	/**
@@ -40,17 +54,18 @@ public class DroneRest {
 	@Path("image")
 	@Produces(MediaType.APPLICATION_JSON)
 	public GeoImage getImage() throws IOException {
-		return DroneThread.getInstance().getImage();
+		return defaultDrone().getImage();
 	}
 
     /**
-     * get the ride of the drone
+     * get the ride of the drone flying over the intervention
      */
 	@GET
 	@Path("target/{interventionId}")
 	@Produces(MediaType.APPLICATION_JSON)
-	public Target getTrajet(@PathParam("interventionId") int interventionId) {
-		return TransitDroneSender.getINSTANCE().getTarget();
+	public Target getTrajet(@PathParam("interventionId") long interventionId) {
+		List<Drone> drones = DroneFleet.getInstance().getDronesOfIntervention(interventionId);
+		return drones.isEmpty() ? null : drones.get(0).getTarget();
 	}
 
     /**
@@ -60,18 +75,7 @@ public class DroneRest {
 	@Path("target")
 	@Consumes(MediaType.APPLICATION_JSON)
 	public void doTrajet(Target target) {
-		TargetDAO targetDAO = new TargetDAO();
-		targetDAO.connect();
-		targetDAO.create(target);
-		targetDAO.disconnect();
-
-		TransitDroneSender.getINSTANCE().setTarget(target);
-
-		DroneThread.createNewInstance();
-		DroneThread.getInstance().flushPositionUnchangedObservers();
-		DroneThread.getInstance().addObserversPositionsUnhanged(TransitDroneSender.getINSTANCE());
-
-		new Thread(DroneThread.getInstance()).start();
+		flyDrone(DroneFleet.DEFAULT_DRONE, target);
 	}
 
 	/**
@@ -80,9 +84,186 @@ public class DroneRest {
 	@DELETE
 	@Path("target")
 	public void stopTrajet() {
-        if (DroneThread.getInstance() != null) {
-        	DroneThread.getInstance().flushPositionUnchangedObservers();
-        	DroneThread.getInstance().stopThread();
-        }
+		DroneFleet.getInstance().land(DroneFleet.DEFAULT_DRONE);
+	}
+
+	/**
+	 * @return ids of the drones of the fleet
+	 */
+	@GET
+	@Produces(MediaType.APPLICATION_JSON)
+	public List<String> getDrones() {
+		List<String> ids = new ArrayList<String>();
+		for (Drone drone : DroneFleet.getInstance().getDrones()) {
+			ids.add(drone.getId());
+		}
+		return ids;
+	}
+
+	@GET
+	@Path("{droneId}/position")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getPosition(@PathParam("droneId") String droneId) {
+		Drone drone = DroneFleet.getInstance().getDrone(droneId);
+		if (drone == null) {
+			return Response.status(Response.Status.NOT_FOUND).entity(UNKNOWN_DRONE).build();
+		}
+		return Response.ok(drone.getPosition()).build();
+	}
+
+	@GET
+	@Path("{droneId}/image")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getImage(@PathParam("droneId") String droneId) {
+		Drone drone = DroneFleet.getInstance().getDrone(droneId);
+		if (drone == null) {
+			return Response.status(Response.Status.NOT_FOUND).entity(UNKNOWN_DRONE).build();
+		}
+		if (drone.getImage() == null) {
+			return Response.noContent().build();
+		}
+		return Response.ok(drone.getImage()).build();
+	}
+
+	@GET
+	@Path("{droneId}/target")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getTarget(@PathParam("droneId") String droneId) {
+		Drone drone = DroneFleet.getInstance().getDrone(droneId);
+		if (drone == null) {
+			return Response.status(Response.Status.NOT_FOUND).entity(UNKNOWN_DRONE).build();
+		}
+		if (drone.getTarget() == null) {
+			return Response.noContent().build();
+		}
+		return Response.ok(drone.getTarget()).build();
+	}
+
+	@POST
+	@Path("{droneId}/target")
+	@Consumes(MediaType.APPLICATION_JSON)
+	public Response flyTarget(@PathParam("droneId") String droneId, Target target) {
+		if (DroneFleet.getInstance().getDrone(droneId) == null) {
+			return Response.status(Response.Status.NOT_FOUND).entity(UNKNOWN_DRONE).build();
+		}
+		flyDrone(droneId, target);
+		return Response.noContent().build();
+	}
+
+	@DELETE
+	@Path("{droneId}/target")
+	public Response landDrone(@PathParam("droneId") String droneId) {
+		if (DroneFleet.getInstance().land(droneId) == null) {
+			return Response.status(Response.Status.NOT_FOUND).entity(UNKNOWN_DRONE).build();
+		}
+		return Response.noContent().build();
+	}
+
+	/**
+	 * Position pushed by the drone server as soon as the drone moves, and at least every few seconds :
+	 * while it pushes, the drone is no longer polled
+	 */
+	@POST
+	@Path("{droneId}/telemetry")
+	@Consumes(MediaType.APPLICATION_JSON)
+	public Response pushTelemetry(@PathParam("droneId") String droneId, Telemetry telemetry) {
+		Drone drone = DroneFleet.getInstance().getDrone(droneId);
+		if (drone == null) {
+			return Response.status(Response.Status.NOT_FOUND).entity(UNKNOWN_DRONE).build();
+		}
+		if (telemetry == null || telemetry.getLatitude() == null || telemetry.getLongitude() == null
+				|| telemetry.getLatitude().isNaN() || telemetry.getLongitude().isNaN()) {
+			return Response.status(Response.Status.BAD_REQUEST).entity("Position without latitude or longitude").build();
+		}
+		drone.onTelemetry(telemetry.toPosition());
+		return Response.noContent().build();
+	}
+
+	/**
+	 * Flight track of the drone, downsampled with the Douglas-Peucker algorithm
+	 * @param from first date, in milliseconds since 1970, the oldest position kept if missing
+	 * @param to last date, in milliseconds since 1970, the latest position if missing
+	 * @param interventionId only the positions over this intervention
+	 * @param maxPoints most positions returned (DEFAULT_TRACK_POINTS, at most MAX_RETURNED_POINTS)
+	 */
+	@GET
+	@Path("{droneId}/track")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getTrack(@PathParam("droneId") String droneId,
+							 @QueryParam("from") Long from,
+							 @QueryParam("to") Long to,
+							 @QueryParam("interventionId") Long interventionId,
+							 @QueryParam("maxPoints") Integer maxPoints) {
+		int max = maxPoints == null ? DEFAULT_TRACK_POINTS : Math.max(2, Math.min(maxPoints, MAX_RETURNED_POINTS));
+
+		// the tracks are kept for the drones no longer registered
+		TrackPointDAO dao = new TrackPointDAO();
+		dao.connect();
+		List<TrackPoint> track = dao.findTrack(droneId, interventionId,
+				from == null ? null : new Date(from), to == null ? null : new Date(to), TrackPointDAO.MAX_TRACK_POINTS);
+		dao.disconnect();
+
+		List<Position> path = new ArrayList<Position>(track.size());
+		for (TrackPoint point : track) {
+			path.add(point.getPosition());
+		}
+		List<TrackPoint> res = new ArrayList<TrackPoint>();
+		for (int index : DouglasPeucker.simplify(path, max)) {
+			res.add(track.get(index));
+		}
+		return Response.ok(new GenericEntity<List<TrackPoint>>(res) {}).build();
+	}
+
+	/**
+	 * Position pushed by a drone server : unlike Position, a missing coordinate is null, not 0
+	 */
+	public static class Telemetry {
+		private Double latitude;
+		private Double longitude;
+		private Double altitude;
+
+		public Double getLatitude() {
+			return latitude;
+		}
+
+		public void setLatitude(Double latitude) {
+			this.latitude = latitude;
+		}
+
+		public Double getLongitude() {
+			return longitude;
+		}
+
+		public void setLongitude(Double longitude) {
+			this.longitude = longitude;
+		}
+
+		public Double getAltitude() {
+			return altitude;
+		}
+
+		public void setAltitude(Double altitude) {
+			this.altitude = altitude;
+		}
+
+		Position toPosition() {
+			return new Position(longitude, latitude, altitude == null ? Double.NaN : altitude);
+		}
+	}
+
+	/**
+	 * Store the target and fly the drone along it
+	 */
+	private void flyDrone(String droneId, Target target) {
+		TargetDAO targetDAO = new TargetDAO();
+		targetDAO.connect();
+		targetDAO.create(target);
+		targetDAO.disconnect();
+
+		DroneFleet.getInstance().fly(droneId, target);
+	}
+
+	private static Drone defaultDrone() {
+		return DroneFleet.getInstance().getDrone(DroneFleet.DEFAULT_DRONE);
 	}
-}
\ No newline at end of file
+}
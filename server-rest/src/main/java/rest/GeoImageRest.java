@@ -1,24 +1,40 @@
 package rest;
 
-import java.util.List;
+import com.mongodb.gridfs.GridFSDBFile;
+
+import org.apache.commons.codec.binary.Base64;
+
+import java.io.IOException;
+import java.io.OutputStream;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import dao.GeoImageDAO;
 import entity.GeoImage;
+import service.impl.ThumbnailServiceImpl;
+import util.Tools;
 
 /**
  * @author arno on 12/02/15.
  */
 @Path("/images")
 public class GeoImageRest {
+    @Context
+    private Request request;
+
     /**
-     * @return the list of All Images
+     * @return the list of All Images, streamed as they are read
      */
     @GET
     @Path("")
@@ -26,22 +42,68 @@ public class GeoImageRest {
     public Response getAllImages() {
         GeoImageDAO gID = new GeoImageDAO();
         gID.connect();
-        List<GeoImage> res = gID.getAll();
-        gID.disconnect();
-        return Response.ok(res).build();
+        return Response.ok(new JsonArrayOutput(gID.streamAll())).build();
     }
 
     /**
-     * @return the list of Images near of coordinates
+     * @param maxDistance (optional) distance in meters, NEAR_MAX_DISTANCE by default
+     * @return the list of Images near of coordinates, nearest first, streamed as they are read
      */
     @GET
     @Path("near/{latitude}/{longitude}/{limit}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getAllImagesNear(@PathParam("latitude") float latitude, @PathParam("longitude") float longitude, @PathParam("limit") int limit) {
+    public Response getAllImagesNear(@PathParam("latitude") float latitude, @PathParam("longitude") float longitude, @PathParam("limit") int limit,
+                                     @QueryParam("maxDistance") Integer maxDistance) {
+        if (maxDistance != null && maxDistance < 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("maxDistance invalide : " + maxDistance).build();
+        }
+        int distance = maxDistance == null ? Tools.defaultNearMaxDistance() : maxDistance;
+        GeoImageDAO gID = new GeoImageDAO();
+        gID.connect();
+        return Response.ok(new JsonArrayOutput(gID.streamImagesNear(latitude, longitude, distance, limit))).build();
+    }
+
+    /**
+     * @param size (optional) largest side wanted, the nearest thumbnail is sent, or the original if not generated yet
+     * @return the bytes of an image, with its content type and length
+     */
+    @GET
+    @Path("{id}/raw")
+    public Response getRawImage(@PathParam("id") long id, @QueryParam("size") Integer size) {
         GeoImageDAO gID = new GeoImageDAO();
+        GridFSDBFile thumbnail = null;
+        if (size != null) {
+            thumbnail = gID.findThumbnailFile(id, ThumbnailServiceImpl.getInstance().selectSize(size));
+        }
+        final GridFSDBFile file = thumbnail != null ? thumbnail : gID.findImageFile(id);
+        if (file != null) {
+            EntityTag tag = HttpCache.tagOf(file.getFilename(), file.getMD5());
+            Response.ResponseBuilder notModified = HttpCache.notModified(request, tag, file.getUploadDate());
+            if (notModified != null) {
+                return notModified.build();
+            }
+            StreamingOutput output = new StreamingOutput() {
+                @Override
+                public void write(OutputStream outputStream) throws IOException {
+                    file.writeTo(outputStream);
+                }
+            };
+            Response.ResponseBuilder response = Response.ok(output, file.getContentType()).header(HttpHeaders.CONTENT_LENGTH, file.getLength());
+            // the original sent instead of a thumbnail not generated yet must not be kept by the client
+            if (size != null && thumbnail == null) {
+                return HttpCache.validators(response, tag, file.getUploadDate()).build();
+            }
+            return HttpCache.immutable(response, tag).build();
+        }
+
+        // image stored inline, not migrated yet
         gID.connect();
-        List<GeoImage> res = gID.getAllImagesNear(latitude, longitude, limit);
+        GeoImage geoImage = gID.getById(id);
         gID.disconnect();
-        return Response.ok(res).build();
+        if (geoImage == null || geoImage.getImage() == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        byte[] bytes = Base64.decodeBase64(geoImage.getImage());
+        return Response.ok(bytes, GeoImageDAO.contentTypeOf(bytes)).header(HttpHeaders.CONTENT_LENGTH, bytes.length).build();
     }
 }
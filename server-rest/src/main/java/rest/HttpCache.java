@@ -0,0 +1,95 @@
+package rest;
+
+import java.util.Date;
+
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+/**
+ * @see
+ * HttpCache sets the validators (ETag, Last-Modified) of the read services, and answers 304 Not Modified
+ * when the copy of the client is still up to date, before the entity is read or serialized
+ */
+final class HttpCache {
+    private static final int IMMUTABLE_MAX_AGE = 24 * 60 * 60;
+
+    private HttpCache() {
+    }
+
+    /**
+     * @param parts values identifying the content, as an id and a version
+     * @return strong entity tag
+     */
+    static EntityTag tagOf(Object... parts) {
+        StringBuilder value = new StringBuilder();
+        for (Object part : parts) {
+            if (value.length() > 0) {
+                value.append('-');
+            }
+            value.append(part);
+        }
+        return new EntityTag(value.toString());
+    }
+
+    /**
+     * @param request request of the client, null when the service is not called through HTTP
+     * @param tag current entity tag
+     * @param lastModified date of the last write, or null
+     * @return 304 response if the client is up to date, null otherwise
+     */
+    static Response.ResponseBuilder notModified(Request request, EntityTag tag, Date lastModified) {
+        if (request == null) {
+            return null;
+        }
+        Response.ResponseBuilder builder = lastModified == null
+                ? request.evaluatePreconditions(tag)
+                : request.evaluatePreconditions(toSeconds(lastModified), tag);
+        return builder == null ? null : validators(builder, tag, lastModified);
+    }
+
+    /**
+     * Add the validators to a response, the client must revalidate its copy before using it
+     * @return builder
+     */
+    static Response.ResponseBuilder validators(Response.ResponseBuilder builder, EntityTag tag, Date lastModified) {
+        builder.tag(tag);
+        if (lastModified != null) {
+            builder.lastModified(toSeconds(lastModified));
+        }
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setPrivate(true);
+        cacheControl.setNoCache(true);
+        return builder.cacheControl(cacheControl);
+    }
+
+    /**
+     * Add the validators to the response of a content that never changes
+     * @return builder
+     */
+    static Response.ResponseBuilder immutable(Response.ResponseBuilder builder, EntityTag tag) {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(IMMUTABLE_MAX_AGE);
+        return builder.tag(tag).cacheControl(cacheControl);
+    }
+
+    /**
+     * Add the validators to the response of a content the clients and proxies may reuse for a while
+     * without revalidating it, as the tiles of a map
+     * @param maxAge seconds during which the content is used as is
+     * @return builder
+     */
+    static Response.ResponseBuilder shared(Response.ResponseBuilder builder, EntityTag tag, int maxAge) {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(maxAge);
+        return builder.tag(tag).cacheControl(cacheControl);
+    }
+
+    /**
+     * HTTP dates have a precision of one second
+     */
+    private static Date toSeconds(Date date) {
+        return new Date(date.getTime() / 1000 * 1000);
+    }
+}
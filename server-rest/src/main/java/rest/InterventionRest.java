@@ -3,8 +3,7 @@ package rest;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 
 import javax.ws.rs.Consumes;
@@ -13,10 +12,21 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
+import dao.EntityVersion;
+import dao.InterventionCache;
 import dao.InterventionDAO;
+import dao.GeoImageDAO;
+import dao.GeoImageQuery;
+import dao.InterventionQuery;
+import entity.DisasterCode;
+import entity.GeoImage;
 import entity.Intervention;
 import entity.Mean;
 import entity.MeanState;
@@ -25,6 +35,7 @@ import service.PushService.TypeClient;
 import service.impl.PushServiceImpl;
 import service.impl.RetrieveAddressImpl;
 import util.Datetime;
+import util.Tools;
 
 /**
  * Service rest du type intervention
@@ -33,10 +44,16 @@ import util.Datetime;
 @Path("/intervention")
 public class InterventionRest {
 	private static final Logger LOGGER = Logger.getLogger(InterventionRest.class);
+	public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+	private static final int DEFAULT_PAGE_SIZE = 50;
+	private static final int MAX_PAGE_SIZE = 200;
+
+	@Context
+	private Request request;
     /**
      * @param id for the intervention
      * @param idmean for the id of the mean
-     * @return Mean for a specific intervention
+     * @return Mean for a specific intervention, 404 if the intervention does not exist
      */
 	@GET
 	@Path("/{id}/moyen/{idmean}")
@@ -46,8 +63,12 @@ public class InterventionRest {
 		InterventionDAO iD = new InterventionDAO();
 		Mean res = null;
 		iD.connect();
-		List<Mean> meanList = iD.getById(id).getMeansList();
+		Intervention intervention = iD.getCached(id);
 		iD.disconnect();
+		if (intervention == null) {
+			return Response.status(Response.Status.NOT_FOUND).entity("Intervention inconnue : " + id).build();
+		}
+		List<Mean> meanList = intervention.getMeansList();
 
 		for (Mean mean : meanList) {
 			if (mean.getId() == idmean) {
@@ -68,41 +89,26 @@ public class InterventionRest {
 	@Path("/{id}/moyen/emplace")
 	@Consumes({MediaType.APPLICATION_JSON})
 	@Produces({MediaType.APPLICATION_JSON})
-	public synchronized Response validateMeanPositionForIntervention(@PathParam("id") long id, Mean mean) {
+	public Response validateMeanPositionForIntervention(@PathParam("id") long id, Mean mean) {
 		InterventionDAO iD = new InterventionDAO();
-        Boolean positionChanged = false;
-		Mean res = null;
 		iD.connect();
-		Intervention intervention = iD.getById(id);
-		List<Mean> meanList = intervention.getMeansList();
+		Mean res = iD.validateMeanPosition(id, mean.getId());
+		iD.disconnect();
 
-		for (Mean m : meanList) {
-			if (m.getId() == mean.getId()) {
-                if (m.getMeanState() == MeanState.ENGAGED) {
-                    m.setInPosition(true);
-                    res = m;
-                    positionChanged = true;
-                    break;
-                }
+		if (res != null) {
+			try {
+				PushServiceImpl.getInstance().sendMessage(TypeClient.SIMPLEUSER, "moyenValide", res);
+			} catch (IOException e) {
+				LOGGER.error("Error push service intervention", e);
 			}
+			return Response.ok(res).build();
+		}
+		else
+		{
+			return Response.status(Response.Status.BAD_REQUEST).entity("Mean is not Engaged or unavailable").build();
 		}
-
-        if (positionChanged) {
-            iD.update(intervention);
-            iD.disconnect();
-            try {
-                PushServiceImpl.getInstance().sendMessage(TypeClient.SIMPLEUSER, "moyenValide", res);
-            } catch (IOException e) {
-                LOGGER.error("Error push service intervention", e);
-            }
-            return Response.ok(res).build();
-        }
-        else
-        {
-            iD.disconnect();
-            return Response.status(Response.Status.BAD_REQUEST).entity("Mean is not Engaged or unavailable").build();
-        }
 	}
+
     /**
      * Update the position of this Intervention's mean
      */
@@ -110,47 +116,26 @@ public class InterventionRest {
 	@Path("/{id}/moyen/positionner")
 	@Consumes({MediaType.APPLICATION_JSON})
 	@Produces({MediaType.APPLICATION_JSON})
-	public synchronized Response updateMeanPositionForIntervention(@PathParam("id") long id, Mean mean) {
+	public Response updateMeanPositionForIntervention(@PathParam("id") long id, Mean mean) {
 		InterventionDAO iD = new InterventionDAO();
-		Mean res = null;
-        Boolean meanPositionAsked = false;
 		iD.connect();
-		Intervention intervention = iD.getById(id);
-		List<Mean> meanList = intervention.getMeansList();
+		Mean res = iD.engageMean(id, mean.getId(), mean.getCoordinates());
+		iD.disconnect();
 
-		for (Mean m : meanList) {
-			if (m.getId() == mean.getId()) {
-                if (m.getMeanState() == MeanState.ARRIVED || m.getMeanState() == MeanState.ENGAGED) {
-                    m.setCoordinates(mean.getCoordinates());
-                    m.setMeanState(MeanState.ENGAGED);
-                    m.setInPosition(false);
-                    if (m.getDateEngaged() == null) {
-                        m.setDateEngaged(Datetime.getCurrentDate());
-                    }
-                    meanPositionAsked = true;
-                    res = m;
-                    break;
-                }
+		if (res != null) {
+			try {
+				PushServiceImpl.getInstance().sendMessage(TypeClient.SIMPLEUSER, "moyenMove", res);
+			} catch (IOException e) {
+				LOGGER.error("Error push service intervention", e);
 			}
+			return Response.ok(res).build();
+		}
+		else
+		{
+			return Response.status(Response.Status.BAD_REQUEST).entity("Mean cannot be engaged yet").build();
 		}
-
-        if (meanPositionAsked) {
-            iD.update(intervention);
-            iD.disconnect();
-            try {
-                PushServiceImpl.getInstance().sendMessage(TypeClient.SIMPLEUSER, "moyenMove", res);
-            } catch (IOException e) {
-                LOGGER.error("Error push service intervention", e);
-            }
-            return Response.ok(res).build();
-        }
-        else
-        {
-            iD.disconnect();
-            return Response.status(Response.Status.BAD_REQUEST).entity("Mean cannot be engaged yet").build();
-        }
-
 	}
+
     /**
      * Confirmation that Intervention's mean is arrived
      */
@@ -158,29 +143,13 @@ public class InterventionRest {
     @Path("/{id}/moyen/arrive")
     @Consumes({MediaType.APPLICATION_JSON})
     @Produces({MediaType.APPLICATION_JSON})
-    public synchronized Response confirmMeanArrivalForIntervention(@PathParam("id") long id, Mean mean) {
+    public Response confirmMeanArrivalForIntervention(@PathParam("id") long id, Mean mean) {
         InterventionDAO iD = new InterventionDAO();
-        Boolean meanArrived = false;
-        Mean res = null;
         iD.connect();
-        Intervention intervention = iD.getById(id);
-        List<Mean> meanList = intervention.getMeansList();
-
-        for (Mean m : meanList) {
-            if (m.getId() == mean.getId()) {
-                if (m.getMeanState() == MeanState.ACTIVATED) {
-                    m.setDateArrived(Datetime.getCurrentDate());
-                    m.setMeanState(MeanState.ARRIVED);
-                    res = m;
-                    meanArrived = true;
-                    break;
-                }
-            }
-        }
+        Mean res = iD.confirmMeanArrival(id, mean.getId());
+        iD.disconnect();
 
-        if (meanArrived) {
-            iD.update(intervention);
-            iD.disconnect();
+        if (res != null) {
             try {
                 PushServiceImpl.getInstance().sendMessage(TypeClient.SIMPLEUSER, "moyenArrive", res);
             } catch (IOException e) {
@@ -190,7 +159,6 @@ public class InterventionRest {
         }
         else
         {
-            iD.disconnect();
             return Response.status(Response.Status.BAD_REQUEST).entity("Mean is already arrived or not yet activated").build();
         }
     }
@@ -205,28 +173,13 @@ public class InterventionRest {
     @Path("/{id}/moyen/retourcrm")
     @Consumes({MediaType.APPLICATION_JSON})
     @Produces({MediaType.APPLICATION_JSON})
-    public synchronized Response sendMeanBackToCRMForIntervention(@PathParam("id") long id, Mean mean) {
+    public Response sendMeanBackToCRMForIntervention(@PathParam("id") long id, Mean mean) {
         InterventionDAO iD = new InterventionDAO();
-        Boolean meanEngaged = false;
-        Mean res = null;
         iD.connect();
-        Intervention intervention = iD.getById(id);
-        List<Mean> meanList = intervention.getMeansList();
-
-        for (Mean m : meanList) {
-            if (m.getId() == mean.getId() && (m.getMeanState() == MeanState.ENGAGED)) {
-                m.setCoordinates(new Position(Double.NaN,Double.NaN,Double.NaN));
-                m.setMeanState(MeanState.ARRIVED);
-                m.setInPosition(false);
-                res = m;
-                meanEngaged = true;
-                break;
-            }
-        }
+        Mean res = iD.sendMeanBackToCRM(id, mean.getId());
+        iD.disconnect();
 
-        if (meanEngaged) {
-            iD.update(intervention);
-            iD.disconnect();
+        if (res != null) {
             try {
                 PushServiceImpl.getInstance().sendMessage(TypeClient.SIMPLEUSER, "moyenAuCRM", res);
             } catch (IOException e) {
@@ -236,7 +189,6 @@ public class InterventionRest {
         }
         else
         {
-            iD.disconnect();
             return Response.status(Response.Status.BAD_REQUEST).entity("Mean is not engaged").build();
         }
     }
@@ -251,32 +203,13 @@ public class InterventionRest {
     @Path("/{id}/moyen/libere")
     @Consumes({MediaType.APPLICATION_JSON})
     @Produces({MediaType.APPLICATION_JSON})
-    public synchronized Response releaseMeanForIntervention(@PathParam("id") long id, Mean mean) {
+    public Response releaseMeanForIntervention(@PathParam("id") long id, Mean mean) {
         InterventionDAO iD = new InterventionDAO();
-        Boolean meanReleased = false;
-        Mean res = null;
         iD.connect();
-        Intervention intervention = iD.getById(id);
-        List<Mean> meanList = intervention.getMeansList();
-
-        for (Mean m : meanList) {
-            if (m.getId() == mean.getId() &&
-                       (m.getMeanState() == MeanState.ACTIVATED
-                     || m.getMeanState() == MeanState.ENGAGED
-                     || m.getMeanState() == MeanState.ARRIVED)) {
-                m.setCoordinates(mean.getCoordinates());
-                m.setDateReleased(Datetime.getCurrentDate());
-                m.setMeanState(MeanState.RELEASED);
-                m.setInPosition(false);
-                res = m;
-                meanReleased = true;
-                break;
-            }
-        }
+        Mean res = iD.releaseMean(id, mean.getId(), mean.getCoordinates());
+        iD.disconnect();
 
-        if (meanReleased) {
-            iD.update(intervention);
-            iD.disconnect();
+        if (res != null) {
             try {
                 PushServiceImpl.getInstance().sendMessage(TypeClient.SIMPLEUSER, "moyenLibere", res);
             } catch (IOException e) {
@@ -286,7 +219,6 @@ public class InterventionRest {
         }
         else
         {
-            iD.disconnect();
             return Response.status(Response.Status.BAD_REQUEST).entity("Mean is already released or not in a state where it can be released").build();
         }
     }
@@ -301,15 +233,24 @@ public class InterventionRest {
 	@Path("/{id}/moyenextra")
 	@Consumes({MediaType.APPLICATION_JSON})
 	@Produces({MediaType.APPLICATION_JSON})
-	public synchronized Response addExtraMeanToIntervention(@PathParam("id") long id,Mean meanXtra) {
+	public Response addExtraMeanToIntervention(@PathParam("id") long id, final Mean meanXtra) {
 		InterventionDAO iD = new InterventionDAO();
+		Intervention intervention;
 		iD.connect();
-		Intervention intervention = iD.getById(id);
-		intervention.getMeansList().add(meanXtra);
-
-		iD.update(intervention);
+		try {
+			intervention = iD.modify(id, new InterventionDAO.Modification() {
+				@Override
+				public void apply(Intervention intervention) {
+					intervention.getMeansList().add(meanXtra);
+				}
+			});
+		} finally {
+			iD.disconnect();
+		}
 
-		iD.disconnect();
+		if (intervention == null) {
+			return Response.status(Response.Status.NOT_FOUND).entity("Intervention does not exist").build();
+		}
 
 		try {
 			PushServiceImpl.getInstance().sendMessage(TypeClient.ALL, "xtra", intervention);
@@ -328,11 +269,7 @@ public class InterventionRest {
 	@Path("/{id}/moyen")
 	@Produces({MediaType.APPLICATION_JSON})
 	public Response getMeanListForIntervention(@PathParam("id") long id) {
-		InterventionDAO iD = new InterventionDAO();
-		iD.connect();
-		List<Mean> res = iD.getById(id).getMeansList();
-		iD.disconnect();
-		return Response.ok(res).build();
+		return getCachedIntervention(id, true, Response.Status.NOT_FOUND);
 	}
 
     /**
@@ -343,39 +280,188 @@ public class InterventionRest {
 	@GET
 	@Path("{id}")
 	@Produces({MediaType.APPLICATION_JSON})
-	public Intervention getIntervention(@PathParam("id") long id) {
+	public Response getIntervention(@PathParam("id") long id) {
+		return getCachedIntervention(id, false, Response.Status.NO_CONTENT);
+	}
+
+	/**
+	 * Interventions near of a position, nearest first
+	 * @param maxDistance (optional) distance in meters, NEAR_MAX_DISTANCE by default
+	 * @param limit (optional) maximum number of interventions, DEFAULT_PAGE_SIZE by default and MAX_PAGE_SIZE at most
+	 * @return List<Intervention>, 400 if the distance is negative
+	 */
+	@GET
+	@Path("near/{latitude}/{longitude}")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getInterventionsNear(@PathParam("latitude") double latitude, @PathParam("longitude") double longitude,
+										 @QueryParam("maxDistance") Integer maxDistance, @QueryParam("limit") Integer limit) {
+		if (maxDistance != null && maxDistance < 0) {
+			return Response.status(Response.Status.BAD_REQUEST).entity("maxDistance invalide : " + maxDistance).build();
+		}
+		int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+		InterventionDAO dao = new InterventionDAO();
+		dao.connect();
+		List<Intervention> res = dao.findNear(latitude, longitude,
+				maxDistance == null ? Tools.defaultNearMaxDistance() : maxDistance, pageSize);
+		dao.disconnect();
+		return Response.ok(new GenericEntity<List<Intervention>>(res) {}).build();
+	}
+
+	/**
+	 * Send an intervention, or its means, with its version as ETag
+	 * Only the version is read when the client copy is up to date (304 Not Modified), nothing when it is cached
+	 * @param id id of the intervention
+	 * @param meansOnly true to send only the means
+	 * @param missing status when the intervention does not exist
+	 * @return Response
+	 */
+	private Response getCachedIntervention(long id, boolean meansOnly, Response.Status missing) {
 		InterventionDAO iD = new InterventionDAO();
 		iD.connect();
-		Intervention res = iD.getById(id);
-		iD.disconnect();
-		return res;
+		try {
+			// a cached intervention is checked without reading the database
+			InterventionCache.CachedIntervention cached = iD.findCached(id);
+			EntityVersion version = cached != null ? cached.getVersion() : iD.getVersion(id);
+			if (version == null) {
+				return Response.status(missing).build();
+			}
+			Response.ResponseBuilder notModified = HttpCache.notModified(request,
+					HttpCache.tagOf(id, version.getVersion()), version.getLastModified());
+			if (notModified != null) {
+				return notModified.build();
+			}
+
+			if (cached == null) {
+				cached = iD.load(id);
+			}
+			if (cached == null) {
+				return Response.status(missing).build();
+			}
+			Intervention res = cached.getIntervention();
+			// written meanwhile : the date of the read version does not apply
+			Date lastModified = res.getVersion() == version.getVersion() ? cached.getLastModified() : null;
+			Response.ResponseBuilder response = meansOnly
+					? Response.ok(res.getMeansList())
+					: Response.ok(res);
+			return HttpCache.validators(response, HttpCache.tagOf(id, res.getVersion()), lastModified).build();
+		} finally {
+			iD.disconnect();
+		}
 	}
 
     /**
+     * Page of interventions, newest first
+     * The cursor of the next page is given by the header X-Next-Cursor when the page is full
+     * @param disasterCode only interventions of this disaster code
+     * @param meanState only interventions with at least one mean in this state
+     * @param from only interventions created since this date (milliseconds)
+     * @param to only interventions created before this date (milliseconds)
+     * @param cursor cursor of the page, first page if absent
+     * @param limit size of the page, DEFAULT_PAGE_SIZE if absent with a cursor, at most MAX_PAGE_SIZE ;
+     *              all the interventions if both the cursor and the limit are absent
+     * @param summary true to keep only the id and the state of the means
      * @return List of Intervention
      */
 	@GET
 	@Produces({MediaType.APPLICATION_JSON})
-	public List<Intervention> getAllIntervention() {
+	public Response getAllIntervention(@QueryParam("disasterCode") String disasterCode,
+									   @QueryParam("meanState") String meanState,
+									   @QueryParam("from") Long from,
+									   @QueryParam("to") Long to,
+									   @QueryParam("cursor") String cursor,
+									   @QueryParam("limit") Integer limit,
+									   @QueryParam("summary") boolean summary) {
+		InterventionQuery query = new InterventionQuery();
+		try {
+			if (disasterCode != null) {
+				query.setDisasterCode(DisasterCode.valueOf(disasterCode));
+			}
+			if (meanState != null) {
+				query.setMeanState(MeanState.valueOf(meanState));
+			}
+			if (cursor != null) {
+				query.setCursor(cursor);
+			}
+		} catch (IllegalArgumentException e) {
+			return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+		}
+		if (from != null) {
+			query.setFrom(new Date(from));
+		}
+		if (to != null) {
+			query.setTo(new Date(to));
+		}
+		// the clients which do not page get all the interventions, as before the paging
+		boolean paged = limit != null || cursor != null;
+		int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+		query.setLimit(paged ? pageSize : 0);
+		query.setSummary(summary);
+
 		InterventionDAO iD = new InterventionDAO();
 		iD.connect();
-		List<Intervention> res = iD.getAll();
+		List<Intervention> res = iD.find(query);
 		iD.disconnect();
 
+		Response.ResponseBuilder response = Response.ok(new GenericEntity<List<Intervention>>(res) {});
+		if (paged && res.size() == pageSize) {
+			response.header(NEXT_CURSOR_HEADER, InterventionQuery.cursorOf(res.get(res.size() - 1)));
+		}
+		return response.build();
+	}
 
-		if (res != null) {
-            Collections.sort(res, new Comparator<Intervention>() {
-                public int compare(Intervention c1, Intervention c2) {
-                    long t1 = c1.getDateCreate().getTime();
-                    long t2 = c2.getDateCreate().getTime();
-
+    /**
+     * Page of the images taken by the drone for an intervention, newest first, without their content
+     * (read it with /images/{id}/raw). A client polls with after = cursor of the newest image it has,
+     * and follows X-Next-Cursor until the header is absent.
+     * The cursor of the next page is given by the header X-Next-Cursor when the page is full
+     * @param id id of the intervention
+     * @param since only images taken after this date (milliseconds, excluded)
+     * @param until only images taken until this date (milliseconds, included)
+     * @param after only images newer than the image of this cursor, even in the same millisecond
+     * @param cursor cursor of the page, first page if absent
+     * @param limit size of the page, DEFAULT_PAGE_SIZE if absent, at most MAX_PAGE_SIZE
+     * @return List of GeoImage
+     */
+	@GET
+	@Path("/{id}/images")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getImagesForIntervention(@PathParam("id") long id,
+											 @QueryParam("since") Long since,
+											 @QueryParam("until") Long until,
+											 @QueryParam("after") String after,
+											 @QueryParam("cursor") String cursor,
+											 @QueryParam("limit") Integer limit) {
+		GeoImageQuery query = new GeoImageQuery();
+		query.setInterventionId(id);
+		try {
+			if (cursor != null) {
+				query.setCursor(cursor);
+			}
+			if (after != null) {
+				query.setAfter(after);
+			}
+		} catch (IllegalArgumentException e) {
+			return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+		}
+		if (since != null) {
+			query.setSince(new Date(since));
+		}
+		if (until != null) {
+			query.setUntil(new Date(until));
+		}
+		int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+		query.setLimit(pageSize);
 
-                    return t1 > t2 ? -1 : t1 == t2 ? 0 : 1;
-                }
-            });
-        }
+		GeoImageDAO gID = new GeoImageDAO();
+		gID.connect();
+		List<GeoImage> res = gID.find(query);
+		gID.disconnect();
 
-		return res;
+		Response.ResponseBuilder response = Response.ok(new GenericEntity<List<GeoImage>>(res) {});
+		if (res.size() == pageSize) {
+			response.header(NEXT_CURSOR_HEADER, GeoImageQuery.cursorOf(res.get(res.size() - 1)));
+		}
+		return response.build();
 	}
 
     /**
@@ -386,14 +472,17 @@ public class InterventionRest {
 	@POST
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
-	public synchronized Intervention setIntervention(Intervention intervention) {
+	public Intervention setIntervention(Intervention intervention) {
 		InterventionDAO iD = new InterventionDAO();
 		iD.connect();
 
-		RetrieveAddressImpl adresseIntervention = new RetrieveAddressImpl(intervention.getAddress(), intervention.getPostcode(), intervention.getCity()); 
+		// the address is geocoded unless the client already located the intervention
+		if (intervention.getCoordinates() == null) {
+			RetrieveAddressImpl adresseIntervention = new RetrieveAddressImpl(intervention.getAddress(), intervention.getPostcode(), intervention.getCity());
 
-		Position coordinatesIntervention = adresseIntervention.getCoordinates();
-		intervention.setCoordinates(coordinatesIntervention);
+			Position coordinatesIntervention = adresseIntervention.getCoordinates();
+			intervention.setCoordinates(coordinatesIntervention);
+		}
 
 	//	Date now = new Date();
 	//	SimpleDateFormat formatter = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
@@ -0,0 +1,43 @@
+package rest;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import dao.EntityCursor;
+
+/**
+ * @see
+ * JsonArrayOutput writes the entities of a cursor as a JSON array, element by element as they are read,
+ * so the whole result is never held in memory. The cursor is closed once written, even on error.
+ */
+public class JsonArrayOutput implements StreamingOutput {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final EntityCursor<?> cursor;
+
+    public JsonArrayOutput(EntityCursor<?> cursor) {
+        this.cursor = cursor;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try {
+            JsonGenerator generator = MAPPER.getJsonFactory().createJsonGenerator(output, JsonEncoding.UTF8);
+            generator.writeStartArray();
+            while (cursor.hasNext()) {
+                MAPPER.writeValue(generator, cursor.next());
+                generator.flush();
+            }
+            generator.writeEndArray();
+            generator.flush();
+        } finally {
+            cursor.close();
+        }
+    }
+}
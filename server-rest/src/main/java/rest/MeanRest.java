@@ -13,12 +13,9 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import dao.InterventionDAO;
-import entity.Intervention;
 import entity.Mean;
-import entity.MeanState;
 import service.PushService.TypeClient;
 import service.impl.PushServiceImpl;
-import util.Datetime;
 
 /**
  * @author arno on 12/02/15.
@@ -38,25 +35,13 @@ public class MeanRest {
     @Path("{idintervention}/ok")
     @Consumes({MediaType.APPLICATION_JSON})
     @Produces({MediaType.APPLICATION_JSON})
-    public synchronized Response validateMeanXtra(@PathParam("idintervention") long idintervention, Mean meanXtra) {
+    public Response validateMeanXtra(@PathParam("idintervention") long idintervention, Mean meanXtra) {
         InterventionDAO iD = new InterventionDAO();
-        Mean res = null;
         iD.connect();
-        Intervention intervention = iD.getById(idintervention);
-
-        for (Mean m : intervention.getMeansList()) {
-            if (m.getId() == meanXtra.getId() && m.getMeanState() == MeanState.REQUESTED) {
-                m.setDateActivated(Datetime.getCurrentDate());
-                m.setMeanState(MeanState.ACTIVATED);
-                m.setName(meanXtra.getName());
-                res = m;
-            }
-        }
+        Mean res = iD.activateMean(idintervention, meanXtra.getId(), meanXtra.getName());
+        iD.disconnect();
 
         if (res != null) {
-            iD.update(intervention);
-            iD.disconnect();
-
             try {
                 PushServiceImpl.getInstance().sendMessage(TypeClient.ALL, "ok", res);
             } catch (IOException e) {
@@ -65,7 +50,6 @@ public class MeanRest {
 
             return Response.status(200).entity("Mean is now available").build();
         } else {
-            iD.disconnect();
             return Response.status(Response.Status.BAD_REQUEST).entity("Mean is already activated by Codis").build();
         }
     }
@@ -80,24 +64,13 @@ public class MeanRest {
     @Path("{idintervention}/nok")
     @Consumes({MediaType.APPLICATION_JSON})
     @Produces({MediaType.APPLICATION_JSON})
-    public synchronized Response declineMeanXtra(@PathParam("idintervention") long idintervention,Mean meanXtra) {
+    public Response declineMeanXtra(@PathParam("idintervention") long idintervention,Mean meanXtra) {
         InterventionDAO iD = new InterventionDAO();
-        Mean res = null;
         iD.connect();
-        Intervention intervention = iD.getById(idintervention);
-
-        for (Mean m : intervention.getMeansList()) {
-            if (m.getId() == meanXtra.getId() && m.getMeanState() == MeanState.REQUESTED) {
-                m.setDateRefused(Datetime.getCurrentDate());
-                m.setMeanState(MeanState.REFUSED);
-                res = m;
-            }
-        }
+        Mean res = iD.refuseMean(idintervention, meanXtra.getId());
+        iD.disconnect();
 
         if (res != null) {
-            iD.update(intervention);
-            iD.disconnect();
-
             try {
                 PushServiceImpl.getInstance().sendMessage(TypeClient.ALL, "ok", res);
             } catch (IOException e) {
@@ -106,7 +79,6 @@ public class MeanRest {
 
             return Response.status(200).entity("Mean was refused").build();
         } else {
-            iD.disconnect();
             return Response.status(Response.Status.BAD_REQUEST).entity("Mean cannot be refused by Codis due to its current state").build();
         }
     }
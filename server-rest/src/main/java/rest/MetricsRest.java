@@ -0,0 +1,67 @@
+package rest;
+
+import java.util.Map;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import dao.InterventionCache;
+import dao.MongoClientProvider;
+import service.impl.TopographyTileServiceImpl;
+import service.position.DroneFleet;
+
+/**
+ * @see MetricsRest exposes runtime statistics of the server
+ */
+@Path("/metrics")
+public class MetricsRest {
+
+    /**
+     * @return statistics of the shared Mongo connection pool
+     */
+    @GET
+    @Path("mongo")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getMongoStatistics() {
+        Map<String, Object> res = MongoClientProvider.getInstance().getStatistics();
+        return Response.ok(res).build();
+    }
+
+    /**
+     * @return statistics of the intervention cache (hits, misses, evictions)
+     */
+    @GET
+    @Path("cache")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCacheStatistics() {
+        Map<String, Object> res = InterventionCache.getInstance().getStatistics();
+        return Response.ok(res).build();
+    }
+
+    /**
+     * @return statistics of the topographic tiles kept in memory
+     */
+    @GET
+    @Path("tiles")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getTileStatistics() {
+        Map<String, Object> res = TopographyTileServiceImpl.getInstance().getStatistics();
+        return Response.ok(res).build();
+    }
+
+    /**
+     * @return statistics of each stage of the drone image pipeline (queue, drops, latencies),
+     * and of the push of the moves of the drones
+     */
+    @GET
+    @Path("pipeline")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getPipelineStatistics() {
+        Map<String, Object> res = DroneFleet.getInstance().getImagePipeline().getStatistics();
+        res.put("moves", DroneFleet.getInstance().getMoveStatistics());
+        return Response.ok(res).build();
+    }
+}
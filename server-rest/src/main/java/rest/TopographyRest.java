@@ -10,11 +10,18 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 import dao.GeoIconDAO;
 import entity.GeoIcon;
+import entity.IconCluster;
+import entity.TopographyTile;
+import service.impl.TopographyTileServiceImpl;
+import util.Configuration;
 
 /**
  * @author jerem on 08/04/15.
@@ -24,22 +31,126 @@ import entity.GeoIcon;
 public class TopographyRest {
 
 	private static final Logger LOGGER = Logger.getLogger(TopographyRest.class);
+	private static final int DEFAULT_TILE_MAX_AGE = 60;
+
+	@Context
+	private Request request;
 
 	/**
 	 * Return a json list of static points on the map near specific GeoPosition
-     * Note :  Implementation near (longitude, near latitude are not implemented and therefore missing..
+	 * The ETag is computed from the icons : 304 Not Modified is sent without serializing them
+	 * @param positionLongitude longitude of the center
+	 * @param positionLatitude latitude of the center
+	 * @param rayon radius in meters
 	 * @return List<GeoIcon>
 	 */
 	@GET
 	@Path("{Long}/{Latitude}/{Rayon}")
 	@Produces(MediaType.APPLICATION_JSON)
-	public List<GeoIcon> getCoordinatedIcons(@PathParam("Long") double positionLongitude, @PathParam("Latitude") double positionLatitude, @PathParam("Rayon") long rayon) {
+	public Response getCoordinatedIcons(@PathParam("Long") double positionLongitude, @PathParam("Latitude") double positionLatitude, @PathParam("Rayon") long rayon) {
+		if (rayon < 0) {
+			return Response.status(Response.Status.BAD_REQUEST).entity("Rayon invalide : " + rayon).build();
+		}
+
+		GeoIconDAO gID = new GeoIconDAO();
+		gID.connect();
+		List<GeoIcon> res = gID.findWithin(positionLongitude, positionLatitude, rayon);
+		gID.disconnect();
+
+		return cachedIcons(res);
+	}
+
+	/**
+	 * Return a json list of static points on the map inside the visible region of the map
+	 * @param south southern latitude
+	 * @param west western longitude
+	 * @param north northern latitude
+	 * @param east eastern longitude
+	 * @return List<GeoIcon>
+	 */
+	@GET
+	@Path("box/{south}/{west}/{north}/{east}")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getIconsInBox(@PathParam("south") double south, @PathParam("west") double west, @PathParam("north") double north, @PathParam("east") double east) {
+		if (south > north || south < -90 || north > 90 || Math.abs(west) > 180 || Math.abs(east) > 180) {
+			return Response.status(Response.Status.BAD_REQUEST).entity("Zone invalide").build();
+		}
 
 		GeoIconDAO gID = new GeoIconDAO();
 		gID.connect();
-		List<GeoIcon> res = gID.getAll();
+		List<GeoIcon> res = gID.findInBox(south, west, north, east);
 		gID.disconnect();
-		return res;
+
+		return cachedIcons(res);
+	}
+
+	/**
+	 * Return the icons of a Web-Mercator tile, as the tiles of the map (x from the west, y from the north)
+	 * Up to zoom TILE_CLUSTER_MAX_ZOOM, icons close to each other are sent as clusters with their count
+	 * The tiles are computed once and may be kept TILE_MAX_AGE seconds by the clients
+	 * @param z zoom
+	 * @param x column of the tile
+	 * @param y row of the tile
+	 * @return TopographyTile, 400 if the tile does not exist
+	 */
+	@GET
+	@Path("tiles/{z}/{x}/{y}")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getTile(@PathParam("z") int z, @PathParam("x") int x, @PathParam("y") int y) {
+		TopographyTile tile;
+		try {
+			tile = TopographyTileServiceImpl.getInstance().getTile(z, x, y);
+		} catch (IllegalArgumentException e) {
+			return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+		}
+
+		EntityTag tag = tagOf(tile);
+		Response.ResponseBuilder notModified = HttpCache.notModified(request, tag, null);
+		int maxAge = Configuration.parseInt(Configuration.getTILE_MAX_AGE(), DEFAULT_TILE_MAX_AGE);
+		if (notModified != null) {
+			return HttpCache.shared(notModified, tag, maxAge).build();
+		}
+		return HttpCache.shared(Response.ok(tile), tag, maxAge).build();
+	}
+
+	private Response cachedIcons(List<GeoIcon> icons) {
+		EntityTag tag = tagOf(icons);
+		Response.ResponseBuilder notModified = HttpCache.notModified(request, tag, null);
+		if (notModified != null) {
+			return notModified.build();
+		}
+		return HttpCache.validators(Response.ok(icons), tag, null).build();
+	}
+
+	/**
+	 * Tag computed from the content of the icons, they have no version
+	 * @param icons icons sent
+	 * @return entity tag
+	 */
+	private static EntityTag tagOf(List<GeoIcon> icons) {
+		return HttpCache.tagOf(icons.size(), Long.toHexString(hashOf(icons)));
+	}
+
+	/**
+	 * Tag computed from the content of the tile, the same on every server computing the same tile
+	 * @param tile tile sent
+	 * @return entity tag
+	 */
+	private static EntityTag tagOf(TopographyTile tile) {
+		long hash = hashOf(tile.getIcons());
+		for (IconCluster cluster : tile.getClusters()) {
+			hash = 31 * hash + cluster.hashCode();
+		}
+		return HttpCache.tagOf(tile.getZ(), tile.getX(), tile.getY(), Long.toHexString(hash));
+	}
+
+	private static long hashOf(List<GeoIcon> icons) {
+		long hash = 0;
+		for (GeoIcon icon : icons) {
+			hash = 31 * hash + icon.getId();
+			hash = 31 * hash + icon.hashCode();
+		}
+		return hash;
 	}
 
 	/**
@@ -3,12 +3,17 @@ package service;
 import java.io.IOException;
 
 import com.google.android.gcm.server.MulticastResult;
+import com.google.android.gcm.server.Sender;
 
 public interface PushService {
 	public enum TypeClient {
 		CODIS, SIMPLEUSER, ALL
 	}
 	public void setIsTestMode(boolean isTestMode);
+	/**
+	 * Replace the GCM sender, to push to a stub of GCM
+	 */
+	public void setSender(Sender sender);
 	public void registerClient(TypeClient typeClient, String idClient);
 	public void unregisterClient(String idClient);
 	public MulticastResult sendMessage(TypeClient typeClient, String scope, Object object) throws IOException;
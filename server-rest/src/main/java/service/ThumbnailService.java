@@ -0,0 +1,30 @@
+package service;
+
+/**
+ * Thumbnails of the drone images, stored next to the original image
+ */
+public interface ThumbnailService {
+	/**
+	 * Generate the thumbnails of an image in the background
+	 * @param imageId id of a stored image
+	 */
+	public void generateLater(long imageId);
+
+	/**
+	 * Generate the thumbnails of an image
+	 * @param imageId id of a stored image
+	 * @return number of thumbnails generated
+	 */
+	public int generate(long imageId);
+
+	/**
+	 * @param requested requested size in pixels
+	 * @return smallest thumbnail size at least as large as requested, largest size otherwise
+	 */
+	public int selectSize(int requested);
+
+	/**
+	 * Stop the background generation
+	 */
+	public void shutdown();
+}
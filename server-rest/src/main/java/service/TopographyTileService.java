@@ -0,0 +1,29 @@
+package service;
+
+import java.util.Map;
+
+import entity.TopographyTile;
+
+/**
+ * Topographic icons by Web-Mercator tile, kept in memory once computed
+ */
+public interface TopographyTileService {
+	/**
+	 * @param z zoom
+	 * @param x column of the tile
+	 * @param y row of the tile
+	 * @return icons of the tile, clustered at low zoom ; shared between requests, must not be modified
+	 * @throws IllegalArgumentException if the tile does not exist
+	 */
+	public TopographyTile getTile(int z, int x, int y);
+
+	/**
+	 * Forget all the computed tiles
+	 */
+	public void clear();
+
+	/**
+	 * @return statistics on the use of the tiles kept in memory
+	 */
+	public Map<String, Object> getStatistics();
+}
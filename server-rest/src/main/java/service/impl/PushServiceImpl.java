@@ -29,12 +29,14 @@ public class PushServiceImpl implements PushService {
 	private List<String> registersClientCodis;
 	private List<String> registersClientSimpleuser;
 	private boolean isTestMode;
+	private Sender sender;
 	
 	protected PushServiceImpl() {
 		registersClient = new ArrayList<String>();
 		registersClientCodis = new ArrayList<String>();
 		registersClientSimpleuser = new ArrayList<String>();
 		isTestMode = false;
+		sender = new Sender(SERVER_KEY);
 	}
 	
 	public static PushService getInstance() {
@@ -45,6 +47,10 @@ public class PushServiceImpl implements PushService {
 		this.isTestMode = isTestMode;
 	}
 
+	public void setSender(Sender sender) {
+		this.sender = sender;
+	}
+
 	public void registerClient(TypeClient typeClient, String idClient) {
 		switch (typeClient) {
 			case CODIS:
@@ -73,7 +79,6 @@ public class PushServiceImpl implements PushService {
 		ByteArrayOutputStream output = new ByteArrayOutputStream();
 		ObjectMapper mapper = new ObjectMapper();
 		Builder messageBuilder = new Builder();
-		Sender sender = new Sender(SERVER_KEY);
 
 		mapper.writeValue(output, object);
 
@@ -0,0 +1,138 @@
+package service.impl;
+
+import com.mongodb.gridfs.GridFSDBFile;
+
+import org.apache.log4j.Logger;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import dao.GeoImageDAO;
+import service.ThumbnailService;
+import util.Configuration;
+
+/**
+ * ThumbnailServiceImpl scales the drone images down to the configured sizes (THUMBNAIL_SIZES)
+ * The generation runs on one background thread with a bounded queue, the oldest requests are dropped
+ * when the drone is faster than the generation : clients then get the original image
+ */
+public class ThumbnailServiceImpl implements ThumbnailService {
+	private static final Logger LOGGER = Logger.getLogger(ThumbnailServiceImpl.class);
+
+	private static final ThumbnailService INSTANCE = new ThumbnailServiceImpl();
+	private static final int[] DEFAULT_SIZES = {64, 256};
+	private static final int QUEUE_SIZE = 100;
+
+	private final int[] sizes;
+	private final ThreadPoolExecutor executor;
+
+	protected ThumbnailServiceImpl() {
+		sizes = parseSizes(Configuration.getTHUMBNAIL_SIZES());
+		executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(QUEUE_SIZE), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "thumbnail-generator");
+						thread.setDaemon(true);
+						return thread;
+					}
+				}, new ThreadPoolExecutor.DiscardOldestPolicy());
+	}
+
+	public static ThumbnailService getInstance() {
+		return INSTANCE;
+	}
+
+	@Override
+	public void generateLater(final long imageId) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					generate(imageId);
+				} catch (RuntimeException e) {
+					LOGGER.error("Error thumbnails of image " + imageId, e);
+				}
+			}
+		});
+	}
+
+	@Override
+	public int generate(long imageId) {
+		GeoImageDAO dao = new GeoImageDAO();
+		GridFSDBFile file = dao.findImageFile(imageId);
+		if (file == null) {
+			return 0;
+		}
+		int generated = 0;
+		try {
+			BufferedImage original = ImageIO.read(file.getInputStream());
+			if (original == null) {
+				LOGGER.warn("Image " + imageId + " cannot be decoded, no thumbnail");
+				return 0;
+			}
+			for (int size : sizes) {
+				ByteArrayOutputStream output = new ByteArrayOutputStream();
+				ImageIO.write(scale(original, size), "png", output);
+				dao.storeThumbnail(imageId, size, output.toByteArray());
+				generated++;
+			}
+		} catch (IOException e) {
+			LOGGER.error("Error thumbnails of image " + imageId, e);
+		}
+		return generated;
+	}
+
+	@Override
+	public int selectSize(int requested) {
+		for (int size : sizes) {
+			if (size >= requested) {
+				return size;
+			}
+		}
+		return sizes[sizes.length - 1];
+	}
+
+	@Override
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Scale the image down so its largest side is size, keeping its ratio
+	 */
+	private static BufferedImage scale(BufferedImage original, int size) {
+		double ratio = Math.min(1.0, (double) size / Math.max(original.getWidth(), original.getHeight()));
+		int width = Math.max(1, (int) Math.round(original.getWidth() * ratio));
+		int height = Math.max(1, (int) Math.round(original.getHeight() * ratio));
+		BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = thumbnail.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		graphics.drawImage(original, 0, 0, width, height, null);
+		graphics.dispose();
+		return thumbnail;
+	}
+
+	private static int[] parseSizes(String value) {
+		if (value == null || value.trim().isEmpty()) {
+			return DEFAULT_SIZES;
+		}
+		String[] parts = value.split(",");
+		int[] res = new int[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			res[i] = Configuration.parseInt(parts[i].trim(), DEFAULT_SIZES[0]);
+		}
+		Arrays.sort(res);
+		return res;
+	}
+}
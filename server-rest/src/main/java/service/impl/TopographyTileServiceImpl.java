@@ -0,0 +1,199 @@
+package service.impl;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import dao.GeoIconDAO;
+import entity.GeoIcon;
+import entity.IconCluster;
+import entity.Position;
+import entity.TopographyTile;
+import service.TopographyTileService;
+import util.Configuration;
+import util.WebMercator;
+
+/**
+ * TopographyTileServiceImpl reads the icons of a tile from the database and keeps the result in memory
+ * At zoom TILE_CLUSTER_MAX_ZOOM and below, the tile is cut in a grid of cells and the icons of a cell
+ * are replaced by a cluster when there are several of them.
+ * A computed tile is used until an icon is written on this server or TILE_MAX_AGE seconds have passed :
+ * the generation of the icons is counted by each server, the writes made on another server are only seen
+ * once the tile expired. With several servers, TILE_MAX_AGE bounds how stale a tile may be.
+ */
+public class TopographyTileServiceImpl implements TopographyTileService {
+	private static final Logger LOGGER = Logger.getLogger(TopographyTileServiceImpl.class);
+
+	private static final TopographyTileService INSTANCE = new TopographyTileServiceImpl();
+
+	private static final int DEFAULT_CLUSTER_MAX_ZOOM = 13;
+	private static final int DEFAULT_CACHE_SIZE = 500;
+	private static final int DEFAULT_MAX_AGE = 60;
+
+	/**
+	 * Cells by side of a tile when clustering
+	 */
+	private static final int GRID_SIZE = 8;
+
+	private static final Comparator<GeoIcon> BY_ID = new Comparator<GeoIcon>() {
+		@Override
+		public int compare(GeoIcon first, GeoIcon second) {
+			return Long.compare(first.getId(), second.getId());
+		}
+	};
+
+	private static class CachedTile {
+		private final TopographyTile tile;
+		private final long generation;
+		private final long expiresAt;
+
+		CachedTile(TopographyTile tile, long generation, long expiresAt) {
+			this.tile = tile;
+			this.generation = generation;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final int clusterMaxZoom;
+	private final int maxSize;
+	private final long ttl;
+	private final LinkedHashMap<String, CachedTile> tiles;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	protected TopographyTileServiceImpl() {
+		clusterMaxZoom = Configuration.parseInt(Configuration.getTILE_CLUSTER_MAX_ZOOM(), DEFAULT_CLUSTER_MAX_ZOOM);
+		maxSize = Configuration.parseInt(Configuration.getTILE_CACHE_SIZE(), DEFAULT_CACHE_SIZE);
+		ttl = Configuration.parseInt(Configuration.getTILE_MAX_AGE(), DEFAULT_MAX_AGE) * 1000L;
+		tiles = new LinkedHashMap<String, CachedTile>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedTile> eldest) {
+				if (size() > maxSize) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+		LOGGER.info("Topographic tiles clustered up to zoom " + clusterMaxZoom + ", " + maxSize + " tiles kept in memory");
+	}
+
+	public static TopographyTileService getInstance() {
+		return INSTANCE;
+	}
+
+	@Override
+	public TopographyTile getTile(int z, int x, int y) {
+		if (!WebMercator.isValidTile(z, x, y)) {
+			throw new IllegalArgumentException("Tuile inexistante " + z + "/" + x + "/" + y);
+		}
+		String key = z + "/" + x + "/" + y;
+		long generation = GeoIconDAO.getGeneration();
+		synchronized (this) {
+			CachedTile cached = tiles.get(key);
+			if (cached != null && cached.generation == generation && cached.expiresAt > System.currentTimeMillis()) {
+				hits++;
+				return cached.tile;
+			}
+			misses++;
+		}
+
+		TopographyTile tile = build(z, x, y, read(z, x, y));
+		synchronized (this) {
+			tiles.put(key, new CachedTile(tile, generation, System.currentTimeMillis() + ttl));
+		}
+		return tile;
+	}
+
+	/**
+	 * Icons in the box of latitudes and longitudes of the tile, at every zoom
+	 */
+	private List<GeoIcon> read(int z, int x, int y) {
+		GeoIconDAO dao = new GeoIconDAO();
+		try {
+			dao.connect();
+			return dao.findInBox(WebMercator.tileYToLatitude(y + 1, z), WebMercator.tileXToLongitude(x, z),
+					WebMercator.tileYToLatitude(y, z), WebMercator.tileXToLongitude(x + 1, z));
+		} finally {
+			dao.disconnect();
+		}
+	}
+
+	/**
+	 * Keep the icons inside the tile, clustered at low zoom
+	 */
+	private TopographyTile build(int z, int x, int y, List<GeoIcon> icons) {
+		Collections.sort(icons, BY_ID);
+		int last = (1 << z) - 1;
+		boolean clustered = z <= clusterMaxZoom;
+		TopographyTile tile = new TopographyTile(z, x, y);
+		Map<Integer, List<GeoIcon>> cells = new TreeMap<Integer, List<GeoIcon>>();
+		for (GeoIcon icon : icons) {
+			Position position = icon.getPosition();
+			if (position == null || Double.isNaN(position.getLatitude()) || Double.isNaN(position.getLongitude())) {
+				continue;
+			}
+			double tileX = WebMercator.longitudeToTileX(position.getLongitude(), z);
+			double tileY = WebMercator.latitudeToTileY(position.getLatitude(), z);
+			if (Math.min((int) Math.floor(tileX), last) != x || Math.min((int) Math.floor(tileY), last) != y) {
+				continue;
+			}
+			if (!clustered) {
+				tile.getIcons().add(icon);
+				continue;
+			}
+			int column = Math.min((int) ((tileX - x) * GRID_SIZE), GRID_SIZE - 1);
+			int row = Math.min((int) ((tileY - y) * GRID_SIZE), GRID_SIZE - 1);
+			Integer cell = row * GRID_SIZE + column;
+			List<GeoIcon> cellIcons = cells.get(cell);
+			if (cellIcons == null) {
+				cellIcons = new ArrayList<GeoIcon>();
+				cells.put(cell, cellIcons);
+			}
+			cellIcons.add(icon);
+		}
+
+		for (List<GeoIcon> cellIcons : cells.values()) {
+			if (cellIcons.size() == 1) {
+				tile.getIcons().add(cellIcons.get(0));
+				continue;
+			}
+			double longitude = 0;
+			double latitude = 0;
+			for (GeoIcon icon : cellIcons) {
+				longitude += icon.getPosition().getLongitude();
+				latitude += icon.getPosition().getLatitude();
+			}
+			tile.getClusters().add(new IconCluster(
+					new Position(longitude / cellIcons.size(), latitude / cellIcons.size()), cellIcons.size()));
+		}
+		return tile;
+	}
+
+	@Override
+	public synchronized void clear() {
+		tiles.clear();
+	}
+
+	@Override
+	public synchronized Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+		statistics.put("size", tiles.size());
+		statistics.put("maxSize", maxSize);
+		statistics.put("ttl", ttl);
+		statistics.put("clusterMaxZoom", clusterMaxZoom);
+		statistics.put("hits", hits);
+		statistics.put("misses", misses);
+		statistics.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+		statistics.put("evictions", evictions);
+		return statistics;
+	}
+}
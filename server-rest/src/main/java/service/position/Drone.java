@@ -0,0 +1,301 @@
+package service.position;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import entity.GeoImage;
+import entity.Target;
+import entity.TrackPoint;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.log4j.Logger;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import util.Tools;
+import entity.Position;
+
+/**
+ * Drone of the fleet, flown through its own drone server (drone-server/server.py).
+ * While it follows a target, its position is read on the scheduler of DroneFleet every DRONE_POLL_INTERVAL ms,
+ * one read at a time ; the observers are notified when it does not move, its picture is then processed
+ * by the ImagePipeline of the fleet so that a slow drone server, database or push never delays the reads.
+ * Its moves are pushed to the clients by the fleet, on a thread of their own.
+ * When its drone server does not answer, the reads are retried with an exponential backoff, with jitter,
+ * up to DRONE_POLL_MAX_BACKOFF ms, until it answers again.
+ * When the drone server pushes the positions (onTelemetry), they are not read : each tick only checks
+ * whether a position was pushed since the previous one. Polling resumes if no position is pushed
+ * for DRONE_TELEMETRY_TIMEOUT ms.
+ * Created by alban on 16/04/15.
+ */
+public class Drone implements PositionUnchangedObservable {
+	private static final Logger LOGGER = Logger.getLogger(Drone.class);
+
+	/**
+	 * Failures after which the backoff no longer doubles, the delay is capped anyway
+	 */
+	private static final int MAX_BACKOFF_SHIFT = 16;
+
+	private final DroneFleet fleet;
+	private final String id;
+	private final String serverUrl;
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final List<PositionUnchangedObserver> positionObservers = new CopyOnWriteArrayList<PositionUnchangedObserver>();
+	private Position position;
+	private GeoImage image;
+	private TransitDroneSender sender;
+	private Telemetry telemetry;
+
+	/**
+	 * Date of the last position pushed by the drone server, 0 if it never pushed
+	 */
+	private long lastTelemetry;
+	private boolean movedSinceTick;
+
+	/**
+	 * Reads of the position during one flight, rescheduled by itself after each read
+	 */
+	private class Telemetry implements Runnable {
+		private int failures;
+		private boolean pushed;
+		private ScheduledFuture<?> next;
+
+		void schedule(long delay) {
+			next = fleet.getScheduler().schedule(this, delay, TimeUnit.MILLISECONDS);
+		}
+
+		void cancel() {
+			if (next != null) {
+				next.cancel(false);
+			}
+		}
+
+		@Override
+		public void run() {
+			boolean read = false;
+			try {
+				if (isPushing()) {
+					if (!pushed) {
+						LOGGER.info("Drone " + id + " pushes its telemetry, its position is no longer polled");
+						pushed = true;
+					}
+					read = true;
+					checkPushedPosition();
+				} else {
+					if (pushed) {
+						LOGGER.warn("No telemetry pushed by drone " + id + " for " + fleet.getTelemetryTimeout() + " ms, its position is polled");
+						pushed = false;
+					}
+					read = readPosition();
+				}
+			} catch (RuntimeException e) {
+				LOGGER.error("Telemetry error of drone " + id, e);
+			} finally {
+				synchronized (Drone.this) {
+					// landed, or flying another target, while reading
+					if (telemetry == this) {
+						if (read && failures > 0) {
+							LOGGER.info("Drone " + id + " answers again after " + failures + " failures");
+						}
+						failures = read ? 0 : failures + 1;
+						schedule(read ? fleet.getPollInterval() : backoff(failures));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param fleet fleet which reads the positions of the drone
+	 * @param id id of the drone in the fleet
+	 * @param serverUrl url of its drone server
+	 */
+	Drone(DroneFleet fleet, String id, String serverUrl) {
+		this.fleet = fleet;
+		this.id = id;
+		this.serverUrl = serverUrl;
+		this.position = new Position(0.0, 0.0, 0.0);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getServerUrl() {
+		return serverUrl;
+	}
+
+	/**
+	 * @return client of the drone servers, its connections are pooled by the fleet
+	 */
+	HttpClient getHttpClient() {
+		return fleet.getHttpClient();
+	}
+
+	ImagePipeline getImagePipeline() {
+		return fleet.getImagePipeline();
+	}
+
+	public synchronized Position getPosition() {
+		return position;
+	}
+
+	public synchronized GeoImage getImage() {
+		return image;
+	}
+
+	synchronized void setImage(GeoImage image) {
+		this.image = image;
+	}
+
+	/**
+	 * @return the target followed, null if the drone does not fly
+	 */
+	public synchronized Target getTarget() {
+		return sender == null ? null : sender.getTarget();
+	}
+
+	/**
+	 * Follow a new target, replacing the current one
+	 */
+	public synchronized void fly(Target target) {
+		land();
+		sender = new TransitDroneSender(this, target);
+		addObserversPositionsUnhanged(sender);
+		telemetry = new Telemetry();
+		telemetry.schedule(0);
+	}
+
+	/**
+	 * Stop following the target, the position is no longer read
+	 */
+	public synchronized void land() {
+		if (telemetry != null) {
+			telemetry.cancel();
+			telemetry = null;
+		}
+		flushPositionUnchangedObservers();
+		sender = null;
+	}
+
+	/**
+	 * Read the position once, push it if the drone moved, notify the observers otherwise
+	 * @return false if the drone server did not answer
+	 */
+	private boolean readPosition() {
+		GetMethod getPosition = new GetMethod(serverUrl + "/position");
+		try {
+			int status = getHttpClient().executeMethod(getPosition);
+			if (status != HttpStatus.SC_OK) {
+				LOGGER.warn("Get position of drone " + id + " : HTTP " + status);
+				return false;
+			}
+			Position read = mapper.readValue(getPosition.getResponseBodyAsString(), Position.class);
+			if (read == null || !move(read)) {
+				notifyObserversForPositionUnchanged();
+			}
+			return true;
+		} catch (IOException e) {
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Get position error of drone " + id, e);
+			} else {
+				LOGGER.warn("Get position error of drone " + id + " : " + e.getMessage());
+			}
+			return false;
+		} finally {
+			getPosition.releaseConnection();
+		}
+	}
+
+	/**
+	 * Position pushed by the drone server, as soon as the drone moves
+	 */
+	public void onTelemetry(Position read) {
+		synchronized (this) {
+			lastTelemetry = System.currentTimeMillis();
+		}
+		if (move(read)) {
+			synchronized (this) {
+				movedSinceTick = true;
+			}
+		}
+	}
+
+	/**
+	 * @return true if the drone server pushed a position recently, then it is not polled
+	 */
+	private synchronized boolean isPushing() {
+		return lastTelemetry > 0 && System.currentTimeMillis() - lastTelemetry <= fleet.getTelemetryTimeout();
+	}
+
+	/**
+	 * Notify the observers if no move was pushed since the previous tick
+	 */
+	private void checkPushedPosition() {
+		boolean moved;
+		synchronized (this) {
+			moved = movedSinceTick;
+			movedSinceTick = false;
+		}
+		if (!moved) {
+			notifyObserversForPositionUnchanged();
+		}
+	}
+
+	/**
+	 * Update the position, append it to the flight track and push it to the clients if the drone moved
+	 * @return true if the drone moved
+	 */
+	private boolean move(Position read) {
+		long interventionId;
+		synchronized (this) {
+			if (Tools.isSamePositions(position, read)) {
+				return false;
+			}
+			position = read;
+			interventionId = sender == null ? 0 : sender.getTarget().getInterventionId();
+		}
+		fleet.getTrackRecorder().record(new TrackPoint(id, interventionId, read, new Date()));
+		fleet.pushMove(id, read);
+		return true;
+	}
+
+	/**
+	 * Delay before the next read after failures : the interval doubled by failure, up to the maximum,
+	 * drawn between its half and itself so that the drones of a lost network do not retry together
+	 */
+	long backoff(int failures) {
+		long interval = fleet.getPollInterval();
+		long delay = Math.min(fleet.getMaxBackoff(), interval << Math.min(failures, MAX_BACKOFF_SHIFT));
+		delay = Math.max(delay, 1);
+		return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+	}
+
+	@Override
+	public void addObserversPositionsUnhanged(PositionUnchangedObserver observer) {
+		this.positionObservers.add(observer);
+	}
+
+	@Override
+	public void removeObserversPositionsUnhanged(PositionUnchangedObserver observer) {
+		this.positionObservers.remove(observer);
+	}
+
+	@Override
+	public void notifyObserversForPositionUnchanged() {
+		for (PositionUnchangedObserver observer : positionObservers) {
+			observer.notifyPositionUnchanged();
+		}
+	}
+
+	@Override
+	public void flushPositionUnchangedObservers() {
+		this.positionObservers.clear();
+	}
+}
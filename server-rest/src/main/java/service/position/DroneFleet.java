@@ -0,0 +1,285 @@
+package service.position;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import entity.Position;
+import entity.Target;
+import service.PushService.TypeClient;
+import service.impl.PushServiceImpl;
+import util.Configuration;
+
+/**
+ * DroneFleet registers the drones by id : DEFAULT_DRONE on SERVER_PYTHON,
+ * and the drones of DRONE_SERVERS ("id=url,id=url").
+ * The positions of all the drones flying are read on one scheduler of DRONE_SCHEDULER_THREADS threads,
+ * a drone occupies a thread only while its position is read, through one pool of HTTP connections
+ * kept alive between the reads.
+ * A drone which pushes its telemetry (POST /drone/{id}/telemetry) is no longer polled,
+ * until it stays silent for DRONE_TELEMETRY_TIMEOUT ms.
+ * The moves of the drones are appended to their flight tracks by TrackRecorder, on the same scheduler,
+ * and pushed to the clients on a thread of their own : a slow push never delays the reads.
+ * When DRONE_PIPELINE_QUEUE_SIZE moves wait for the push, the oldest is dropped, a newer position follows it.
+ * Their pictures are processed by the ImagePipeline, on threads of its own (DRONE_PIPELINE_THREADS by stage).
+ */
+public class DroneFleet {
+	private static final Logger LOGGER = Logger.getLogger(DroneFleet.class);
+	private static final DroneFleet INSTANCE = new DroneFleet();
+	private static final int DEFAULT_SCHEDULER_THREADS = 4;
+	private static final int DEFAULT_POLL_INTERVAL = 3000;
+	private static final int DEFAULT_MAX_BACKOFF = 60000;
+	private static final int DEFAULT_HTTP_TIMEOUT = 2000;
+	private static final int DEFAULT_TELEMETRY_TIMEOUT = 10000;
+	private static final int DEFAULT_TRACK_FLUSH_INTERVAL = 1000;
+	private static final int DEFAULT_PIPELINE_THREADS = 2;
+	private static final int DEFAULT_PIPELINE_QUEUE_SIZE = 32;
+
+	public static final String DEFAULT_DRONE = "default";
+
+	private final ConcurrentMap<String, Drone> drones = new ConcurrentHashMap<String, Drone>();
+	private final ScheduledThreadPoolExecutor scheduler;
+	private final MultiThreadedHttpConnectionManager connectionManager;
+	private final HttpClient httpClient;
+	private final long pollInterval;
+	private final long maxBackoff;
+	private final long telemetryTimeout;
+	private final TrackRecorder trackRecorder = new TrackRecorder();
+	private final ImagePipeline imagePipeline;
+	private final ThreadPoolExecutor movePusher;
+	private final AtomicLong pushedMoves = new AtomicLong();
+	private final AtomicLong droppedMoves = new AtomicLong();
+
+	protected DroneFleet() {
+		int threads = Configuration.parseInt(Configuration.getDRONE_SCHEDULER_THREADS(), DEFAULT_SCHEDULER_THREADS);
+		scheduler = new ScheduledThreadPoolExecutor(Math.max(1, threads), new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "drone-fleet-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		scheduler.setRemoveOnCancelPolicy(true);
+		pollInterval = Math.max(1, Configuration.parseInt(Configuration.getDRONE_POLL_INTERVAL(), DEFAULT_POLL_INTERVAL));
+		maxBackoff = Math.max(pollInterval, Configuration.parseInt(Configuration.getDRONE_POLL_MAX_BACKOFF(), DEFAULT_MAX_BACKOFF));
+		telemetryTimeout = Configuration.parseInt(Configuration.getDRONE_TELEMETRY_TIMEOUT(), DEFAULT_TELEMETRY_TIMEOUT);
+
+		int pipelineThreads = Math.max(1, Configuration.parseInt(Configuration.getDRONE_PIPELINE_THREADS(), DEFAULT_PIPELINE_THREADS));
+		int pipelineQueueSize = Math.max(1, Configuration.parseInt(Configuration.getDRONE_PIPELINE_QUEUE_SIZE(), DEFAULT_PIPELINE_QUEUE_SIZE));
+		imagePipeline = new ImagePipeline(pipelineThreads, pipelineQueueSize);
+		movePusher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(pipelineQueueSize), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "drone-move-push");
+						thread.setDaemon(true);
+						return thread;
+					}
+				}, new RejectedExecutionHandler() {
+					@Override
+					public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+						if (executor.isShutdown()) {
+							return;
+						}
+						// as ThreadPoolExecutor.DiscardOldestPolicy, counted
+						if (executor.getQueue().poll() != null) {
+							droppedMoves.incrementAndGet();
+						}
+						executor.execute(runnable);
+					}
+				});
+
+		// the drone servers are called from the threads of the scheduler, and of the capture and waypoint stages
+		int connections = Math.max(1, threads) + 2 * pipelineThreads;
+		connectionManager = new MultiThreadedHttpConnectionManager();
+		HttpConnectionManagerParams params = connectionManager.getParams();
+		params.setMaxTotalConnections(connections);
+		params.setDefaultMaxConnectionsPerHost(connections);
+		int timeout = Configuration.parseInt(Configuration.getDRONE_HTTP_TIMEOUT(), DEFAULT_HTTP_TIMEOUT);
+		params.setConnectionTimeout(timeout);
+		params.setSoTimeout(timeout);
+		httpClient = new HttpClient(connectionManager);
+
+		long flushInterval = Math.max(1, Configuration.parseInt(Configuration.getTRACK_FLUSH_INTERVAL(), DEFAULT_TRACK_FLUSH_INTERVAL));
+		scheduler.scheduleWithFixedDelay(trackRecorder, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+
+		register(DEFAULT_DRONE, Configuration.getSERVER_PYTHON());
+		String servers = Configuration.getDRONE_SERVERS();
+		if (servers != null) {
+			for (String server : servers.split(",")) {
+				String[] idUrl = server.trim().split("=", 2);
+				if (idUrl.length == 2 && !idUrl[0].trim().isEmpty()) {
+					register(idUrl[0].trim(), idUrl[1].trim());
+				} else if (!server.trim().isEmpty()) {
+					LOGGER.warn("Drone server " + server + " ignored, expected id=url");
+				}
+			}
+		}
+	}
+
+	public static DroneFleet getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Add a drone to the fleet, does nothing if the id is already registered
+	 * @return the drone registered with this id
+	 */
+	public Drone register(String id, String serverUrl) {
+		Drone drone = new Drone(this, id, serverUrl);
+		Drone existing = drones.putIfAbsent(id, drone);
+		if (existing != null) {
+			return existing;
+		}
+		LOGGER.info("Drone " + id + " registered on " + serverUrl);
+		return drone;
+	}
+
+	/**
+	 * @return the drone, null if there is no drone with this id
+	 */
+	public Drone getDrone(String id) {
+		return drones.get(id);
+	}
+
+	public Collection<Drone> getDrones() {
+		return drones.values();
+	}
+
+	/**
+	 * @return the drones flying over an intervention
+	 */
+	public List<Drone> getDronesOfIntervention(long interventionId) {
+		List<Drone> res = new ArrayList<Drone>();
+		for (Drone drone : drones.values()) {
+			Target target = drone.getTarget();
+			if (target != null && target.getInterventionId() == interventionId) {
+				res.add(drone);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * The drone follows the target, replacing its current target
+	 * @return the drone, null if there is no drone with this id
+	 */
+	public Drone fly(String id, Target target) {
+		Drone drone = drones.get(id);
+		if (drone != null) {
+			drone.fly(target);
+		}
+		return drone;
+	}
+
+	/**
+	 * @return the drone, null if there is no drone with this id
+	 */
+	public Drone land(String id) {
+		Drone drone = drones.get(id);
+		if (drone != null) {
+			drone.land();
+		}
+		return drone;
+	}
+
+	/**
+	 * Stop reading the positions of all the drones
+	 */
+	public void shutdown() {
+		for (Drone drone : drones.values()) {
+			drone.land();
+		}
+		scheduler.shutdownNow();
+		movePusher.shutdownNow();
+		imagePipeline.shutdown();
+		connectionManager.shutdown();
+		// the positions queued since the last write
+		trackRecorder.run();
+	}
+
+	ScheduledExecutorService getScheduler() {
+		return scheduler;
+	}
+
+	HttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	long getPollInterval() {
+		return pollInterval;
+	}
+
+	long getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	long getTelemetryTimeout() {
+		return telemetryTimeout;
+	}
+
+	TrackRecorder getTrackRecorder() {
+		return trackRecorder;
+	}
+
+	/**
+	 * Push the move of a drone to the clients, on the push thread
+	 * @param droneId id of the drone
+	 * @param position its new position
+	 */
+	void pushMove(final String droneId, final Position position) {
+		movePusher.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					PushServiceImpl.getInstance().sendMessage(TypeClient.SIMPLEUSER, "droneMove", position);
+					pushedMoves.incrementAndGet();
+				} catch (IOException e) {
+					LOGGER.error("Push of the position of drone " + droneId + " failed", e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return statistics of the push of the moves : waiting, pushed, and dropped when too many were waiting,
+	 * and of their flight tracks
+	 */
+	public Map<String, Object> getMoveStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+		statistics.put("queued", movePusher.getQueue().size());
+		statistics.put("pushed", pushedMoves.get());
+		statistics.put("dropped", droppedMoves.get());
+		statistics.put("track", trackRecorder.getStatistics());
+		return statistics;
+	}
+
+	/**
+	 * @return the stages which process the pictures of the drones
+	 */
+	public ImagePipeline getImagePipeline() {
+		return imagePipeline;
+	}
+}
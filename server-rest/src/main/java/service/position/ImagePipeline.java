@@ -0,0 +1,280 @@
+package service.position;
+
+import org.apache.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import entity.GeoImage;
+
+/**
+ * ImagePipeline processes the pictures of the drones out of the telemetry loop, in stages :
+ * capture (GET /picture), then both the next waypoint (POST /position) and persist (Mongo),
+ * then notify (GCM push) once the picture is stored.
+ * Each stage has its own threads and a bounded queue of DRONE_PIPELINE_QUEUE_SIZE tasks.
+ * When the capture queue is full its oldest task is dropped : a newer picture replaces an older one.
+ * The pictures captured are never dropped : when a later stage is full, the stage before runs the task itself,
+ * which slows the capture down until its own queue drops pictures not taken yet.
+ * A drone has at most one picture in the pipeline, until its next waypoint is sent : the ticks in between are skipped.
+ */
+public class ImagePipeline {
+	private static final Logger LOGGER = Logger.getLogger(ImagePipeline.class);
+
+	/**
+	 * Time given to the pictures captured to be stored and pushed when the server stops
+	 */
+	private static final long SHUTDOWN_TIMEOUT = 5000;
+
+	private final Stage capture;
+	private final Stage persist;
+	private final Stage notify;
+	private final Stage waypoint;
+	private final AtomicLong skipped = new AtomicLong();
+
+	/**
+	 * Task of a stage for a drone ; the drone is released if the task holds it and is dropped or fails
+	 */
+	private abstract static class StageTask implements Runnable {
+		private final Stage stage;
+		private final TransitDroneSender sender;
+		private final boolean holdsDrone;
+		private final long enqueued = System.nanoTime();
+
+		/**
+		 * @param holdsDrone true if the next picture of the drone waits for this task
+		 */
+		StageTask(Stage stage, TransitDroneSender sender, boolean holdsDrone) {
+			this.stage = stage;
+			this.sender = sender;
+			this.holdsDrone = holdsDrone;
+		}
+
+		abstract void process() throws Exception;
+
+		void release() {
+			if (holdsDrone) {
+				sender.processed();
+			}
+		}
+
+		/**
+		 * The task will not run : queue full, or server stopping
+		 */
+		void dropped() {
+			stage.dropped.incrementAndGet();
+			release();
+			if (stage.dropOldest) {
+				// the next tick takes a newer picture
+				LOGGER.info("Image pipeline, " + stage.name + " of drone " + sender.getDroneId() + " dropped");
+			} else {
+				LOGGER.warn("Image pipeline, " + stage.name + " of drone " + sender.getDroneId() + " dropped");
+			}
+		}
+
+		@Override
+		public void run() {
+			long start = System.nanoTime();
+			try {
+				process();
+				stage.completed.incrementAndGet();
+			} catch (Exception e) {
+				stage.failed.incrementAndGet();
+				LOGGER.error("Image pipeline, " + stage.name + " of drone " + sender.getDroneId() + " failed", e);
+				release();
+			} finally {
+				stage.record(start - enqueued, System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * Executor of a stage and its statistics
+	 */
+	private static class Stage {
+		private final String name;
+		private final boolean dropOldest;
+		private final ThreadPoolExecutor executor;
+		private final AtomicLong completed = new AtomicLong();
+		private final AtomicLong failed = new AtomicLong();
+		private final AtomicLong dropped = new AtomicLong();
+		private final AtomicLong waitNanos = new AtomicLong();
+		private final AtomicLong runNanos = new AtomicLong();
+		private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+		/**
+		 * @param dropOldest true to drop the oldest task when the queue is full, the caller runs the task otherwise
+		 */
+		Stage(final String name, int threads, int queueSize, final boolean dropOldest) {
+			this.name = name;
+			this.dropOldest = dropOldest;
+			executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "drone-" + name + "-" + count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					}, new RejectedExecutionHandler() {
+						@Override
+						public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+							if (executor.isShutdown()) {
+								((StageTask) runnable).dropped();
+							} else if (dropOldest) {
+								// as ThreadPoolExecutor.DiscardOldestPolicy, but the drone of the task is released
+								StageTask oldest = (StageTask) executor.getQueue().poll();
+								if (oldest != null) {
+									oldest.dropped();
+								}
+								executor.execute(runnable);
+							} else {
+								// as ThreadPoolExecutor.CallerRunsPolicy : the previous stage slows down
+								runnable.run();
+							}
+						}
+					});
+		}
+
+		void execute(StageTask task) {
+			executor.execute(task);
+		}
+
+		void record(long wait, long run) {
+			waitNanos.addAndGet(wait);
+			runNanos.addAndGet(run);
+			long latency = wait + run;
+			long max = maxLatencyNanos.get();
+			while (latency > max && !maxLatencyNanos.compareAndSet(max, latency)) {
+				max = maxLatencyNanos.get();
+			}
+		}
+
+		/**
+		 * Stop the stage : the running tasks get SHUTDOWN_TIMEOUT ms to end, the queued ones are dropped
+		 * @param drain true to run the queued tasks first, within SHUTDOWN_TIMEOUT ms
+		 */
+		void shutdown(boolean drain) throws InterruptedException {
+			executor.shutdown();
+			if (drain && executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				return;
+			}
+			List<Runnable> queued = executor.shutdownNow();
+			for (Runnable task : queued) {
+				((StageTask) task).dropped();
+			}
+			if (!queued.isEmpty()) {
+				LOGGER.warn("Image pipeline stopped, " + queued.size() + " tasks of " + name + " dropped");
+			}
+			if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				LOGGER.warn("Image pipeline stopped, " + executor.getActiveCount() + " tasks of " + name + " still running");
+			}
+		}
+
+		Map<String, Object> getStatistics() {
+			Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+			long done = completed.get() + failed.get();
+			statistics.put("queued", executor.getQueue().size());
+			statistics.put("active", executor.getActiveCount());
+			statistics.put("completed", completed.get());
+			statistics.put("failed", failed.get());
+			statistics.put("dropped", dropped.get());
+			statistics.put("meanWaitMs", done == 0 ? 0.0 : waitNanos.get() / 1e6 / done);
+			statistics.put("meanRunMs", done == 0 ? 0.0 : runNanos.get() / 1e6 / done);
+			statistics.put("maxLatencyMs", maxLatencyNanos.get() / 1e6);
+			return statistics;
+		}
+	}
+
+	/**
+	 * @param threads threads of each stage
+	 * @param queueSize tasks waiting in each stage
+	 */
+	ImagePipeline(int threads, int queueSize) {
+		capture = new Stage("capture", threads, queueSize, true);
+		persist = new Stage("persist", threads, queueSize, false);
+		notify = new Stage("notify", threads, queueSize, false);
+		waypoint = new Stage("waypoint", threads, queueSize, false);
+	}
+
+	/**
+	 * Take the picture of the drone and send it to its next waypoint, in the background
+	 */
+	void process(final TransitDroneSender sender) {
+		if (!sender.startProcessing()) {
+			skipped.incrementAndGet();
+			return;
+		}
+		capture.execute(new StageTask(capture, sender, true) {
+			@Override
+			void process() throws Exception {
+				final GeoImage image = sender.takePicture();
+				if (image == null) {
+					sender.processed();
+					return;
+				}
+				waypoint.execute(new StageTask(waypoint, sender, true) {
+					@Override
+					void process() throws Exception {
+						try {
+							sender.sendNextPosition();
+						} finally {
+							sender.processed();
+						}
+					}
+				});
+				persist.execute(new StageTask(persist, sender, false) {
+					@Override
+					void process() {
+						final GeoImage stored = sender.store(image);
+						notify.execute(new StageTask(notify, sender, false) {
+							@Override
+							void process() throws Exception {
+								sender.push(stored);
+							}
+						});
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Stop the stages : no more pictures are taken, the pictures captured are stored and pushed
+	 * within SHUTDOWN_TIMEOUT ms by stage, the ones left are dropped and logged
+	 */
+	void shutdown() {
+		try {
+			// the captures running hand their pictures to persist before it stops
+			capture.shutdown(false);
+			waypoint.shutdown(false);
+			persist.shutdown(true);
+			notify.shutdown(true);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.warn("Image pipeline interrupted while stopping");
+		}
+	}
+
+	/**
+	 * @return statistics of each stage : tasks queued, running, completed, failed, dropped, and their latencies
+	 */
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+		statistics.put("skipped", skipped.get());
+		statistics.put("capture", capture.getStatistics());
+		statistics.put("persist", persist.getStatistics());
+		statistics.put("notify", notify.getStatistics());
+		statistics.put("waypoint", waypoint.getStatistics());
+		return statistics;
+	}
+}
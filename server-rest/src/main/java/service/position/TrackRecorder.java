@@ -0,0 +1,92 @@
+package service.position;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dao.TrackPointDAO;
+import entity.TrackPoint;
+
+/**
+ * TrackRecorder appends the positions of the drones to their flight tracks.
+ * The positions are queued by the drones, then written in bulk by the scheduler of DroneFleet
+ * every TRACK_FLUSH_INTERVAL ms, a drone never waits for the database.
+ * At most DEFAULT_CAPACITY positions wait : when the database does not keep up, the oldest are dropped
+ * and counted, as the pictures of the capture stage of the ImagePipeline.
+ */
+public class TrackRecorder implements Runnable {
+	private static final Logger LOGGER = Logger.getLogger(TrackRecorder.class);
+
+	private static final int DEFAULT_CAPACITY = 10000;
+
+	private final int capacity;
+	private final ArrayBlockingQueue<TrackPoint> pending;
+	private final AtomicLong dropped = new AtomicLong();
+	private long reported;
+
+	public TrackRecorder() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity positions waiting at most
+	 */
+	TrackRecorder(int capacity) {
+		this.capacity = capacity;
+		pending = new ArrayBlockingQueue<TrackPoint>(capacity);
+	}
+
+	/**
+	 * Queue a position, dropping the oldest one if the queue is full
+	 */
+	public void record(TrackPoint point) {
+		while (!pending.offer(point)) {
+			if (pending.poll() != null) {
+				dropped.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Write the positions queued
+	 */
+	@Override
+	public void run() {
+		long total = dropped.get();
+		if (total > reported) {
+			LOGGER.warn((total - reported) + " positions of the flight tracks dropped, the database does not keep up");
+			reported = total;
+		}
+		List<TrackPoint> points = new ArrayList<TrackPoint>();
+		pending.drainTo(points);
+		if (points.isEmpty()) {
+			return;
+		}
+		TrackPointDAO dao = new TrackPointDAO();
+		try {
+			dao.connect();
+			dao.createAll(points);
+		} catch (RuntimeException e) {
+			// an exception would cancel the next writes
+			LOGGER.error(points.size() + " positions of the flight tracks lost", e);
+		} finally {
+			dao.disconnect();
+		}
+	}
+
+	/**
+	 * @return positions waiting to be written, and dropped since the start
+	 */
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+		statistics.put("queued", pending.size());
+		statistics.put("capacity", capacity);
+		statistics.put("dropped", dropped.get());
+		return statistics;
+	}
+}
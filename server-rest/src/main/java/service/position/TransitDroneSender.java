@@ -4,7 +4,7 @@ import dao.GeoImageDAO;
 import entity.GeoImage;
 import entity.Target;
 
-import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.httpclient.methods.RequestEntity;
@@ -14,86 +14,137 @@ import org.codehaus.jackson.map.ObjectMapper;
 
 import service.PushService.TypeClient;
 import service.impl.PushServiceImpl;
-import util.Configuration;
+import service.impl.ThumbnailServiceImpl;
 
 import javax.ws.rs.core.MediaType;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * TransitDroneSender moves a drone along its target : each time the drone does not move,
+ * its picture is taken, then the next position of the target is sent to its drone server while the picture
+ * is stored and pushed ; these steps run on the ImagePipeline of the fleet, not on the telemetry loop
  * Created by alban on 16/04/15.
  */
 public class TransitDroneSender implements PositionUnchangedObserver {
 	private static final Logger LOGGER = Logger.getLogger(TransitDroneSender.class);
-	private static TransitDroneSender INSTANCE = new TransitDroneSender();
-	private Target target;
+	private final Drone drone;
+	private final Target target;
 	private int index = 0;
 	private boolean isIncrement;
-	
-	public static TransitDroneSender getINSTANCE() {
-		return INSTANCE;
-	}
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final AtomicBoolean processing = new AtomicBoolean();
 	
 	public Target getTarget() {
 		return target;
 	}
-	
-	public void setTarget(Target target) {
-		this.target = target;
+
+	String getDroneId() {
+		return drone.getId();
 	}
 
-	protected TransitDroneSender() {
+	protected TransitDroneSender(Drone drone, Target target) {
+		this.drone = drone;
+		this.target = target;
 		this.isIncrement = true;
 	}
 
 	@Override
 	public void notifyPositionUnchanged() {
-		try {
-			HttpClient client = new HttpClient();
-			ObjectMapper mapper = new ObjectMapper();
+		drone.getImagePipeline().process(this);
+	}
 
-			GetMethod getImage = new GetMethod(Configuration.getSERVER_PYTHON() + "/picture");
-			client.executeMethod(getImage);
+	/**
+	 * @return false if the previous picture of the drone is still in the pipeline
+	 */
+	boolean startProcessing() {
+		return processing.compareAndSet(false, true);
+	}
+
+	/**
+	 * The next picture may be taken
+	 */
+	void processed() {
+		processing.set(false);
+	}
 
-			GeoImage image = mapper.readValue(
-					getImage.getResponseBodyAsString(), GeoImage.class);
+	/**
+	 * @return the picture of the drone, null if its drone server did not give it
+	 */
+	GeoImage takePicture() throws IOException {
+		GetMethod getImage = new GetMethod(drone.getServerUrl() + "/picture");
+		try {
+			int status = drone.getHttpClient().executeMethod(getImage);
+			if (status != HttpStatus.SC_OK) {
+				LOGGER.warn("Get picture of drone " + drone.getId() + " : HTTP " + status);
+				return null;
+			}
+			GeoImage image = mapper.readValue(getImage.getResponseBodyAsString(), GeoImage.class);
 			image.setInterventionId(target.getInterventionId());
+			return image;
+		} finally {
+			// the connections go back to the pool of the fleet
+			getImage.releaseConnection();
+		}
+	}
 
-			GeoImageDAO dao = new GeoImageDAO();
-			dao.connect();
-			dao.create(image);
-			dao.disconnect();
+	GeoImage store(GeoImage image) {
+		GeoImageDAO dao = new GeoImageDAO();
+		dao.connect();
+		// only the metadata is pushed, the clients fetch the bytes from /images/{id}/raw
+		GeoImage stored = dao.create(image);
+		dao.disconnect();
+		drone.setImage(stored);
+		ThumbnailServiceImpl.getInstance().generateLater(stored.getId());
+		return stored;
+	}
 
-			PushServiceImpl.getInstance().sendMessage(TypeClient.SIMPLEUSER, "imageDrone", image);
+	void push(GeoImage stored) throws IOException {
+		PushServiceImpl.getInstance().sendMessage(TypeClient.SIMPLEUSER, "imageDrone", stored);
+	}
 
-			if (target.getPositions().size() > 0) {
-				ByteArrayOutputStream output = new ByteArrayOutputStream();
-				PostMethod postMethod = new PostMethod( Configuration.getSERVER_PYTHON() + "/position");
-				mapper.writeValue(output, target.getPositions().get(index));
-				RequestEntity requestEntity = new StringRequestEntity( output.toString(), MediaType.APPLICATION_JSON, "UTF-8");
-				postMethod.setRequestEntity(requestEntity);
-				client.executeMethod(postMethod);
-				LOGGER.trace("send position " + index + " : " + target.getPositions().get(index));
-				if (target.getPositions().size() > 1) {
-					if (target.isClose()) {
-						index = (index >= target.getPositions().size() - 1) ? 0 : index + 1;
-					} else {
-						if (isIncrement) {
-							if (index >= target.getPositions().size() - 1) {
-								isIncrement = false;
-							}
-						} else {
-							if (index == 0) {
-								isIncrement = true;
-							}
-						}
-						index = index + ((isIncrement) ? 1 : -1);
+	/**
+	 * Send the next position of the target to the drone server
+	 * @return false if it was not sent : the same position is sent again after the next picture
+	 */
+	boolean sendNextPosition() throws IOException {
+		// landed, or flying another target, while taking the picture
+		if (target.getPositions().isEmpty() || drone.getTarget() != target) {
+			return false;
+		}
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		PostMethod postMethod = new PostMethod(drone.getServerUrl() + "/position");
+		try {
+			mapper.writeValue(output, target.getPositions().get(index));
+			RequestEntity requestEntity = new StringRequestEntity( output.toString(), MediaType.APPLICATION_JSON, "UTF-8");
+			postMethod.setRequestEntity(requestEntity);
+			int status = drone.getHttpClient().executeMethod(postMethod);
+			if (status < HttpStatus.SC_OK || status >= HttpStatus.SC_MULTIPLE_CHOICES) {
+				LOGGER.warn("Send position " + index + " to drone " + drone.getId() + " : HTTP " + status + ", sent again after the next picture");
+				return false;
+			}
+		} finally {
+			postMethod.releaseConnection();
+		}
+		LOGGER.trace("send position " + index + " : " + target.getPositions().get(index));
+		if (target.getPositions().size() > 1) {
+			if (target.isClose()) {
+				index = (index >= target.getPositions().size() - 1) ? 0 : index + 1;
+			} else {
+				if (isIncrement) {
+					if (index >= target.getPositions().size() - 1) {
+						isIncrement = false;
+					}
+				} else {
+					if (index == 0) {
+						isIncrement = true;
 					}
 				}
+				index = index + ((isIncrement) ? 1 : -1);
 			}
-		} catch (IOException e) {
-			LOGGER.error("Error target or image", e);
 		}
+		return true;
 	}
 }
@@ -15,7 +15,35 @@ public class Configuration {
     private static String MONGODB_PORT;
     private static String MONGODB_PWD;
     private static String MONGODB_USER;
-    
+    private static String MONGODB_POOL_SIZE;
+    private static String MONGODB_WAIT_QUEUE_MULTIPLE;
+    private static String MONGODB_MAX_WAIT_TIME;
+    private static String MONGODB_CONNECT_TIMEOUT;
+    private static String MONGODB_SOCKET_TIMEOUT;
+    private static String MONGODB_CURSOR_BATCH_SIZE;
+    private static String MONGODB_BULK_BATCH_SIZE;
+    private static String MONGODB_WRITE_CONCERN;
+    private static String MONGODB_IMAGE_WRITE_CONCERN;
+    private static String ID_NODE;
+    private static String THUMBNAIL_SIZES;
+    private static String INTERVENTION_CACHE_SIZE;
+    private static String INTERVENTION_CACHE_TTL;
+    private static String TILE_CLUSTER_MAX_ZOOM;
+    private static String TILE_CACHE_SIZE;
+    private static String TILE_MAX_AGE;
+    private static String NEAR_MAX_DISTANCE;
+    private static String DRONE_SERVERS;
+    private static String DRONE_SCHEDULER_THREADS;
+    private static String DRONE_POLL_INTERVAL;
+    private static String DRONE_POLL_MAX_BACKOFF;
+    private static String DRONE_HTTP_TIMEOUT;
+    private static String DRONE_TELEMETRY_TIMEOUT;
+    private static String TRACK_TTL;
+    private static String TRACK_WRITE_CONCERN;
+    private static String TRACK_FLUSH_INTERVAL;
+    private static String DRONE_PIPELINE_THREADS;
+    private static String DRONE_PIPELINE_QUEUE_SIZE;
+
     public static String getPATH_LOG() {
         if (PATH_LOG == null) {loadConfigurations();}
         return PATH_LOG;
@@ -35,6 +63,146 @@ public class Configuration {
         return MONGODB_PORT;
     }
 
+    public static String getMONGODB_POOL_SIZE() {
+        if (MONGODB_POOL_SIZE == null) {loadConfigurations();}
+        return MONGODB_POOL_SIZE;
+    }
+
+    public static String getMONGODB_WAIT_QUEUE_MULTIPLE() {
+        if (MONGODB_WAIT_QUEUE_MULTIPLE == null) {loadConfigurations();}
+        return MONGODB_WAIT_QUEUE_MULTIPLE;
+    }
+
+    public static String getMONGODB_MAX_WAIT_TIME() {
+        if (MONGODB_MAX_WAIT_TIME == null) {loadConfigurations();}
+        return MONGODB_MAX_WAIT_TIME;
+    }
+
+    public static String getMONGODB_CONNECT_TIMEOUT() {
+        if (MONGODB_CONNECT_TIMEOUT == null) {loadConfigurations();}
+        return MONGODB_CONNECT_TIMEOUT;
+    }
+
+    public static String getMONGODB_SOCKET_TIMEOUT() {
+        if (MONGODB_SOCKET_TIMEOUT == null) {loadConfigurations();}
+        return MONGODB_SOCKET_TIMEOUT;
+    }
+
+    public static String getMONGODB_CURSOR_BATCH_SIZE() {
+        if (MONGODB_CURSOR_BATCH_SIZE == null) {loadConfigurations();}
+        return MONGODB_CURSOR_BATCH_SIZE;
+    }
+
+    public static String getMONGODB_BULK_BATCH_SIZE() {
+        if (MONGODB_BULK_BATCH_SIZE == null) {loadConfigurations();}
+        return MONGODB_BULK_BATCH_SIZE;
+    }
+
+    public static String getMONGODB_WRITE_CONCERN() {
+        if (MONGODB_WRITE_CONCERN == null) {loadConfigurations();}
+        return MONGODB_WRITE_CONCERN;
+    }
+
+    public static String getMONGODB_IMAGE_WRITE_CONCERN() {
+        if (MONGODB_IMAGE_WRITE_CONCERN == null) {loadConfigurations();}
+        return MONGODB_IMAGE_WRITE_CONCERN;
+    }
+
+    public static String getID_NODE() {
+        if (ID_NODE == null) {loadConfigurations();}
+        return ID_NODE;
+    }
+
+    public static String getTHUMBNAIL_SIZES() {
+        if (THUMBNAIL_SIZES == null) {loadConfigurations();}
+        return THUMBNAIL_SIZES;
+    }
+
+    public static String getINTERVENTION_CACHE_SIZE() {
+        if (INTERVENTION_CACHE_SIZE == null) {loadConfigurations();}
+        return INTERVENTION_CACHE_SIZE;
+    }
+
+    public static String getINTERVENTION_CACHE_TTL() {
+        if (INTERVENTION_CACHE_TTL == null) {loadConfigurations();}
+        return INTERVENTION_CACHE_TTL;
+    }
+
+    public static String getTILE_CLUSTER_MAX_ZOOM() {
+        if (TILE_CLUSTER_MAX_ZOOM == null) {loadConfigurations();}
+        return TILE_CLUSTER_MAX_ZOOM;
+    }
+
+    public static String getTILE_CACHE_SIZE() {
+        if (TILE_CACHE_SIZE == null) {loadConfigurations();}
+        return TILE_CACHE_SIZE;
+    }
+
+    public static String getTILE_MAX_AGE() {
+        if (TILE_MAX_AGE == null) {loadConfigurations();}
+        return TILE_MAX_AGE;
+    }
+
+    public static String getNEAR_MAX_DISTANCE() {
+        if (NEAR_MAX_DISTANCE == null) {loadConfigurations();}
+        return NEAR_MAX_DISTANCE;
+    }
+
+    public static String getDRONE_SERVERS() {
+        if (DRONE_SERVERS == null) {loadConfigurations();}
+        return DRONE_SERVERS;
+    }
+
+    public static String getDRONE_SCHEDULER_THREADS() {
+        if (DRONE_SCHEDULER_THREADS == null) {loadConfigurations();}
+        return DRONE_SCHEDULER_THREADS;
+    }
+
+    public static String getDRONE_POLL_INTERVAL() {
+        if (DRONE_POLL_INTERVAL == null) {loadConfigurations();}
+        return DRONE_POLL_INTERVAL;
+    }
+
+    public static String getDRONE_POLL_MAX_BACKOFF() {
+        if (DRONE_POLL_MAX_BACKOFF == null) {loadConfigurations();}
+        return DRONE_POLL_MAX_BACKOFF;
+    }
+
+    public static String getDRONE_HTTP_TIMEOUT() {
+        if (DRONE_HTTP_TIMEOUT == null) {loadConfigurations();}
+        return DRONE_HTTP_TIMEOUT;
+    }
+
+    public static String getDRONE_TELEMETRY_TIMEOUT() {
+        if (DRONE_TELEMETRY_TIMEOUT == null) {loadConfigurations();}
+        return DRONE_TELEMETRY_TIMEOUT;
+    }
+
+    public static String getTRACK_TTL() {
+        if (TRACK_TTL == null) {loadConfigurations();}
+        return TRACK_TTL;
+    }
+
+    public static String getTRACK_WRITE_CONCERN() {
+        if (TRACK_WRITE_CONCERN == null) {loadConfigurations();}
+        return TRACK_WRITE_CONCERN;
+    }
+
+    public static String getTRACK_FLUSH_INTERVAL() {
+        if (TRACK_FLUSH_INTERVAL == null) {loadConfigurations();}
+        return TRACK_FLUSH_INTERVAL;
+    }
+
+    public static String getDRONE_PIPELINE_THREADS() {
+        if (DRONE_PIPELINE_THREADS == null) {loadConfigurations();}
+        return DRONE_PIPELINE_THREADS;
+    }
+
+    public static String getDRONE_PIPELINE_QUEUE_SIZE() {
+        if (DRONE_PIPELINE_QUEUE_SIZE == null) {loadConfigurations();}
+        return DRONE_PIPELINE_QUEUE_SIZE;
+    }
+
     public static String getDATABASE_NAME() {
         if (DATABASE_NAME == null) {loadConfigurations();}
         return DATABASE_NAME;
@@ -50,6 +218,30 @@ public class Configuration {
         return SERVER_PYTHON;
     }
 
+    /**
+     * Parse an integer setting
+     * @param value value read from the configuration, may be null
+     * @param defaultValue value used when the setting is missing or invalid
+     * @return integer value of the setting
+     */
+    public static int parseInt(String value, int defaultValue) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Value of a configuration, a system property of the same name (-DMONGODB_PORT=27018) overrides maven.properties
+     */
+    private static String property(Properties prop, String key) {
+        return System.getProperty(key, prop.getProperty(key));
+    }
+
     /**
      * Load configurations
      *
@@ -72,13 +264,42 @@ public class Configuration {
         }
 
 
-        PATH_LOG = prop.getProperty("PATH_LOG");
-        DATABASE_NAME = prop.getProperty("DATABASE_NAME");
-        MONGODB_HOSTNAME = prop.getProperty("MONGODB_HOSTNAME");
-        SERVER_PYTHON = prop.getProperty("SERVER_PYTHON");
-        MONGODB_PORT = prop.getProperty("MONGODB_PORT");
+        PATH_LOG = property(prop, "PATH_LOG");
+        DATABASE_NAME = property(prop, "DATABASE_NAME");
+        MONGODB_HOSTNAME = property(prop, "MONGODB_HOSTNAME");
+        SERVER_PYTHON = property(prop, "SERVER_PYTHON");
+        MONGODB_PORT = property(prop, "MONGODB_PORT");
+
+        MONGODB_USER = property(prop, "MONGODB_USER");
+        MONGODB_PWD = property(prop, "MONGODB_PWD");
 
-        MONGODB_USER = prop.getProperty("MONGODB_USER");
-        MONGODB_PWD = prop.getProperty("MONGODB_PWD");
+        MONGODB_POOL_SIZE = property(prop, "MONGODB_POOL_SIZE");
+        MONGODB_WAIT_QUEUE_MULTIPLE = property(prop, "MONGODB_WAIT_QUEUE_MULTIPLE");
+        MONGODB_MAX_WAIT_TIME = property(prop, "MONGODB_MAX_WAIT_TIME");
+        MONGODB_CONNECT_TIMEOUT = property(prop, "MONGODB_CONNECT_TIMEOUT");
+        MONGODB_SOCKET_TIMEOUT = property(prop, "MONGODB_SOCKET_TIMEOUT");
+        MONGODB_CURSOR_BATCH_SIZE = property(prop, "MONGODB_CURSOR_BATCH_SIZE");
+        MONGODB_BULK_BATCH_SIZE = property(prop, "MONGODB_BULK_BATCH_SIZE");
+        MONGODB_WRITE_CONCERN = property(prop, "MONGODB_WRITE_CONCERN");
+        MONGODB_IMAGE_WRITE_CONCERN = property(prop, "MONGODB_IMAGE_WRITE_CONCERN");
+        ID_NODE = property(prop, "ID_NODE");
+        THUMBNAIL_SIZES = property(prop, "THUMBNAIL_SIZES");
+        INTERVENTION_CACHE_SIZE = property(prop, "INTERVENTION_CACHE_SIZE");
+        INTERVENTION_CACHE_TTL = property(prop, "INTERVENTION_CACHE_TTL");
+        TILE_CLUSTER_MAX_ZOOM = property(prop, "TILE_CLUSTER_MAX_ZOOM");
+        TILE_CACHE_SIZE = property(prop, "TILE_CACHE_SIZE");
+        TILE_MAX_AGE = property(prop, "TILE_MAX_AGE");
+        NEAR_MAX_DISTANCE = property(prop, "NEAR_MAX_DISTANCE");
+        DRONE_SERVERS = property(prop, "DRONE_SERVERS");
+        DRONE_SCHEDULER_THREADS = property(prop, "DRONE_SCHEDULER_THREADS");
+        DRONE_POLL_INTERVAL = property(prop, "DRONE_POLL_INTERVAL");
+        DRONE_POLL_MAX_BACKOFF = property(prop, "DRONE_POLL_MAX_BACKOFF");
+        DRONE_HTTP_TIMEOUT = property(prop, "DRONE_HTTP_TIMEOUT");
+        DRONE_TELEMETRY_TIMEOUT = property(prop, "DRONE_TELEMETRY_TIMEOUT");
+        TRACK_TTL = property(prop, "TRACK_TTL");
+        TRACK_WRITE_CONCERN = property(prop, "TRACK_WRITE_CONCERN");
+        TRACK_FLUSH_INTERVAL = property(prop, "TRACK_FLUSH_INTERVAL");
+        DRONE_PIPELINE_THREADS = property(prop, "DRONE_PIPELINE_THREADS");
+        DRONE_PIPELINE_QUEUE_SIZE = property(prop, "DRONE_PIPELINE_QUEUE_SIZE");
     }
 }
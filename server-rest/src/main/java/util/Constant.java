@@ -10,5 +10,14 @@ public class Constant {
     public static final String DATATYPE_MEAN = "MEAN";
     public static final String DATATYPE_INTERVENTION = "INTERVENTION";
     public static final String DATATYPE_GEOICON = "GEOICON";
-    public static final int NEAR_REQUEST_MAXDISTANCE = 100;
+    public static final String DATATYPE_TRACK = "TRACK";
+    public static final String GRIDFS_BUCKET_IMAGE = "GEOIMAGE_FILES";
+    /**
+     * Default distance in meters of the $near queries, see NEAR_MAX_DISTANCE
+     */
+    public static final int DEFAULT_NEAR_MAX_DISTANCE = 100;
+    /**
+     * Equatorial radius of the earth in meters, converts distances to radians for $centerSphere
+     */
+    public static final double EARTH_RADIUS_METERS = 6378100;
 }
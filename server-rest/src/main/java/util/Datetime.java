@@ -1,6 +1,9 @@
 package util;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Locale;
 
 
 /**
@@ -12,6 +15,16 @@ import java.util.Date;
  */
 public class Datetime {
 
+    /**
+     * Format of the dates written as strings by older versions of the server
+     */
+    private static final ThreadLocal<SimpleDateFormat> LEGACY_DATE_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US);
+        }
+    };
+
     public static Date getCurrentDate()
     {
         Date date = new Date();
@@ -21,4 +34,14 @@ public class Datetime {
 
         return date;
     }
+
+    /**
+     * @param value date written as a string by older versions of the server (Date.toString())
+     * @return date
+     * @throws ParseException if the string is not a date
+     */
+    public static Date parseLegacyDate(String value) throws ParseException
+    {
+        return LEGACY_DATE_FORMAT.get().parse(value);
+    }
 }
@@ -0,0 +1,121 @@
+package util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import entity.Position;
+
+/**
+ * DouglasPeucker simplifies a path to a maximum number of points with the Douglas-Peucker algorithm.
+ * Instead of a tolerance, each point gets the distance at which the algorithm keeps it, bounded by the one of
+ * the point which split its segment ; the points with the largest distances are kept, they form the path
+ * the algorithm would give with the tolerance which keeps maxPoints points.
+ * Distances are computed on an equirectangular projection, precise enough over the area of a flight.
+ */
+public final class DouglasPeucker {
+
+    private DouglasPeucker() {
+    }
+
+    /**
+     * @param path positions in the order of the path
+     * @param maxPoints maximum number of points kept, at least 2 : the first and the last ones are always kept
+     * @return indexes of the points kept, increasing
+     */
+    public static int[] simplify(List<Position> path, int maxPoints) {
+        if (maxPoints < 2) {
+            throw new IllegalArgumentException("At least the 2 ends of the path are kept, not " + maxPoints);
+        }
+        int size = path.size();
+        if (size <= maxPoints) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        double[] x = new double[size];
+        double[] y = new double[size];
+        double scale = Math.cos(Math.toRadians(path.get(0).getLatitude()));
+        for (int i = 0; i < size; i++) {
+            x[i] = path.get(i).getLongitude() * scale;
+            y[i] = path.get(i).getLatitude();
+        }
+
+        double[] weights = new double[size];
+        weights[0] = Double.POSITIVE_INFINITY;
+        weights[size - 1] = Double.POSITIVE_INFINITY;
+        // segments to split : first, last, weight of the point which split it ; without recursion for long paths
+        int[] firsts = new int[size];
+        int[] lasts = new int[size];
+        double[] bounds = new double[size];
+        int stack = 0;
+        firsts[stack] = 0;
+        lasts[stack] = size - 1;
+        bounds[stack] = Double.POSITIVE_INFINITY;
+        stack++;
+        while (stack > 0) {
+            stack--;
+            int first = firsts[stack];
+            int last = lasts[stack];
+            double bound = bounds[stack];
+            if (last - first < 2) {
+                continue;
+            }
+            int farthest = first + 1;
+            double max = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistance(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (distance > max) {
+                    max = distance;
+                    farthest = i;
+                }
+            }
+            double weight = Math.min(max, bound);
+            weights[farthest] = weight;
+            firsts[stack] = first;
+            lasts[stack] = farthest;
+            bounds[stack] = weight;
+            stack++;
+            firsts[stack] = farthest;
+            lasts[stack] = last;
+            bounds[stack] = weight;
+            stack++;
+        }
+
+        // weight of the maxPoints-th point, the ties are kept in the order of the path
+        double[] sorted = weights.clone();
+        Arrays.sort(sorted);
+        double threshold = sorted[size - maxPoints];
+        int above = 0;
+        for (double weight : weights) {
+            if (weight > threshold) {
+                above++;
+            }
+        }
+        int ties = maxPoints - above;
+        int[] kept = new int[maxPoints];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (weights[i] > threshold || (weights[i] == threshold && ties-- > 0)) {
+                kept[count++] = i;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Distance from (px, py) to the segment from (ax, ay) to (bx, by), the segment may be a point
+     */
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double length = dx * dx + dy * dy;
+        double t = length == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / length;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+}
@@ -0,0 +1,107 @@
+package util;
+
+import org.apache.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @see
+ * IdGenerator creates the ids of the entities : 64 bits, positive, increasing, unique across server nodes
+ * An id is made of, from the high bits, the milliseconds since EPOCH (41 bits, until 2084),
+ * a sequence inside the millisecond (12 bits) and the node (10 bits).
+ * Ids of one node always increase, even if the clock goes back ; ids of several nodes are ordered by millisecond.
+ */
+public final class IdGenerator {
+    private static final Logger LOGGER = Logger.getLogger(IdGenerator.class);
+
+    /**
+     * 2015-01-01T00:00:00Z
+     */
+    public static final long EPOCH = 1420070400000L;
+
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    private static final long SEQUENCE_INCREMENT = 1L << NODE_BITS;
+    private static final long NODE_MASK = MAX_NODE;
+
+    private static final IdGenerator INSTANCE = new IdGenerator(defaultNode());
+
+    private final long node;
+
+    /**
+     * Last id generated, without its node
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    IdGenerator(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node " + node + " is not between 0 and " + MAX_NODE);
+        }
+        this.node = node;
+    }
+
+    public static IdGenerator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return a new id, greater than all the ids already generated by this node
+     */
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH) << TIMESTAMP_SHIFT;
+        while (true) {
+            long previous = last.get();
+            // the sequence overflows into the timestamp when more than 4096 ids are needed in a millisecond
+            long next = Math.max(now, previous + SEQUENCE_INCREMENT);
+            if (last.compareAndSet(previous, next)) {
+                return next | node;
+            }
+        }
+    }
+
+    /**
+     * @param id id generated by an IdGenerator
+     * @return date of creation of the id, in milliseconds since 1970
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    /**
+     * @param id id generated by an IdGenerator
+     * @return node which generated the id
+     */
+    public static int nodeOf(long id) {
+        return (int) (id & NODE_MASK);
+    }
+
+    public int getNode() {
+        return (int) node;
+    }
+
+    /**
+     * Node of the server : ID_NODE if configured, else derived from the host name and the process id.
+     * Two servers may then get the same node and generate the same ids : a deployment of several servers
+     * must give each one its own ID_NODE
+     */
+    private static int defaultNode() {
+        String configured = Configuration.getID_NODE();
+        int node = Configuration.parseInt(configured, -1);
+        if (node >= 0 && node <= MAX_NODE) {
+            return node;
+        }
+        if (configured != null && !configured.trim().isEmpty()) {
+            LOGGER.warn("ID_NODE " + configured + " is not between 0 and " + MAX_NODE + ", it is ignored");
+        }
+        // "pid@hostname"
+        String process = ManagementFactory.getRuntimeMXBean().getName();
+        node = (process.hashCode() & Integer.MAX_VALUE) % (MAX_NODE + 1);
+        LOGGER.warn("ID_NODE is not configured, ids are generated as node " + node + " (" + process + ") : "
+                + "with several servers, set a distinct ID_NODE on each or they may generate the same ids");
+        return node;
+    }
+}
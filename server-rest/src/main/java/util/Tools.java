@@ -1,9 +1,9 @@
 package util;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
 
 import entity.*;
 
@@ -23,87 +23,76 @@ public class Tools {
         return basicDBList;
     }
 
-    public static Position arrayListToPosition(List arrayList)
+    /**
+     * GeoJSON point of a position, longitude first as required by the 2dsphere indexes
+     * The arrays of positionToBasicDBList() are latitude first and cannot be indexed
+     * @param p position
+     * @return point, null if the position is unknown : 2dsphere indexes skip null fields
+     */
+    public static Document positionToGeoJsonPoint(Position p)
     {
-        Position p = new Position();
-        if(arrayList !=null && arrayList.size() == 3)
-        {
-            p.setLatitude((Double) arrayList.get(0));
-            p.setLongitude((Double) arrayList.get(1));
-            p.setAltitude((Double) arrayList.get(2));
-        }
-        return p;
-    }
-
-    public static List<Mean> documentListToMeanList(List<Document> documents) {
-        List<Mean> z = new ArrayList<Mean>();
-        for(Document d : documents) {
-            z.add(documentToMean(d));
+        if (p == null || Double.isNaN(p.getLatitude()) || Double.isNaN(p.getLongitude())) {
+            return null;
         }
-        return z;
+        BasicDBList coordinates = new BasicDBList();
+        coordinates.add(p.getLongitude());
+        coordinates.add(p.getLatitude());
+        Document point = new Document("type", "Point");
+        point.put("coordinates", coordinates);
+        return point;
     }
 
-    public static List<Position> documentListToPositionList(List<List<Double>> postions) {
-        List<Position> list = new ArrayList<Position>();
-        for(List<Double> p : postions) {
-            list.add(Tools.arrayListToPosition(p));
-        }
-        return list;
+    /**
+     * @return distance in meters of the $near queries when the client gives none
+     */
+    public static int defaultNearMaxDistance()
+    {
+        return Configuration.parseInt(Configuration.getNEAR_MAX_DISTANCE(), Constant.DEFAULT_NEAR_MAX_DISTANCE);
     }
 
-    public static BasicDBList meanListToBasicDBList(List<Mean> means) {
-        BasicDBList basicDBList = new BasicDBList();
-        for(Mean mean : means) {
-            basicDBList.add(Tools.meanToDocument(mean));
-        }
-        return basicDBList;
+    /**
+     * Criteria of the documents whose GeoJSON field is near of a position, nearest first
+     * It needs a 2dsphere index on the field
+     * @param field GeoJSON field
+     * @param center position
+     * @param maxDistance distance in meters
+     * @return criteria
+     */
+    public static BasicDBObject nearCriteria(String field, Position center, double maxDistance)
+    {
+        BasicDBObject near = new BasicDBObject("$geometry", positionToGeoJsonPoint(center));
+        near.put("$maxDistance", maxDistance);
+        return new BasicDBObject(field, new BasicDBObject("$near", near));
     }
 
-    public static BasicDBList positionListToBasicDBList(List<Position> positions) {
-        BasicDBList basicDBList = new BasicDBList();
-        for(Position position : positions) {
-            basicDBList.add(Tools.positionToBasicDBList(position));
-        }
-        return basicDBList;
+    /**
+     * Criteria of the documents whose GeoJSON field is within a circle on the surface of the earth
+     * @param field GeoJSON field
+     * @param center center of the circle
+     * @param radius radius in meters
+     * @return criteria
+     */
+    public static BasicDBObject withinCriteria(String field, Position center, double radius)
+    {
+        BasicDBList coordinates = new BasicDBList();
+        coordinates.add(center.getLongitude());
+        coordinates.add(center.getLatitude());
+        BasicDBList centerSphere = new BasicDBList();
+        centerSphere.add(coordinates);
+        centerSphere.add(radius / Constant.EARTH_RADIUS_METERS);
+        return new BasicDBObject(field, new BasicDBObject("$geoWithin", new BasicDBObject("$centerSphere", centerSphere)));
     }
 
-    public static Mean documentToMean(Document document) {
-        if(document==null)
+    public static Position arrayListToPosition(List arrayList)
+    {
+        Position p = new Position();
+        if(arrayList !=null && arrayList.size() == 3)
         {
-            return null;
+            p.setLatitude((Double) arrayList.get(0));
+            p.setLongitude((Double) arrayList.get(1));
+            p.setAltitude((Double) arrayList.get(2));
         }
-        Mean mean = new Mean();
-        mean.setId(document.getLong("_id"));
-        mean.setName(document.getString("name"));
-        mean.setVehicle(Vehicle.valueOf(document.getString("vehicle")));
-        mean.setInPosition(document.getBoolean("inPosition"));
-        mean.setMeanState(MeanState.valueOf(document.getString("meanState")));
-        mean.setDateRequested(document.getDate("dateRequested"));
-        mean.setDateActivated(document.getDate("dateActivated"));
-        mean.setDateArrived(document.getDate("dateArrived"));
-        mean.setDateEngaged(document.getDate("dateEngaged"));
-        mean.setDateReleased(document.getDate("dateReleased"));
-        mean.setDateRefused(document.getDate("dateRefused"));
-        mean.setCoordinates(Tools.arrayListToPosition((ArrayList) document.get("coordinates")));
-        return mean;
-    }
-
-    public static Document meanToDocument(Mean entity) {
-        Document jsonMean = new Document();
-        jsonMean.put("name", entity.getName());
-        jsonMean.put("inPosition", entity.getInPosition());
-        jsonMean.put("meanState", entity.getMeanState().toString());
-        jsonMean.put("vehicle", entity.getVehicle().toString());
-        jsonMean.put("dateRequested",entity.getDateRequested());
-        jsonMean.put("dateActivated",entity.getDateActivated());
-        jsonMean.put("dateArrived",entity.getDateArrived());
-        jsonMean.put("dateEngaged",entity.getDateEngaged());
-        jsonMean.put("dateReleased",entity.getDateReleased());
-        jsonMean.put("dateRefused",entity.getDateRefused());
-        jsonMean.put("_id", entity.getId());
-        jsonMean.put("type", "Point");
-        jsonMean.put("coordinates", Tools.positionToBasicDBList(entity.getCoordinates()));
-        return jsonMean;
+        return p;
     }
 
     public static boolean isSamePositions(Position p1, Position p2)
@@ -0,0 +1,70 @@
+package util;
+
+/**
+ * @see
+ * WebMercator converts positions to the tiles of the maps (Google, OpenStreetMap)
+ * At zoom z the world is a square of 2^z x 2^z tiles, x from the west and y from the north.
+ * Tile coordinates are fractional : the integer part is the tile, the rest the place inside the tile.
+ */
+public final class WebMercator {
+    /**
+     * Latitude of the northern edge of the tile 0, the projection is cut there
+     */
+    public static final double MAX_LATITUDE = 85.0511287798;
+    public static final int MAX_ZOOM = 22;
+
+    private WebMercator() {
+    }
+
+    /**
+     * @param z zoom
+     * @param x column of the tile
+     * @param y row of the tile
+     * @return true if the tile exists at this zoom
+     */
+    public static boolean isValidTile(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM) {
+            return false;
+        }
+        int tiles = 1 << z;
+        return x >= 0 && x < tiles && y >= 0 && y < tiles;
+    }
+
+    /**
+     * @param longitude longitude in degrees
+     * @param z zoom
+     * @return fractional column
+     */
+    public static double longitudeToTileX(double longitude, int z) {
+        return (longitude + 180) / 360 * (1 << z);
+    }
+
+    /**
+     * @param latitude latitude in degrees, cut to MAX_LATITUDE
+     * @param z zoom
+     * @return fractional row
+     */
+    public static double latitudeToTileY(double latitude, int z) {
+        double radians = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        return (1 - Math.log(Math.tan(radians) + 1 / Math.cos(radians)) / Math.PI) / 2 * (1 << z);
+    }
+
+    /**
+     * @param x fractional column
+     * @param z zoom
+     * @return longitude of the column in degrees
+     */
+    public static double tileXToLongitude(double x, int z) {
+        return x / (1 << z) * 360 - 180;
+    }
+
+    /**
+     * @param y fractional row
+     * @param z zoom
+     * @return latitude of the row in degrees
+     */
+    public static double tileYToLatitude(double y, int z) {
+        double n = Math.PI * (1 - 2 * y / (1 << z));
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+}
@@ -12,6 +12,12 @@ import org.junit.runners.Suite;
 import rest.*;
 import service.impl.PushServiceImpl;
 import util.Configuration;
+import util.DouglasPeuckerTest;
+import service.position.DroneFleetTest;
+import service.position.DroneTest;
+import service.position.ImagePipelineTest;
+import service.position.TrackRecorderTest;
+import util.IdGeneratorTest;
 
 import com.mongodb.Block;
 import com.mongodb.MongoClient;
@@ -19,11 +25,15 @@ import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoDatabase;
 
+import dao.EntityCodecsTest;
 import dao.GeoIconDAOTest;
 import dao.GeoImageDAOTest;
+import dao.InterventionCacheTest;
 import dao.InterventionDAOTest;
 import dao.MeanDAOTest;
+import dao.MongoClientProviderTest;
 import dao.TargetDAOTest;
+import dao.TrackPointDAOTest;
 import dao.UserDAOTest;
 
 @RunWith(Suite.class)
@@ -38,7 +48,18 @@ import dao.UserDAOTest;
         ImagesRestTest.class,
         MeanRestTest.class,
         TopographyRestTest.class,
-        TargetDAOTest.class
+        TargetDAOTest.class,
+        MongoClientProviderTest.class,
+        InterventionCacheTest.class,
+        IdGeneratorTest.class,
+        EntityCodecsTest.class,
+        DouglasPeuckerTest.class,
+        TrackPointDAOTest.class,
+        DroneRestTest.class,
+        DroneFleetTest.class,
+        DroneTest.class,
+        ImagePipelineTest.class,
+        TrackRecorderTest.class
 })
 public class TestSuiteSitServer {
 
@@ -0,0 +1,172 @@
+package dao;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import dao.codec.EntityCodecs;
+import entity.DisasterCode;
+import entity.GeoIcon;
+import entity.GeoImage;
+import entity.Intervention;
+import entity.Mean;
+import entity.MeanState;
+import entity.Position;
+import entity.Target;
+import entity.TrackPoint;
+import entity.User;
+import util.Datetime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests of the entity codecs against the documents written and read by the DAOs
+ */
+public class EntityCodecsTest {
+
+    private static final CodecRegistry REGISTRY = EntityCodecs.getRegistry();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static <T> BsonDocument encode(Class<T> type, T entity) {
+        BsonDocument document = new BsonDocument();
+        REGISTRY.get(type).encode(new BsonDocumentWriter(document), entity, EncoderContext.builder().build());
+        return document;
+    }
+
+    private static <T> T decode(Class<T> type, BsonDocument document) {
+        return REGISTRY.get(type).decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+
+    /**
+     * Document of an entity as written by its codec, to build the documents of older versions of the server
+     */
+    static Document toDocument(Object entity) {
+        return new DocumentCodec().decode(new BsonDocumentReader(EntityCodecs.encode(entity)), DecoderContext.builder().build());
+    }
+
+    /**
+     * Entity as sent by the REST services
+     */
+    private static JsonNode json(Object entity) {
+        return MAPPER.valueToTree(entity);
+    }
+
+    /**
+     * The codec keeps every field of the entity
+     */
+    private static <T> void assertRoundTrip(Class<T> type, T entity) {
+        assertEquals(json(entity), json(decode(type, encode(type, entity))));
+    }
+
+    private static Intervention intervention() {
+        Intervention intervention = new Intervention("Intervention", "263 Avenue Général Leclerc", "35000", "Rennes", DisasterCode.FHA);
+        intervention.setCoordinates(new Position(-1.6777926, 48.117266, 40.0));
+        intervention.setVersion(3);
+        Mean mean = intervention.getMeansList().get(0);
+        mean.setName("VSAV 1");
+        mean.setMeanState(MeanState.ENGAGED);
+        mean.setDateEngaged(Datetime.getCurrentDate());
+        mean.setCoordinates(new Position(-1.68, 48.12));
+        return intervention;
+    }
+
+    @Test
+    public void testInterventionRoundTrip() {
+        Intervention intervention = intervention();
+        Intervention decoded = decode(Intervention.class, encode(Intervention.class, intervention));
+        assertEquals(intervention, decoded);
+        assertEquals(3, decoded.getVersion());
+    }
+
+    @Test
+    public void testRoundTripOfEveryEntity() {
+        Intervention intervention = intervention();
+        assertRoundTrip(Intervention.class, intervention);
+        assertRoundTrip(Mean.class, intervention.getMeansList().get(0));
+
+        GeoImage image = new GeoImage();
+        image.setPosition(new Position(-1.68, 48.12, 35.0));
+        image.setContentType("image/jpeg");
+        image.setLength(2048);
+        image.setWidth(640);
+        image.setHeight(480);
+        image.setInterventionId(intervention.getId());
+        image.setDate(new Date());
+        assertRoundTrip(GeoImage.class, image);
+
+        GeoIcon icon = new GeoIcon();
+        icon.setEntitled("Point d'eau");
+        icon.setFilename("water.png");
+        icon.setColor("BLEU");
+        icon.setTiret(false);
+        icon.setFirstContent("1");
+        icon.setSecondContent("2");
+        icon.setPosition(new Position(-1.68, 48.12, 0.0));
+        assertRoundTrip(GeoIcon.class, icon);
+
+        Target target = new Target();
+        target.setInterventionId(intervention.getId());
+        target.setPositions(new ArrayList<Position>(Arrays.asList(new Position(-1.68, 48.12, 20.0), new Position(-1.69, 48.13, 20.0))));
+        target.setClose(true);
+        assertRoundTrip(Target.class, target);
+
+        assertRoundTrip(TrackPoint.class,
+                new TrackPoint("drone1", intervention.getId(), new Position(-1.68, 48.12, 50.0), Datetime.getCurrentDate()));
+
+        User user = new User();
+        user.setUsername("user");
+        user.setPassword("password");
+        assertRoundTrip(User.class, user);
+    }
+
+    @Test
+    public void testLegacyStringDate() {
+        Date dateCreate = Datetime.getCurrentDate();
+        Intervention intervention = intervention();
+        intervention.setDateCreate(dateCreate);
+        Document document = toDocument(intervention);
+        document.put("dateCreate", dateCreate.toString());
+        Intervention decoded = decode(Intervention.class, document.toBsonDocument(Document.class, REGISTRY));
+        assertEquals(dateCreate, decoded.getDateCreate());
+    }
+
+    @Test
+    public void testIconRoundTrip() {
+        GeoIcon icon = new GeoIcon();
+        icon.setEntitled("Point d'eau");
+        icon.setFilename("water.png");
+        icon.setColor("BLEU");
+        icon.setTiret(true);
+        icon.setPosition(new Position(-1.68, 48.12, 0.0));
+        GeoIcon decoded = decode(GeoIcon.class, encode(GeoIcon.class, icon));
+        assertEquals(icon, decoded);
+        assertEquals(icon.getId(), decoded.getId());
+        assertNull(decoded.getFirstContent());
+    }
+
+    @Test
+    public void testTargetWithLegacyInterventionId() {
+        Target target = new Target();
+        target.setPositions(new ArrayList<Position>(Arrays.asList(new Position(-1.68, 48.12, 20.0), new Position(-1.69, 48.13, 20.0))));
+        target.setClose(true);
+        Document document = toDocument(target);
+        document.put("interventionId", 42);
+        Target decoded = decode(Target.class, document.toBsonDocument(Document.class, REGISTRY));
+        assertEquals(target, decoded);
+        assertEquals(42L, decoded.getInterventionId());
+        assertEquals(true, decoded.isClose());
+    }
+}
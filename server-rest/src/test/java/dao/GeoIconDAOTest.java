@@ -6,6 +6,9 @@ import org.apache.log4j.Logger;
 import org.junit.*;
 import util.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
@@ -73,6 +76,16 @@ public class GeoIconDAOTest {
         assertEquals("/PLOP/PLOP/plop.JPG", geoIconInBase.getFilename());
     }
 
+    @Test
+    public void testUpdateMissing() {
+        GeoIcon geoIcon = new GeoIcon();
+        geoIcon.setColor("BLEU");
+        geoIcon.setEntitled("JAMAIS CREE");
+        geoIcon.setPosition(new Position(7.0,6.0,4.0));
+        assertNull(dao.update(geoIcon));
+        assertNull(dao.getById(geoIcon.getId()));
+    }
+
     @Test
     public void testDelete() {
         GeoIcon geoIcon = new GeoIcon();
@@ -89,5 +102,54 @@ public class GeoIconDAOTest {
         dao.delete(geoIconInBase);
         assertNull(dao.getById(geoIconInBase.getId()));
     }
-}
 
+    @Test
+    public void testCreateAll() {
+        List<GeoIcon> icons = new ArrayList<GeoIcon>();
+        for (int i = 0; i < 5; i++) {
+            GeoIcon geoIcon = new GeoIcon();
+            geoIcon.setColor("ROUGE");
+            geoIcon.setEntitled("EN MASSE " + i);
+            geoIcon.setFilename("/HOME/COUCOU/plop.PNG");
+            geoIcon.setPosition(new Position(7.0 + i, 6.0, 4.0));
+            icons.add(geoIcon);
+        }
+        try {
+            assertEquals(5, dao.createAll(icons));
+            for (GeoIcon geoIcon : icons) {
+                assertEquals(geoIcon, dao.getById(geoIcon.getId()));
+            }
+        } finally {
+            for (GeoIcon geoIcon : icons) {
+                dao.delete(geoIcon);
+            }
+        }
+    }
+
+    @Test
+    public void testUpsertAll() {
+        GeoIcon existing = new GeoIcon();
+        existing.setColor("BLEU");
+        existing.setEntitled("EXISTANT");
+        existing.setPosition(new Position(7.0, 6.0, 4.0));
+        dao.create(existing);
+        existing.setEntitled("REMPLACE");
+
+        GeoIcon created = new GeoIcon();
+        created.setColor("VERT");
+        created.setEntitled("NOUVEAU");
+        created.setPosition(new Position(8.0, 6.0, 4.0));
+
+        List<GeoIcon> icons = new ArrayList<GeoIcon>();
+        icons.add(existing);
+        icons.add(created);
+        try {
+            assertEquals(2, dao.upsertAll(icons));
+            assertEquals("REMPLACE", dao.getById(existing.getId()).getEntitled());
+            assertEquals(created, dao.getById(created.getId()));
+        } finally {
+            dao.delete(existing);
+            dao.delete(created);
+        }
+    }
+}
@@ -6,7 +6,14 @@ import org.apache.log4j.Logger;
 import org.junit.*;
 import org.junit.Test;
 import util.Configuration;
+import util.Tools;
 
+import org.apache.commons.codec.binary.Base64;
+import org.bson.Document;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import static junit.framework.Assert.assertFalse;
@@ -17,7 +24,7 @@ import static org.junit.Assert.assertNull;
 /**
  * Created by alban on 21/05/15.
  */
-public class GeoImageDAOTest {
+public class GeoImageDAOTest extends GeoImageDAO {
 
     private static GeoImageDAO dao = new GeoImageDAO();
 
@@ -72,6 +79,25 @@ public class GeoImageDAOTest {
         assertEquals("PLAP", geoImageInBase.getImage());
     }
 
+    @Test
+    public void testDateKeptWhenWrittenAgain() throws InterruptedException {
+        GeoImage geoImage = new GeoImage();
+        geoImage.setImage("BASE64");
+        geoImage.setPosition(new Position(7.0, 6.0, 4.0));
+        GeoImage created = dao.create(geoImage);
+        long date = created.getDate().getTime();
+        try {
+            assertEquals(date, dao.getById(created.getId()).getDate().getTime());
+
+            Thread.sleep(5);
+            dao.update(created);
+            dao.upsertAll(Arrays.asList(created));
+            assertEquals(date, dao.getById(created.getId()).getDate().getTime());
+        } finally {
+            dao.delete(created);
+        }
+    }
+
     @Test
     public void testDelete() {
         GeoImage geoImage = new GeoImage();
@@ -87,6 +113,99 @@ public class GeoImageDAOTest {
         assertNull(dao.getById(geoImageInBase.getId()));
     }
 
+    @Test
+    public void testImageBytesStoredInGridFS() throws IOException
+    {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 13, 10, 26, 10, 1, 2, 3};
+        GeoImage geoImage = new GeoImage();
+        geoImage.setImage(Base64.encodeBase64String(png));
+        geoImage.setPosition(new Position(7.0, 6.0, 4.0));
+        GeoImage geoImageInBase = dao.create(geoImage);
+
+        assertNull(geoImageInBase.getImage());
+        assertEquals("image/png", geoImageInBase.getContentType());
+        assertEquals(png.length, geoImageInBase.getLength());
+        Document document = (Document) dao.collection.find(new Document("_id", geoImage.getId())).first();
+        assertFalse(document.containsKey("image"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        dao.findImageFile(geoImage.getId()).writeTo(bytes);
+        assertTrue(Arrays.equals(png, bytes.toByteArray()));
+
+        dao.delete(geoImage);
+        assertNull(dao.findImageFile(geoImage.getId()));
+    }
+
+    @Test
+    public void testMigrateInlineImages()
+    {
+        GeoImage geoImage = new GeoImage();
+        geoImage.setPosition(new Position(7.0, 6.0, 4.0));
+        Document legacy = EntityCodecsTest.toDocument(geoImage);
+        legacy.put("image", Base64.encodeBase64String(new byte[]{1, 2, 3}));
+        dao.collection.insertOne(legacy);
+
+        assertTrue(dao.migrateInlineImages() >= 1);
+        GeoImage migrated = dao.getById(geoImage.getId());
+        assertNull(migrated.getImage());
+        assertEquals(3, migrated.getLength());
+        assertEquals(3, dao.findImageFile(geoImage.getId()).getLength());
+        dao.delete(geoImage);
+    }
+
+    @Test
+    public void testMigrateLocations()
+    {
+        GeoImage geoImage = new GeoImage();
+        geoImage.setPosition(new Position(-50.5, -20.25, 4.0));
+        Document legacy = EntityCodecsTest.toDocument(geoImage);
+        legacy.remove("location");
+        dao.collection.insertOne(legacy);
+
+        assertTrue(dao.migrateLocations() >= 1);
+        Document location = (Document) ((Document) dao.collection.find(new Document("_id", geoImage.getId())).first()).get("location");
+        assertEquals("Point", location.getString("type"));
+        assertEquals(Arrays.asList(-50.5, -20.25), location.get("coordinates"));
+
+        boolean found = false;
+        for (GeoImage near : dao.getAllImagesNear(-20.25, -50.5, 10)) {
+            found |= near.getId() == geoImage.getId();
+        }
+        assertTrue(found);
+        dao.delete(geoImage);
+    }
+
+    @Test
+    public void testNearQueryUsesLocationIndex()
+    {
+        Document explain = dao.explain(Tools.nearCriteria("location", new Position(0, 11), 100));
+        assertTrue(QueryPlans.usesIndex(explain, "location"));
+    }
+
+    @Test
+    public void testStreamAllGivesCollectionBack()
+    {
+        GeoImage geoImage = new GeoImage();
+        geoImage.setImage("BASE64");
+        geoImage.setPosition(new Position(7.0, 6.0, 4.0));
+        geoImage.setInterventionId(0);
+        dao.create(geoImage);
+
+        GeoImageDAO streamingDAO = new GeoImageDAO();
+        streamingDAO.connect();
+        int borrowed = (Integer) MongoClientProvider.getInstance().getStatistics().get("borrowed");
+        EntityCursor<GeoImage> cursor = streamingDAO.streamAll();
+        boolean found = false;
+        while (cursor.hasNext()) {
+            found |= geoImage.getId() == cursor.next().getId();
+        }
+        cursor.close();
+        assertTrue(found);
+        assertFalse(cursor.hasNext());
+        assertEquals(borrowed - 1, MongoClientProvider.getInstance().getStatistics().get("borrowed"));
+        dao.delete(geoImage);
+    }
+
     @Test
     public void testGetAllImagesNear()
     {
@@ -0,0 +1,99 @@
+package dao;
+
+import org.junit.Test;
+
+import entity.DisasterCode;
+import entity.Intervention;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests of the bounded intervention cache
+ */
+public class InterventionCacheTest {
+
+    private static Intervention intervention(long version) {
+        Intervention intervention = new Intervention("Intervention", "263 Avenue Général Leclerc", "35000", "Rennes", DisasterCode.FHA);
+        intervention.setVersion(version);
+        return intervention;
+    }
+
+    @Test
+    public void testHitAndMiss()
+    {
+        InterventionCache cache = new InterventionCache(10, 60000);
+        Intervention intervention = intervention(1);
+        assertNull(cache.get(intervention.getId()));
+        Date lastModified = new Date();
+        cache.put(intervention, lastModified);
+
+        InterventionCache.CachedIntervention cached = cache.get(intervention.getId());
+        assertNotNull(cached);
+        assertEquals(intervention, cached.getIntervention());
+        assertEquals(lastModified, cached.getLastModified());
+        assertEquals(1L, cache.getStatistics().get("hits"));
+        assertEquals(1L, cache.getStatistics().get("misses"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted()
+    {
+        InterventionCache cache = new InterventionCache(2, 60000);
+        Intervention first = intervention(1);
+        Intervention second = intervention(1);
+        Intervention third = intervention(1);
+        cache.put(first, null);
+        cache.put(second, null);
+        cache.get(first.getId());
+        cache.put(third, null);
+
+        assertNotNull(cache.get(first.getId()));
+        assertNull(cache.get(second.getId()));
+        assertNotNull(cache.get(third.getId()));
+        assertEquals(1L, cache.getStatistics().get("evictions"));
+    }
+
+    @Test
+    public void testExpiredEntryIsMissed() throws InterruptedException
+    {
+        InterventionCache cache = new InterventionCache(10, 1);
+        Intervention intervention = intervention(1);
+        cache.put(intervention, null);
+        Thread.sleep(5);
+        assertNull(cache.get(intervention.getId()));
+        assertEquals(1L, cache.getStatistics().get("expirations"));
+    }
+
+    @Test
+    public void testOlderVersionDoesNotReplaceNewer()
+    {
+        InterventionCache cache = new InterventionCache(10, 60000);
+        Intervention newer = intervention(3);
+        Intervention older = intervention(2);
+        older.setId(newer.getId());
+        cache.put(newer, null);
+        cache.put(older, null);
+        assertEquals(3L, cache.get(newer.getId()).getIntervention().getVersion());
+    }
+
+    @Test
+    public void testEntriesAreCopies()
+    {
+        InterventionCache cache = new InterventionCache(10, 60000);
+        Intervention intervention = intervention(1);
+        cache.put(intervention, null);
+        intervention.setLabel("Modified after put");
+
+        InterventionCache.CachedIntervention cached = cache.get(intervention.getId());
+        Intervention read = cached.getIntervention();
+        assertEquals("Intervention", read.getLabel());
+        read.setLabel("Modified by a reader");
+        assertNotSame(read, cached.getIntervention());
+        assertEquals("Intervention", cached.getIntervention().getLabel());
+    }
+}
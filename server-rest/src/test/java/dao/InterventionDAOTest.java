@@ -14,15 +14,23 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import dao.codec.EntityCodecs;
 import service.impl.RetrieveAddressImpl;
 import util.Configuration;
+import util.Tools;
 import entity.DisasterCode;
 import entity.Intervention;
+import entity.Mean;
+import entity.MeanState;
 import entity.Position;
 
 import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -138,8 +146,196 @@ public class InterventionDAOTest extends InterventionDAO {
         RetrieveAddressImpl adresseIntervention = new RetrieveAddressImpl(intervention.getAddress(), intervention.getPostcode(), intervention.getCity());
         Position coordinatesIntervention = adresseIntervention.getCoordinates();
         intervention.setCoordinates(coordinatesIntervention);
-        Document doc = entityToDocument(intervention);
+        Document doc = EntityCodecsTest.toDocument(intervention);
         doc.remove("dateCreate");
-        assertNull(documentToEntity(doc));
+        assertNull(EntityCodecs.decode(Intervention.class, doc.toBsonDocument(Document.class, EntityCodecs.getRegistry())).getDateCreate());
+    }
+
+    @Test
+    public void testMigrateLegacyDates()
+    {
+        Intervention intervention = new Intervention( "Intervention 1", "263 Avenue Général Leclerc","35000","Rennes", DisasterCode.FHA);
+        intervention.setCoordinates(new Position(-1.63847, 48.117121));
+        Document legacy = EntityCodecsTest.toDocument(intervention);
+        legacy.put("dateCreate", intervention.getDateCreate().toString());
+        dao.collection.insertOne(legacy);
+
+        assertEquals(intervention.getDateCreate().getTime() / 1000, dao.getById(intervention.getId()).getDateCreate().getTime() / 1000);
+        assertTrue(dao.migrateLegacyDates() >= 1);
+        Document migrated = (Document) dao.collection.find(new Document("_id", intervention.getId())).first();
+        assertTrue(migrated.get("dateCreate") instanceof Date);
+        assertEquals(0, dao.migrateLegacyDates());
+        dao.delete(intervention);
+    }
+
+    private static boolean containsId(List<Intervention> interventions, long id)
+    {
+        for (Intervention intervention : interventions) {
+            if (intervention.getId() == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testFindNear()
+    {
+        Intervention intervention = new Intervention( "Intervention 1", "263 Avenue Général Leclerc","35000","Rennes", DisasterCode.FHA);
+        intervention.setCoordinates(new Position(-1.63847, 48.117121));
+        dao.create(intervention);
+
+        assertTrue(containsId(dao.findNear(48.1171, -1.6385, 1000, 10), intervention.getId()));
+        assertFalse(containsId(dao.findNear(48.8566, 2.3522, 1000, 10), intervention.getId()));
+        Document explain = dao.explain(Tools.nearCriteria("location", new Position(-1.6385, 48.1171), 1000));
+        assertTrue(QueryPlans.usesIndex(explain, "location"));
+        dao.delete(intervention);
+    }
+
+    @Test
+    public void testFindWithMeansWithin()
+    {
+        Intervention intervention = new Intervention( "Intervention 1", "263 Avenue Général Leclerc","35000","Rennes", DisasterCode.SAP);
+        intervention.setCoordinates(new Position(-1.63847, 48.117121));
+        dao.create(intervention);
+        long meanId = intervention.getMeansList().get(0).getId();
+        dao.confirmMeanArrival(intervention.getId(), meanId);
+        dao.engageMean(intervention.getId(), meanId, new Position(-1.65, 48.12));
+
+        assertTrue(containsId(dao.findWithMeansWithin(48.12, -1.65, 100), intervention.getId()));
+        assertFalse(containsId(dao.findWithMeansWithin(48.8566, 2.3522, 100), intervention.getId()));
+        Document explain = dao.explain(Tools.withinCriteria("meansList.location", new Position(-1.65, 48.12), 100));
+        assertTrue(QueryPlans.usesIndex(explain, "meansList.location"));
+        dao.delete(intervention);
+    }
+
+    @Test
+    public void testMigrateLocations()
+    {
+        Intervention intervention = new Intervention( "Intervention 1", "263 Avenue Général Leclerc","35000","Rennes", DisasterCode.FHA);
+        intervention.setCoordinates(new Position(-1.63847, 48.117121));
+        intervention.getMeansList().get(0).setCoordinates(new Position(-1.65, 48.12));
+        Document legacy = EntityCodecsTest.toDocument(intervention);
+        legacy.remove("location");
+        for (Object mean : (List) legacy.get("meansList")) {
+            ((Document) mean).remove("location");
+        }
+        dao.collection.insertOne(legacy);
+
+        assertTrue(dao.migrateLocations() >= 1);
+        assertTrue(containsId(dao.findNear(48.1171, -1.6385, 1000, 10), intervention.getId()));
+        assertTrue(containsId(dao.findWithMeansWithin(48.12, -1.65, 100), intervention.getId()));
+        dao.delete(intervention);
+    }
+
+    @Test
+    public void testConfirmMeanArrival()
+    {
+        Intervention intervention = new Intervention( "Intervention 1", "263 Avenue Général Leclerc","35000","Rennes", DisasterCode.FHA);
+        intervention.setCoordinates(new Position(-1.63847, 48.117121));
+        dao.create(intervention);
+        Mean mean = intervention.getMeansList().get(1);
+
+        Mean arrived = dao.confirmMeanArrival(intervention.getId(), mean.getId());
+        assertNotNull(arrived);
+        assertEquals(mean.getId(), arrived.getId());
+        assertEquals(MeanState.ARRIVED, arrived.getMeanState());
+        assertNotNull(arrived.getDateArrived());
+
+        // the mean is not activated anymore, the precondition fails
+        assertNull(dao.confirmMeanArrival(intervention.getId(), mean.getId()));
+
+        Intervention inBase = dao.getById(intervention.getId());
+        assertEquals(MeanState.ARRIVED, inBase.getMeansList().get(1).getMeanState());
+        assertEquals(MeanState.ACTIVATED, inBase.getMeansList().get(0).getMeanState());
+    }
+
+    @Test
+    public void testEngageMeanKeepsFirstEngagementDate()
+    {
+        Intervention intervention = new Intervention( "Intervention 1", "263 Avenue Général Leclerc","35000","Rennes", DisasterCode.SAP);
+        intervention.setCoordinates(new Position(-1.63847, 48.117121));
+        dao.create(intervention);
+        long meanId = intervention.getMeansList().get(0).getId();
+
+        assertNull(dao.engageMean(intervention.getId(), meanId, new Position(1.0, 2.0)));
+        dao.confirmMeanArrival(intervention.getId(), meanId);
+
+        Mean engaged = dao.engageMean(intervention.getId(), meanId, new Position(1.0, 2.0));
+        assertEquals(MeanState.ENGAGED, engaged.getMeanState());
+        assertEquals(new Position(1.0, 2.0), engaged.getCoordinates());
+        assertNotNull(engaged.getDateEngaged());
+
+        Mean moved = dao.engageMean(intervention.getId(), meanId, new Position(3.0, 4.0));
+        assertEquals(new Position(3.0, 4.0), moved.getCoordinates());
+        assertEquals(engaged.getDateEngaged(), moved.getDateEngaged());
+    }
+
+    @Test
+    public void testUpdateMeanOfUnknownIntervention()
+    {
+        assertNull(dao.releaseMean(-1, -1, new Position(1.0, 2.0)));
+    }
+
+    @Test
+    public void testUpdateWithStaleVersionConflicts()
+    {
+        Intervention intervention = new Intervention( "Intervention 1", "263 Avenue Général Leclerc","35000","Rennes", DisasterCode.SAP);
+        intervention.setCoordinates(new Position(-1.63847, 48.117121));
+        dao.create(intervention);
+
+        Intervention first = dao.getById(intervention.getId());
+        Intervention second = dao.getById(intervention.getId());
+        first.setLabel("First");
+        dao.update(first);
+
+        second.setLabel("Second");
+        try {
+            dao.update(second);
+            assertTrue("the stale update must be rejected", false);
+        } catch (ConcurrentUpdateException e) {
+            assertEquals("First", dao.getById(intervention.getId()).getLabel());
+        }
+    }
+
+    @Test
+    public void testModifyAndMeanUpdatesIncrementVersion()
+    {
+        Intervention intervention = new Intervention( "Intervention 1", "263 Avenue Général Leclerc","35000","Rennes", DisasterCode.SAP);
+        intervention.setCoordinates(new Position(-1.63847, 48.117121));
+        dao.create(intervention);
+        long version = dao.getById(intervention.getId()).getVersion();
+
+        Intervention modified = dao.modify(intervention.getId(), new Modification() {
+            @Override
+            public void apply(Intervention intervention) {
+                intervention.setLabel("Modified");
+            }
+        });
+        assertEquals(version + 1, modified.getVersion());
+
+        dao.confirmMeanArrival(intervention.getId(), intervention.getMeansList().get(0).getId());
+        Intervention inBase = dao.getById(intervention.getId());
+        assertEquals(version + 2, inBase.getVersion());
+        assertEquals("Modified", inBase.getLabel());
+    }
+
+    @Test
+    public void testUpsertAllIncrementsVersion()
+    {
+        Intervention intervention = new Intervention( "Intervention 1", "263 Avenue Général Leclerc","35000","Rennes", DisasterCode.SAP);
+        intervention.setCoordinates(new Position(-1.63847, 48.117121));
+        dao.create(intervention);
+        long version = dao.getVersion(intervention.getId()).getVersion();
+
+        intervention.setLabel("Upserted");
+        Intervention created = new Intervention( "Intervention 2", "263 Avenue Général Leclerc","35000","Rennes", DisasterCode.SAP);
+        created.setCoordinates(new Position(-1.63847, 48.117121));
+        assertEquals(2, dao.upsertAll(Arrays.asList(intervention, created)));
+
+        Intervention inBase = dao.getById(intervention.getId());
+        assertEquals(version + 1, inBase.getVersion());
+        assertEquals("Upserted", inBase.getLabel());
+        assertEquals(created, dao.getById(created.getId()));
     }
 }
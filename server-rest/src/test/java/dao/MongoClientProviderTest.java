@@ -0,0 +1,69 @@
+package dao;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Map;
+
+import util.Configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test of the pooled client shared by the DAOs
+ */
+public class MongoClientProviderTest {
+
+    @BeforeClass
+    public static void beforeAllTests() {
+        Configuration.loadConfigurations();
+        MongoClientProvider.getInstance().open();
+    }
+
+    @Test
+    public void testConnectBorrowsAndDisconnectReleases()
+    {
+        UserDAO dao1 = new UserDAO();
+        UserDAO dao2 = new UserDAO();
+        int before = (Integer) MongoClientProvider.getInstance().getStatistics().get("borrowed");
+
+        dao1.connect();
+        dao2.connect();
+        Map<String, Object> statistics = MongoClientProvider.getInstance().getStatistics();
+        assertEquals(before + 2, statistics.get("borrowed"));
+        assertTrue((Integer) statistics.get("peakBorrowed") >= before + 2);
+
+        dao1.disconnect();
+        dao2.disconnect();
+        // a second disconnect must not give back the collection twice
+        dao2.disconnect();
+        assertEquals(before, MongoClientProvider.getInstance().getStatistics().get("borrowed"));
+    }
+
+    @Test
+    public void testClientIsShared()
+    {
+        UserDAO dao = new UserDAO();
+        dao.connect();
+        dao.disconnect();
+        dao.connect();
+        assertTrue(dao.getAll() != null);
+        dao.disconnect();
+        assertEquals(true, MongoClientProvider.getInstance().getStatistics().get("opened"));
+    }
+
+    @Test
+    public void testConnectionsOfTheDriverPool()
+    {
+        UserDAO dao = new UserDAO();
+        dao.connect();
+        dao.getAll();
+        dao.disconnect();
+        Map<String, Object> statistics = MongoClientProvider.getInstance().getStatistics();
+        int connections = (Integer) statistics.get("connections");
+        assertTrue(connections >= 1);
+        assertTrue((Integer) statistics.get("checkedOut") <= connections);
+        assertTrue((Integer) statistics.get("waiting") >= 0);
+    }
+}
@@ -0,0 +1,61 @@
+package dao;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the query plans returned by AbstractDAO.explain()
+ */
+final class QueryPlans {
+
+    private QueryPlans() {
+    }
+
+    /**
+     * @param explain explain document of a query
+     * @param field indexed field
+     * @return true if the winning plan reads an index on the field and never scans the whole collection
+     */
+    static boolean usesIndex(Document explain, String field) {
+        Document plan = (Document) ((Document) explain.get("queryPlanner")).get("winningPlan");
+        return !hasStage(plan, "COLLSCAN") && readsIndexOn(plan, field);
+    }
+
+    private static boolean hasStage(Document stage, String name) {
+        if (name.equals(stage.getString("stage"))) {
+            return true;
+        }
+        for (Document input : inputsOf(stage)) {
+            if (hasStage(input, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean readsIndexOn(Document stage, String field) {
+        Document keyPattern = (Document) stage.get("keyPattern");
+        if (keyPattern != null && keyPattern.containsKey(field)) {
+            return true;
+        }
+        for (Document input : inputsOf(stage)) {
+            if (readsIndexOn(input, field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Document> inputsOf(Document stage) {
+        List<Document> inputs = new ArrayList<Document>();
+        if (stage.get("inputStage") != null) {
+            inputs.add((Document) stage.get("inputStage"));
+        }
+        if (stage.get("inputStages") != null) {
+            inputs.addAll((List<Document>) stage.get("inputStages"));
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,79 @@
+package dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import util.Configuration;
+import entity.Position;
+import entity.TrackPoint;
+
+public class TrackPointDAOTest {
+    private static final String DRONE = "track-test";
+    private static TrackPointDAO dao = new TrackPointDAO();
+
+    private final List<TrackPoint> inserted = new ArrayList<TrackPoint>();
+
+    @BeforeClass
+    public static void beforeAllTests() {
+        Configuration.loadConfigurations();
+        dao.connect();
+        dao.ensureIndex();
+    }
+
+    @AfterClass
+    public static void afterAllTests() {
+        dao.disconnect();
+    }
+
+    @After
+    public void tearDown() {
+        for (TrackPoint point : inserted) {
+            dao.delete(point);
+        }
+    }
+
+    private void insertTrack(int size) {
+        long start = System.currentTimeMillis() - size * 1000L;
+        for (int i = 0; i < size; i++) {
+            inserted.add(new TrackPoint(DRONE, 7, new Position(-1.6 + i * 0.0001, 48.1, 50.0), new Date(start + i * 1000L)));
+        }
+        dao.createAll(inserted);
+    }
+
+    @Test
+    public void testTrackInFlightOrder() {
+        insertTrack(10);
+        List<TrackPoint> track = dao.findTrack(DRONE, 7L, null, null, 100);
+        assertEquals(10, track.size());
+        for (int i = 1; i < track.size(); i++) {
+            assertTrue(track.get(i).getDate().after(track.get(i - 1).getDate()));
+        }
+    }
+
+    @Test
+    public void testLimitKeepsTheLatestPositions() {
+        insertTrack(25);
+        List<TrackPoint> track = dao.findTrack(DRONE, null, null, null, 10);
+        assertEquals(10, track.size());
+        // the current flight is kept, the oldest positions are dropped
+        assertEquals(inserted.get(15).getDate(), track.get(0).getDate());
+        assertEquals(inserted.get(24).getDate(), track.get(9).getDate());
+    }
+
+    @Test
+    public void testPeriod() {
+        insertTrack(10);
+        List<TrackPoint> track = dao.findTrack(DRONE, null, inserted.get(2).getDate(), inserted.get(5).getDate(), 100);
+        assertEquals(4, track.size());
+        assertEquals(inserted.get(2).getDate(), track.get(0).getDate());
+    }
+}
@@ -0,0 +1,55 @@
+package rest;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import entity.Position;
+import service.position.DroneFleet;
+import util.Configuration;
+
+import javax.ws.rs.core.Response;
+
+import static org.junit.Assert.assertEquals;
+
+public class DroneRestTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @BeforeClass
+    public static void beforeAllTests() {
+        Configuration.loadConfigurations();
+    }
+
+    private static DroneRest.Telemetry telemetryOf(String json) throws Exception {
+        return MAPPER.readValue(json, DroneRest.Telemetry.class);
+    }
+
+    @Test
+    public void testTelemetryWithoutCoordinatesIsRejected() throws Exception {
+        DroneRest droneRest = new DroneRest();
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(),
+                droneRest.pushTelemetry(DroneFleet.DEFAULT_DRONE, telemetryOf("{\"latitude\": 48.1}")).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(),
+                droneRest.pushTelemetry(DroneFleet.DEFAULT_DRONE, telemetryOf("{\"altitude\": 50}")).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(),
+                droneRest.pushTelemetry(DroneFleet.DEFAULT_DRONE, null).getStatus());
+    }
+
+    @Test
+    public void testTelemetryOfUnknownDrone() throws Exception {
+        DroneRest droneRest = new DroneRest();
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(),
+                droneRest.pushTelemetry("unknown", telemetryOf("{\"latitude\": 48.1, \"longitude\": -1.6}")).getStatus());
+    }
+
+    @Test
+    public void testTelemetryMovesTheDrone() throws Exception {
+        DroneRest droneRest = new DroneRest();
+        Response response = droneRest.pushTelemetry(DroneFleet.DEFAULT_DRONE,
+                telemetryOf("{\"latitude\": 48.115, \"longitude\": -1.638, \"altitude\": 40}"));
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+        Position position = DroneFleet.getInstance().getDrone(DroneFleet.DEFAULT_DRONE).getPosition();
+        assertEquals(48.115, position.getLatitude(), 0);
+        assertEquals(-1.638, position.getLongitude(), 0);
+    }
+}
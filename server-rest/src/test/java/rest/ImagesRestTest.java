@@ -6,7 +6,19 @@ import org.junit.*;
 import org.junit.Test;
 import util.Configuration;
 
+import org.apache.commons.codec.binary.Base64;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import service.impl.ThumbnailServiceImpl;
+
+import javax.imageio.ImageIO;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -35,7 +47,7 @@ public class ImagesRestTest {
     }
 
     @Test
-    public void testGetAllImages()
+    public void testGetAllImages() throws IOException
     {
         GeoImage geoImage1 = new GeoImage();
         geoImage1.setImage("BASE64");
@@ -67,7 +79,7 @@ public class ImagesRestTest {
         dao.ensureIndex();
         GeoImageRest imageRest = new GeoImageRest();
         Response response = imageRest.getAllImages();
-        List<GeoImage> concernedImages = (List<GeoImage>) response.getEntity();
+        List<GeoImage> concernedImages = readImages(response);
         assertEquals(200, response.getStatus());
         assertEquals(3, concernedImages.size());
         assertTrue(concernedImages.contains(geoImage1));
@@ -81,7 +93,7 @@ public class ImagesRestTest {
     }
 
     @Test
-    public void testGetAllImagesNear()
+    public void testGetAllImagesNear() throws IOException
     {
         GeoImage geoImage1 = new GeoImage();
         geoImage1.setImage("BASE64");
@@ -112,8 +124,8 @@ public class ImagesRestTest {
 
         dao.ensureIndex();
         GeoImageRest imageRest = new GeoImageRest();
-        Response response = imageRest.getAllImagesNear(1, 0,5);
-        List<GeoImage> concernedImages = (List<GeoImage>) response.getEntity();
+        Response response = imageRest.getAllImagesNear(1, 0, 5, null);
+        List<GeoImage> concernedImages = readImages(response);
         assertEquals(200, response.getStatus());
         assertEquals(2, concernedImages.size());
         assertTrue(concernedImages.contains(geoImage1));
@@ -125,4 +137,59 @@ public class ImagesRestTest {
             dao.delete(g);
         }
     }
+
+    @Test
+    public void testGetRawImage() throws IOException
+    {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 13, 10, 26, 10, 1, 2, 3};
+        GeoImage geoImage = new GeoImage();
+        geoImage.setImage(Base64.encodeBase64String(png));
+        geoImage.setPosition(new Position(7.0, 6.0, 4.0));
+        dao.create(geoImage);
+
+        GeoImageRest imageRest = new GeoImageRest();
+        Response response = imageRest.getRawImage(geoImage.getId(), null);
+        assertEquals(200, response.getStatus());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        assertTrue(Arrays.equals(png, output.toByteArray()));
+
+        dao.delete(geoImage);
+        assertEquals(404, imageRest.getRawImage(geoImage.getId(), null).getStatus());
+    }
+
+    @Test
+    public void testGetThumbnail() throws IOException
+    {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB), "png", png);
+        GeoImage geoImage = new GeoImage();
+        geoImage.setImage(Base64.encodeBase64String(png.toByteArray()));
+        geoImage.setPosition(new Position(7.0, 6.0, 4.0));
+        dao.create(geoImage);
+
+        GeoImageRest imageRest = new GeoImageRest();
+        // not generated yet : the original is sent
+        assertEquals(640, readImage(imageRest.getRawImage(geoImage.getId(), 64)).getWidth());
+
+        assertTrue(ThumbnailServiceImpl.getInstance().generate(geoImage.getId()) > 0);
+        BufferedImage thumbnail = readImage(imageRest.getRawImage(geoImage.getId(), 64));
+        assertEquals(64, thumbnail.getWidth());
+        assertEquals(48, thumbnail.getHeight());
+
+        dao.delete(geoImage);
+        assertEquals(404, imageRest.getRawImage(geoImage.getId(), 64).getStatus());
+    }
+
+    private static BufferedImage readImage(Response response) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        return ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    private static List<GeoImage> readImages(Response response) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        return Arrays.asList(new ObjectMapper().readValue(output.toByteArray(), GeoImage[].class));
+    }
 }
@@ -1,14 +1,18 @@
 package rest;
 
 
+import dao.GeoImageDAO;
+import dao.GeoImageQuery;
 import dao.InterventionDAO;
 import entity.*;
 import org.junit.*;
 import service.impl.RetrieveAddressImpl;
 import util.Configuration;
 
+import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.Response;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import static java.lang.Double.*;
 
@@ -59,7 +63,7 @@ public class InterventionRestTest {
     public void testListAllInterventionsWhenListIsEmpty()
     {
         InterventionRest interventionRest= new InterventionRest();
-        List<Intervention> interventionList = interventionRest.getAllIntervention();
+        List<Intervention> interventionList = entityOf(interventionRest.getAllIntervention(null, null, null, null, null, null, false));
         assertEquals(0, interventionList.size());
     }
 
@@ -68,10 +72,179 @@ public class InterventionRestTest {
     {
         dao.create(intervention);
         InterventionRest interventionRest= new InterventionRest();
-        List<Intervention> interventionList = interventionRest.getAllIntervention();
+        List<Intervention> interventionList = entityOf(interventionRest.getAllIntervention(null, null, null, null, null, null, false));
         assertEquals(1, interventionList.size());
     }
 
+    @Test
+    public void testListInterventionsByPage()
+    {
+        InterventionRest interventionRest= new InterventionRest();
+        List<Intervention> created = new ArrayList<Intervention>();
+        for (int i = 0; i < 3; i++) {
+            Intervention other = new Intervention(interventionName + i, address, postCode, city, disasterCode);
+            other.setCoordinates(coordinatesIntervention);
+            other.setDateCreate(new Date(1000000L * (i + 1)));
+            created.add(dao.create(other));
+        }
+
+        Response firstPage = interventionRest.getAllIntervention(null, null, null, null, null, 2, false);
+        List<Intervention> firstList = entityOf(firstPage);
+        assertEquals(2, firstList.size());
+        assertEquals(created.get(2).getId(), firstList.get(0).getId());
+        assertEquals(created.get(1).getId(), firstList.get(1).getId());
+        String cursor = (String) firstPage.getMetadata().getFirst(InterventionRest.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+
+        Response secondPage = interventionRest.getAllIntervention(null, null, null, null, cursor, 2, false);
+        List<Intervention> secondList = entityOf(secondPage);
+        assertEquals(1, secondList.size());
+        assertEquals(created.get(0).getId(), secondList.get(0).getId());
+        assertNull(secondPage.getMetadata().getFirst(InterventionRest.NEXT_CURSOR_HEADER));
+
+        for (Intervention other : created) {
+            dao.delete(other);
+        }
+    }
+
+    @Test
+    public void testListWithoutLimitIsNotPaged()
+    {
+        InterventionRest interventionRest= new InterventionRest();
+        List<Intervention> created = new ArrayList<Intervention>();
+        for (int i = 0; i < 3; i++) {
+            Intervention other = new Intervention(interventionName + i, address, postCode, city, disasterCode);
+            other.setCoordinates(coordinatesIntervention);
+            created.add(dao.create(other));
+        }
+
+        Response all = interventionRest.getAllIntervention(null, null, null, null, null, null, false);
+        assertEquals(3, entityOf(all).size());
+        assertNull(all.getMetadata().getFirst(InterventionRest.NEXT_CURSOR_HEADER));
+
+        for (Intervention other : created) {
+            dao.delete(other);
+        }
+    }
+
+    @Test
+    public void testSummaryKeepsOnlyMeanStates()
+    {
+        dao.create(intervention);
+        InterventionRest interventionRest= new InterventionRest();
+        List<Intervention> summaries = entityOf(interventionRest.getAllIntervention(null, null, null, null, null, null, true));
+        assertEquals(1, summaries.size());
+        List<Mean> means = summaries.get(0).getMeansList();
+        assertEquals(intervention.getMeansList().size(), means.size());
+        for (Mean mean : means) {
+            assertNotNull(mean.getMeanState());
+            assertNull(mean.getVehicle());
+            assertNull(mean.getDateActivated());
+        }
+    }
+
+    @Test
+    public void testListInterventionsWithFilters()
+    {
+        dao.create(intervention);
+        InterventionRest interventionRest= new InterventionRest();
+        long created = intervention.getDateCreate().getTime();
+
+        assertEquals(1, entityOf(interventionRest.getAllIntervention(disasterCode.toString(), null, null, null, null, null, true)).size());
+        assertEquals(0, entityOf(interventionRest.getAllIntervention(DisasterCode.FHA.toString(), null, null, null, null, null, true)).size());
+        assertEquals(1, entityOf(interventionRest.getAllIntervention(null, MeanState.ACTIVATED.toString(), created, created + 1, null, null, true)).size());
+        assertEquals(0, entityOf(interventionRest.getAllIntervention(null, MeanState.REQUESTED.toString(), null, null, null, null, true)).size());
+        assertEquals(0, entityOf(interventionRest.getAllIntervention(null, null, created + 1, null, null, null, true)).size());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), interventionRest.getAllIntervention("UNKNOWN", null, null, null, null, null, false).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), interventionRest.getAllIntervention(null, null, null, null, "cursor", null, false).getStatus());
+    }
+
+    @Test
+    public void testListInterventionsSummary()
+    {
+        dao.create(intervention);
+        InterventionRest interventionRest= new InterventionRest();
+        List<Intervention> interventionList = entityOf(interventionRest.getAllIntervention(null, null, null, null, null, null, true));
+        assertEquals(1, interventionList.size());
+        Mean mean = interventionList.get(0).getMeansList().get(0);
+        assertEquals(intervention.getMeansList().get(0).getMeanState(), mean.getMeanState());
+        assertNull(mean.getDateActivated());
+    }
+
+    private static List<Intervention> entityOf(Response response) {
+        return ((GenericEntity<List<Intervention>>) response.getEntity()).getEntity();
+    }
+
+    private static List<GeoImage> imagesOf(Response response) {
+        return ((GenericEntity<List<GeoImage>>) response.getEntity()).getEntity();
+    }
+
+    @Test
+    public void testListImagesOfIntervention() throws InterruptedException
+    {
+        GeoImageDAO imageDAO = new GeoImageDAO();
+        imageDAO.connect();
+        List<GeoImage> images = new ArrayList<GeoImage>();
+        for (int i = 0; i < 4; i++) {
+            GeoImage image = new GeoImage();
+            image.setImage("BASE64");
+            image.setPosition(new Position(-1.63847, 48.117121));
+            // the last image belongs to another intervention
+            image.setInterventionId(i < 3 ? intervention.getId() : intervention.getId() + 1);
+            images.add(imageDAO.create(image));
+            Thread.sleep(5);
+        }
+        try {
+            InterventionRest interventionRest = new InterventionRest();
+            Response firstPage = interventionRest.getImagesForIntervention(intervention.getId(), null, null, null, null, 2);
+            List<GeoImage> firstList = imagesOf(firstPage);
+            assertEquals(2, firstList.size());
+            assertEquals(images.get(2).getId(), firstList.get(0).getId());
+            assertEquals(images.get(1).getId(), firstList.get(1).getId());
+            assertNull(firstList.get(0).getImage());
+            String cursor = (String) firstPage.getMetadata().getFirst(InterventionRest.NEXT_CURSOR_HEADER);
+            assertNotNull(cursor);
+
+            Response secondPage = interventionRest.getImagesForIntervention(intervention.getId(), null, null, null, cursor, 2);
+            List<GeoImage> secondList = imagesOf(secondPage);
+            assertEquals(1, secondList.size());
+            assertEquals(images.get(0).getId(), secondList.get(0).getId());
+            assertNull(secondPage.getMetadata().getFirst(InterventionRest.NEXT_CURSOR_HEADER));
+
+            // a client polling with the date of the newest image it has only gets the newer ones
+            List<GeoImage> newer = imagesOf(interventionRest.getImagesForIntervention(intervention.getId(),
+                    images.get(1).getDate().getTime(), null, null, null, null));
+            assertEquals(1, newer.size());
+            assertEquals(images.get(2).getId(), newer.get(0).getId());
+
+            List<GeoImage> older = imagesOf(interventionRest.getImagesForIntervention(intervention.getId(),
+                    null, images.get(0).getDate().getTime(), null, null, null));
+            assertEquals(1, older.size());
+            assertEquals(images.get(0).getId(), older.get(0).getId());
+
+            // polling after the cursor of the newest image seen, the ones of the same millisecond are not skipped
+            List<GeoImage> after = imagesOf(interventionRest.getImagesForIntervention(intervention.getId(),
+                    null, null, GeoImageQuery.cursorOf(images.get(1)), null, null));
+            assertEquals(1, after.size());
+            assertEquals(images.get(2).getId(), after.get(0).getId());
+            String sameMillisecond = images.get(2).getDate().getTime() + "_" + images.get(1).getId();
+            after = imagesOf(interventionRest.getImagesForIntervention(intervention.getId(),
+                    null, null, sameMillisecond, null, null));
+            assertEquals(1, after.size());
+            assertEquals(images.get(2).getId(), after.get(0).getId());
+
+            assertEquals(Response.Status.BAD_REQUEST.getStatusCode(),
+                    interventionRest.getImagesForIntervention(intervention.getId(), null, null, null, "cursor", null).getStatus());
+            assertEquals(Response.Status.BAD_REQUEST.getStatusCode(),
+                    interventionRest.getImagesForIntervention(intervention.getId(), null, null, "after", null, null).getStatus());
+        } finally {
+            for (GeoImage image : images) {
+                imageDAO.delete(image);
+            }
+            imageDAO.disconnect();
+        }
+    }
+
 
     @Test
     public void testCreateIntervention()
@@ -87,10 +260,27 @@ public class InterventionRestTest {
     {
         dao.create(intervention);
         InterventionRest interventionRest= new InterventionRest();
-        Intervention interverionWithRest = interventionRest.getIntervention(intervention.getId());
+        Intervention interverionWithRest = (Intervention) interventionRest.getIntervention(intervention.getId()).getEntity();
         assertEquals(interverionWithRest, intervention);
     }
 
+    @Test
+    public void testGetInterventionTagChangesWithVersion()
+    {
+        dao.create(intervention);
+        InterventionRest interventionRest= new InterventionRest();
+        Object tag = interventionRest.getIntervention(intervention.getId()).getMetadata().getFirst("ETag");
+        assertNotNull(tag);
+        assertEquals(tag, interventionRest.getMeanListForIntervention(intervention.getId()).getMetadata().getFirst("ETag"));
+
+        Mean mean = intervention.getMeansList().get(0);
+        dao.confirmMeanArrival(intervention.getId(), mean.getId());
+        assertNotEquals(tag, interventionRest.getIntervention(intervention.getId()).getMetadata().getFirst("ETag"));
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), interventionRest.getIntervention(-1).getStatus());
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), interventionRest.getMeanListForIntervention(-1).getStatus());
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), interventionRest.getMeanForIntervention(-1, 1).getStatus());
+    }
+
     @Test
     public void testUpdateMeanPositionForInterventionFromArrivedState()
     {
@@ -3,9 +3,12 @@ package rest;
 
 import dao.GeoIconDAO;
 import entity.GeoIcon;
+import entity.IconCluster;
 import entity.Position;
+import entity.TopographyTile;
 import org.junit.*;
 import util.Configuration;
+import util.WebMercator;
 
 import static org.junit.Assert.*;
 import javax.ws.rs.core.Response;
@@ -75,19 +78,156 @@ public class TopographyRestTest {
         dao.disconnect();
     }
 
-    /**
-     *
-     * This method is not used and should be improved in the future when used.
-     *
-     */
+    private static GeoIcon createIcon(double longitude, double latitude) {
+        GeoIcon icon = new GeoIcon();
+        icon.setEntitled("danger");
+        icon.setFilename("danger");
+        icon.setPosition(new Position(longitude, latitude));
+        icon.setColor("OOOOff");
+        icon.setTiret(true);
+        icon.setFirstContent("");
+        icon.setSecondContent("");
+        dao.connect();
+        dao.create(icon);
+        dao.disconnect();
+        return icon;
+    }
+
+    private static void deleteIcons(GeoIcon... icons) {
+        dao.connect();
+        for (GeoIcon icon : icons) {
+            dao.delete(icon);
+        }
+        dao.disconnect();
+    }
+
     @Test
     public void TestGetCoordinatedIcons() {
-        dao.connect();
-        List<GeoIcon> geoIconListFromDao = dao.getAll();
-        TopographyRest topographyRest = new TopographyRest();
-        List<GeoIcon> geoIconList= topographyRest.getCoordinatedIcons(1.0,1.0,2);
-        assertEquals(geoIconListFromDao,geoIconList);
+        GeoIcon near = createIcon(-1.63847, 48.117121);
+        GeoIcon far = createIcon(2.3522, 48.8566);
+        try {
+            TopographyRest topographyRest = new TopographyRest();
+            Response response = topographyRest.getCoordinatedIcons(-1.6385, 48.1171, 1000);
+            assertEquals(200, response.getStatus());
+            List<GeoIcon> geoIconList = (List<GeoIcon>) response.getEntity();
+            assertTrue(geoIconList.contains(near));
+            assertFalse(geoIconList.contains(far));
+            assertEquals(response.getMetadata().getFirst("ETag"), topographyRest.getCoordinatedIcons(-1.6385, 48.1171, 1000).getMetadata().getFirst("ETag"));
+
+            List<GeoIcon> wider = (List<GeoIcon>) topographyRest.getCoordinatedIcons(-1.6385, 48.1171, 400000).getEntity();
+            assertTrue(wider.contains(near));
+            assertTrue(wider.contains(far));
+        } finally {
+            deleteIcons(near, far);
+        }
     }
 
+    @Test
+    public void TestGetCoordinatedIconsNegativeRadiusFails() {
+        assertEquals(400, new TopographyRest().getCoordinatedIcons(-1.6385, 48.1171, -1).getStatus());
+    }
 
+    @Test
+    public void TestGetIconsInBox() {
+        GeoIcon near = createIcon(-1.63847, 48.117121);
+        GeoIcon far = createIcon(2.3522, 48.8566);
+        try {
+            TopographyRest topographyRest = new TopographyRest();
+            List<GeoIcon> inBox = (List<GeoIcon>) topographyRest.getIconsInBox(48.0, -1.8, 48.2, -1.5).getEntity();
+            assertTrue(inBox.contains(near));
+            assertFalse(inBox.contains(far));
+
+            List<GeoIcon> world = (List<GeoIcon>) topographyRest.getIconsInBox(-85, -180, 85, 180).getEntity();
+            assertTrue(world.contains(near));
+            assertTrue(world.contains(far));
+
+            assertEquals(400, topographyRest.getIconsInBox(48.2, -1.8, 48.0, -1.5).getStatus());
+        } finally {
+            deleteIcons(near, far);
+        }
+    }
+
+    @Test
+    public void TestGetIconsInWideBoxFollowsTheParallels() {
+        // the great circles between the corners pass near 47.6 and 57.3 degrees north at longitude 0
+        GeoIcon inside = createIcon(0, 40.5);
+        GeoIcon outside = createIcon(0, 50.5);
+        try {
+            List<GeoIcon> inBox = (List<GeoIcon>) new TopographyRest().getIconsInBox(40, -40, 50, 40).getEntity();
+            assertTrue(inBox.contains(inside));
+            assertFalse(inBox.contains(outside));
+        } finally {
+            deleteIcons(inside, outside);
+        }
+    }
+
+    private static Response getTileOf(TopographyRest topographyRest, GeoIcon icon, int z) {
+        int x = (int) WebMercator.longitudeToTileX(icon.getPosition().getLongitude(), z);
+        int y = (int) WebMercator.latitudeToTileY(icon.getPosition().getLatitude(), z);
+        return topographyRest.getTile(z, x, y);
+    }
+
+    @Test
+    public void TestGetTile() {
+        GeoIcon first = createIcon(-1.63847, 48.117121);
+        GeoIcon second = createIcon(-1.63850, 48.117150);
+        GeoIcon far = createIcon(2.3522, 48.8566);
+        try {
+            TopographyRest topographyRest = new TopographyRest();
+
+            // Assez de zoom : les icones sont envoyees une par une
+            Response response = getTileOf(topographyRest, first, 17);
+            assertEquals(200, response.getStatus());
+            TopographyTile tile = (TopographyTile) response.getEntity();
+            assertTrue(tile.getIcons().contains(first));
+            assertTrue(tile.getIcons().contains(second));
+            assertFalse(tile.getIcons().contains(far));
+            assertEquals(response.getMetadata().getFirst("ETag"), getTileOf(topographyRest, first, 17).getMetadata().getFirst("ETag"));
+
+            // Zoom faible : les icones proches sont regroupees
+            TopographyTile clustered = (TopographyTile) getTileOf(topographyRest, first, 5).getEntity();
+            assertFalse(clustered.getIcons().contains(first));
+            int count = 0;
+            for (IconCluster cluster : clustered.getClusters()) {
+                count = Math.max(count, cluster.getCount());
+            }
+            assertTrue(count >= 2);
+
+            // Zoom 0 : la tuile couvre toutes les longitudes
+            TopographyTile world = (TopographyTile) topographyRest.getTile(0, 0, 0).getEntity();
+            int total = world.getIcons().size();
+            for (IconCluster cluster : world.getClusters()) {
+                total += cluster.getCount();
+            }
+            assertTrue(total >= 3);
+        } finally {
+            deleteIcons(first, second, far);
+        }
+    }
+
+    @Test
+    public void TestGetTileSeesNewIcons() {
+        TopographyRest topographyRest = new TopographyRest();
+        GeoIcon first = createIcon(-1.63847, 48.117121);
+        GeoIcon second = null;
+        try {
+            Object before = getTileOf(topographyRest, first, 18).getMetadata().getFirst("ETag");
+            second = createIcon(-1.63848, 48.117122);
+            Response response = getTileOf(topographyRest, first, 18);
+            assertTrue(((TopographyTile) response.getEntity()).getIcons().contains(second));
+            assertFalse(before.equals(response.getMetadata().getFirst("ETag")));
+        } finally {
+            deleteIcons(first);
+            if (second != null) {
+                deleteIcons(second);
+            }
+        }
+    }
+
+    @Test
+    public void TestGetInvalidTileFails() {
+        TopographyRest topographyRest = new TopographyRest();
+        assertEquals(400, topographyRest.getTile(2, 4, 0).getStatus());
+        assertEquals(400, topographyRest.getTile(-1, 0, 0).getStatus());
+    }
 }
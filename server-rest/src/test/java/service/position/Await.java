@@ -0,0 +1,29 @@
+package service.position;
+
+/**
+ * Waits for the background threads of the fleet
+ */
+final class Await {
+    private static final long TIMEOUT = 5000;
+
+    interface Condition {
+        boolean isTrue();
+    }
+
+    private Await() {
+    }
+
+    /**
+     * @return true if the condition became true within a few seconds
+     */
+    static boolean until(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.isTrue()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
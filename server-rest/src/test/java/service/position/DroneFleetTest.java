@@ -0,0 +1,71 @@
+package service.position;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import entity.Target;
+import util.Configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DroneFleetTest {
+    private DroneFleet fleet;
+
+    @BeforeClass
+    public static void beforeAllTests() {
+        Configuration.loadConfigurations();
+    }
+
+    @Before
+    public void setUp() {
+        fleet = new TestFleet();
+    }
+
+    @After
+    public void tearDown() {
+        fleet.shutdown();
+    }
+
+    @Test
+    public void testDefaultDroneIsRegistered() {
+        assertNotNull(fleet.getDrone(DroneFleet.DEFAULT_DRONE));
+    }
+
+    @Test
+    public void testRegisterKeepsTheExistingDrone() {
+        Drone first = fleet.register("alpha", "http://127.0.0.1:1");
+        Drone second = fleet.register("alpha", "http://127.0.0.1:2");
+        assertSame(first, second);
+        assertEquals("http://127.0.0.1:1", fleet.getDrone("alpha").getServerUrl());
+    }
+
+    @Test
+    public void testUnknownDrone() {
+        assertNull(fleet.getDrone("unknown"));
+        assertNull(fleet.fly("unknown", new Target()));
+        assertNull(fleet.land("unknown"));
+    }
+
+    @Test
+    public void testDronesOfIntervention() {
+        Drone alpha = fleet.register("alpha", "http://127.0.0.1:1");
+        fleet.register("beta", "http://127.0.0.1:1");
+        Target target = new Target();
+        target.setInterventionId(42);
+        fleet.fly("alpha", target);
+
+        assertEquals(1, fleet.getDronesOfIntervention(42).size());
+        assertSame(alpha, fleet.getDronesOfIntervention(42).get(0));
+        assertTrue(fleet.getDronesOfIntervention(43).isEmpty());
+
+        fleet.land("alpha");
+        assertNull(alpha.getTarget());
+        assertTrue(fleet.getDronesOfIntervention(42).isEmpty());
+    }
+}
@@ -0,0 +1,142 @@
+package service.position;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import entity.Position;
+import entity.Target;
+import util.Configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DroneTest {
+    private DroneFleet fleet;
+    private StubDroneServer server;
+
+    @BeforeClass
+    public static void beforeAllTests() {
+        Configuration.loadConfigurations();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        fleet = new TestFleet();
+        server = new StubDroneServer();
+    }
+
+    @After
+    public void tearDown() {
+        fleet.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testBackoffStaysWithinBounds() {
+        Drone drone = fleet.register("backoff", server.getUrl());
+        for (int failures = 0; failures < 40; failures++) {
+            long expected = Math.min(TestFleet.MAX_BACKOFF, TestFleet.POLL_INTERVAL << Math.min(failures, 16));
+            for (int i = 0; i < 200; i++) {
+                long delay = drone.backoff(failures);
+                assertTrue(delay >= expected / 2);
+                assertTrue(delay <= expected);
+                assertTrue(delay <= TestFleet.MAX_BACKOFF);
+            }
+        }
+    }
+
+    @Test
+    public void testFlyingDroneIsPolled() throws Exception {
+        fleet.register("polled", server.getUrl());
+        fleet.fly("polled", new Target());
+        assertTrue(Await.until(new Await.Condition() {
+            @Override
+            public boolean isTrue() {
+                return server.getPositionReads() >= 3;
+            }
+        }));
+    }
+
+    @Test
+    public void testRefusedWaypointIsSentAgain() throws Exception {
+        Drone drone = fleet.register("waypoints", server.getUrl());
+        Target target = new Target();
+        target.setPositions(Arrays.asList(new Position(-1.6, 48.1), new Position(-1.7, 48.2)));
+        fleet.fly("waypoints", target);
+        TransitDroneSender sender = new TransitDroneSender(drone, target);
+
+        assertFalse(sender.sendNextPosition());
+        server.setAcceptWaypoints(true);
+        assertTrue(sender.sendNextPosition());
+        assertTrue(sender.sendNextPosition());
+        fleet.land("waypoints");
+
+        assertEquals(2, server.getWaypoints().size());
+        assertTrue(server.getWaypoints().get(0).contains("48.1"));
+        assertTrue(server.getWaypoints().get(1).contains("48.2"));
+    }
+
+    @Test
+    public void testLandCancelsTheTelemetry() throws Exception {
+        ScheduledThreadPoolExecutor scheduler = (ScheduledThreadPoolExecutor) fleet.getScheduler();
+        // the periodic write of the flight tracks
+        int scheduled = scheduler.getQueue().size();
+
+        fleet.register("landed", server.getUrl());
+        fleet.fly("landed", new Target());
+        assertTrue(Await.until(new Await.Condition() {
+            @Override
+            public boolean isTrue() {
+                return server.getPositionReads() >= 2;
+            }
+        }));
+        fleet.land("landed");
+        // a read may have started before the landing
+        Thread.sleep(5 * TestFleet.POLL_INTERVAL);
+        int reads = server.getPositionReads();
+        Thread.sleep(10 * TestFleet.POLL_INTERVAL);
+
+        assertEquals(reads, server.getPositionReads());
+        assertEquals(scheduled, scheduler.getQueue().size());
+    }
+
+    @Test
+    public void testPushingDroneIsNotPolled() throws Exception {
+        Drone drone = fleet.register("pushing", server.getUrl());
+        fleet.fly("pushing", new Target());
+        assertTrue(Await.until(new Await.Condition() {
+            @Override
+            public boolean isTrue() {
+                return server.getPositionReads() >= 2;
+            }
+        }));
+
+        // pushed for twice the telemetry timeout, the first ticks may still read
+        long end = System.currentTimeMillis() + 2 * TestFleet.TELEMETRY_TIMEOUT;
+        int readsWhilePushing = -1;
+        for (int i = 0; System.currentTimeMillis() < end; i++) {
+            drone.onTelemetry(new Position(-1.6 + i * 0.0001, 48.1, 50.0));
+            if (i == 5) {
+                readsWhilePushing = server.getPositionReads();
+            }
+            Thread.sleep(TestFleet.POLL_INTERVAL);
+        }
+        assertEquals(readsWhilePushing, server.getPositionReads());
+
+        // silent for longer than the timeout : polled again
+        final int readsBeforeTimeout = server.getPositionReads();
+        assertTrue(Await.until(new Await.Condition() {
+            @Override
+            public boolean isTrue() {
+                return server.getPositionReads() > readsBeforeTimeout + 2;
+            }
+        }));
+        fleet.land("pushing");
+    }
+}
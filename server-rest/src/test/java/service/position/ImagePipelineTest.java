@@ -0,0 +1,159 @@
+package service.position;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import entity.GeoImage;
+import entity.Target;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ImagePipelineTest {
+    private final CountDownLatch capturing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ImagePipeline pipeline;
+
+    /**
+     * Drone whose picture is taken once the test releases it, and never stored
+     */
+    private class StubSender extends TransitDroneSender {
+        private final boolean blocking;
+        private final boolean failing;
+        private final AtomicInteger pictures = new AtomicInteger();
+        private final AtomicInteger waypoints = new AtomicInteger();
+
+        StubSender(String id, boolean blocking, boolean failing) {
+            super(new Drone(null, id, "http://127.0.0.1:1"), new Target());
+            this.blocking = blocking;
+            this.failing = failing;
+        }
+
+        @Override
+        GeoImage takePicture() throws IOException {
+            pictures.incrementAndGet();
+            if (blocking) {
+                capturing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failing) {
+                throw new IOException("drone server down");
+            }
+            return new GeoImage();
+        }
+
+        @Override
+        GeoImage store(GeoImage image) {
+            return image;
+        }
+
+        @Override
+        void push(GeoImage stored) {
+        }
+
+        @Override
+        boolean sendNextPosition() {
+            waypoints.incrementAndGet();
+            return true;
+        }
+
+        /**
+         * @return true if the next picture may be taken ; the drone is released again
+         */
+        boolean isReleased() {
+            if (startProcessing()) {
+                processed();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        pipeline.shutdown();
+    }
+
+    private long statistic(String stage, String name) {
+        return ((Number) ((Map) pipeline.getStatistics().get(stage)).get(name)).longValue();
+    }
+
+    @Test
+    public void testTicksAreSkippedWhileThePictureIsInFlight() throws Exception {
+        pipeline = new ImagePipeline(1, 4);
+        final StubSender sender = new StubSender("skipped", true, false);
+        pipeline.process(sender);
+        capturing.await();
+        pipeline.process(sender);
+        pipeline.process(sender);
+        assertEquals(2L, pipeline.getStatistics().get("skipped"));
+        assertFalse(sender.isReleased());
+
+        release.countDown();
+        assertTrue(Await.until(new Await.Condition() {
+            @Override
+            public boolean isTrue() {
+                return sender.waypoints.get() == 1;
+            }
+        }));
+        assertEquals(1, sender.pictures.get());
+        assertTrue(Await.until(new Await.Condition() {
+            @Override
+            public boolean isTrue() {
+                return sender.isReleased();
+            }
+        }));
+    }
+
+    @Test
+    public void testFailedCaptureReleasesTheDrone() throws Exception {
+        pipeline = new ImagePipeline(1, 4);
+        final StubSender sender = new StubSender("failing", false, true);
+        pipeline.process(sender);
+        assertTrue(Await.until(new Await.Condition() {
+            @Override
+            public boolean isTrue() {
+                return statistic("capture", "failed") == 1;
+            }
+        }));
+        assertTrue(sender.isReleased());
+        assertEquals(0, sender.waypoints.get());
+    }
+
+    @Test
+    public void testFullCaptureQueueDropsTheOldestPicture() throws Exception {
+        pipeline = new ImagePipeline(1, 1);
+        StubSender busy = new StubSender("busy", true, false);
+        StubSender oldest = new StubSender("oldest", false, false);
+        final StubSender newest = new StubSender("newest", false, false);
+        pipeline.process(busy);
+        capturing.await();
+        // the only thread takes the picture of busy, oldest waits in the queue
+        pipeline.process(oldest);
+        assertEquals(0, statistic("capture", "dropped"));
+        pipeline.process(newest);
+
+        assertEquals(1, statistic("capture", "dropped"));
+        assertTrue(oldest.isReleased());
+        assertEquals(0, oldest.pictures.get());
+
+        release.countDown();
+        assertTrue(Await.until(new Await.Condition() {
+            @Override
+            public boolean isTrue() {
+                return newest.waypoints.get() == 1;
+            }
+        }));
+    }
+}
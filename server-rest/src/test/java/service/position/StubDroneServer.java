@@ -0,0 +1,91 @@
+package service.position;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drone server answering GET /position with a fixed position, POST /position with 204 once it accepts
+ * the waypoints and 503 before, and 404 to anything else
+ */
+final class StubDroneServer {
+    private static final byte[] POSITION = "{\"latitude\": 48.115, \"longitude\": -1.638, \"altitude\": 50.0}".getBytes();
+
+    private final HttpServer server;
+    private final AtomicInteger positionReads = new AtomicInteger();
+    private final List<String> waypoints = new CopyOnWriteArrayList<String>();
+    private volatile boolean acceptWaypoints;
+
+    StubDroneServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if ("GET".equals(exchange.getRequestMethod()) && "/position".equals(exchange.getRequestURI().getPath())) {
+                    positionReads.incrementAndGet();
+                    exchange.getResponseHeaders().add("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, POSITION.length);
+                    OutputStream body = exchange.getResponseBody();
+                    body.write(POSITION);
+                    body.close();
+                } else if ("POST".equals(exchange.getRequestMethod()) && "/position".equals(exchange.getRequestURI().getPath())) {
+                    if (acceptWaypoints) {
+                        waypoints.add(read(exchange.getRequestBody()));
+                        exchange.sendResponseHeaders(204, -1);
+                    } else {
+                        exchange.sendResponseHeaders(503, -1);
+                    }
+                } else {
+                    exchange.sendResponseHeaders(404, -1);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static String read(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toString("UTF-8");
+    }
+
+    void setAcceptWaypoints(boolean acceptWaypoints) {
+        this.acceptWaypoints = acceptWaypoints;
+    }
+
+    /**
+     * @return bodies of the waypoints accepted
+     */
+    List<String> getWaypoints() {
+        return waypoints;
+    }
+
+    /**
+     * @return number of positions read by the drones
+     */
+    int getPositionReads() {
+        return positionReads.get();
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+}
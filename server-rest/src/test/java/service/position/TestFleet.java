@@ -0,0 +1,25 @@
+package service.position;
+
+/**
+ * Fleet with short delays, so that the tests see several reads in a few hundred ms
+ */
+class TestFleet extends DroneFleet {
+    static final long POLL_INTERVAL = 20;
+    static final long MAX_BACKOFF = 200;
+    static final long TELEMETRY_TIMEOUT = 300;
+
+    @Override
+    long getPollInterval() {
+        return POLL_INTERVAL;
+    }
+
+    @Override
+    long getMaxBackoff() {
+        return MAX_BACKOFF;
+    }
+
+    @Override
+    long getTelemetryTimeout() {
+        return TELEMETRY_TIMEOUT;
+    }
+}
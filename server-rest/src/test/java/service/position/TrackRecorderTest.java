@@ -0,0 +1,27 @@
+package service.position;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import entity.Position;
+import entity.TrackPoint;
+
+import static org.junit.Assert.assertEquals;
+
+public class TrackRecorderTest {
+
+    private static TrackPoint point(int i) {
+        return new TrackPoint("recorded", 0, new Position(-1.6, 48.1 + i / 1000.0), new Date());
+    }
+
+    @Test
+    public void testOldestPositionsAreDroppedWhenFull() {
+        TrackRecorder recorder = new TrackRecorder(3);
+        for (int i = 0; i < 5; i++) {
+            recorder.record(point(i));
+        }
+        assertEquals(3, recorder.getStatistics().get("queued"));
+        assertEquals(2L, recorder.getStatistics().get("dropped"));
+    }
+}
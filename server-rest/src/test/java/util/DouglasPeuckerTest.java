@@ -0,0 +1,65 @@
+package util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entity.Position;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DouglasPeuckerTest {
+
+    private static List<Position> line(int size) {
+        List<Position> path = new ArrayList<Position>();
+        for (int i = 0; i < size; i++) {
+            path.add(new Position(-1.6 + i * 0.0001, 48.1 + i * 0.0001, 50.0));
+        }
+        return path;
+    }
+
+    @Test
+    public void testShortPathIsKept() {
+        assertArrayEquals(new int[] {0, 1, 2}, DouglasPeucker.simplify(line(3), 10));
+    }
+
+    @Test
+    public void testStraightLineKeepsItsEnds() {
+        int[] kept = DouglasPeucker.simplify(line(100), 2);
+        assertArrayEquals(new int[] {0, 99}, kept);
+    }
+
+    @Test
+    public void testCornerIsKept() {
+        List<Position> path = line(50);
+        // back to the south after the 50th point
+        for (int i = 1; i < 50; i++) {
+            path.add(new Position(-1.6 + 49 * 0.0001, 48.1 + 49 * 0.0001 - i * 0.0001, 50.0));
+        }
+        assertArrayEquals(new int[] {0, 49, 98}, DouglasPeucker.simplify(path, 3));
+    }
+
+    @Test
+    public void testMaxPointsIsRespected() {
+        List<Position> path = new ArrayList<Position>();
+        // zigzag, every point matters
+        for (int i = 0; i < 1000; i++) {
+            path.add(new Position(-1.6 + i * 0.0001, 48.1 + (i % 2) * 0.001, 50.0));
+        }
+        int[] kept = DouglasPeucker.simplify(path, 100);
+        assertEquals(100, kept.length);
+        assertEquals(0, kept[0]);
+        assertEquals(999, kept[kept.length - 1]);
+        for (int i = 1; i < kept.length; i++) {
+            assertTrue(kept[i] > kept[i - 1]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAtLeastTheEnds() {
+        DouglasPeucker.simplify(line(10), 1);
+    }
+}
@@ -0,0 +1,95 @@
+package util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import entity.GeoImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IdGeneratorTest {
+
+    @Test
+    public void testIdsIncrease() {
+        IdGenerator generator = new IdGenerator(3);
+        long previous = generator.nextId();
+        // more ids than the sequence of a millisecond
+        for (int i = 0; i < 10000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertEquals(3, IdGenerator.nodeOf(id));
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testIdContainsItsDate() {
+        long before = System.currentTimeMillis();
+        long id = new IdGenerator(IdGenerator.MAX_NODE).nextId();
+        long after = System.currentTimeMillis();
+        assertTrue(id > 0);
+        assertTrue(IdGenerator.timestampOf(id) >= before);
+        // the sequence may borrow a few milliseconds ahead, never behind
+        assertTrue(IdGenerator.timestampOf(id) <= after + 10);
+        assertEquals(IdGenerator.MAX_NODE, IdGenerator.nodeOf(id));
+    }
+
+    @Test
+    public void testNodesDoNotCollide() {
+        IdGenerator first = new IdGenerator(1);
+        IdGenerator second = new IdGenerator(2);
+        Set<Long> ids = new HashSet<Long>();
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(ids.add(first.nextId()));
+            assertTrue(ids.add(second.nextId()));
+        }
+    }
+
+    @Test
+    public void testConcurrentIdsAreUnique() throws InterruptedException {
+        final IdGenerator generator = new IdGenerator(0);
+        final ConcurrentHashMap<Long, Boolean> ids = new ConcurrentHashMap<Long, Boolean>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final int perThread = 20000;
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        assertNull(ids.put(generator.nextId(), Boolean.TRUE));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length * perThread, ids.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidNode() {
+        new IdGenerator(IdGenerator.MAX_NODE + 1);
+    }
+
+    @Test
+    public void testEntitiesSortByCreation() {
+        GeoImage first = new GeoImage();
+        GeoImage second = new GeoImage();
+        assertTrue(second.getId() > first.getId());
+    }
+}